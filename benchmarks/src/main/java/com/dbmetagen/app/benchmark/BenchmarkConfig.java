@@ -0,0 +1,46 @@
+package com.dbmetagen.app.benchmark;
+
+import com.dbmetagen.app.config.DatabaseConfig;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Builds a {@link DatabaseConfig} from a temporary configuration file
+ */
+public final class BenchmarkConfig {
+
+    private BenchmarkConfig() {
+    }
+
+    /**
+     * @param url JDBC URL of the benchmark database
+     * @param settings optional settings added to the configuration
+     */
+    public static DatabaseConfig create(String url, Map<String, Object> settings) throws IOException {
+        return new DatabaseConfig(write(url, settings));
+    }
+
+    /**
+     * Writes the configuration file without loading it
+     * @return the temporary configuration file
+     */
+    public static Path write(String url, Map<String, Object> settings) throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("url", url);
+        json.put("username", "sa");
+        json.put("password", "");
+        json.put("modelPackage", "com.example.bench.model");
+        json.put("outputDirectory", Files.createTempDirectory("bench-models").toString());
+        settings.forEach(json::put);
+
+        Path configFile = Files.createTempFile("bench-db-config", ".json");
+        configFile.toFile().deleteOnExit();
+        Files.write(configFile, json.toString(2).getBytes(StandardCharsets.UTF_8));
+        return configFile;
+    }
+}
@@ -0,0 +1,42 @@
+package com.dbmetagen.app.benchmark;
+
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.repository.DatabaseMetadataRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves a synthetic snapshot without touching a database
+ */
+public final class FixedMetadataRepository implements DatabaseMetadataRepository {
+
+    private final DatabaseMetadata metadata;
+
+    public FixedMetadataRepository(DatabaseMetadata metadata) {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public DatabaseMetadata extractDatabaseMetadata(String dataSourceId) {
+        return metadata;
+    }
+
+    @Override
+    public String getDatabaseName(String dataSourceId) {
+        return metadata.getDatabaseName();
+    }
+
+    @Override
+    public Map<String, String> fingerprintTables(String dataSourceId) {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public List<TableMetadata> extractTables(String dataSourceId, Collection<String> tableNames, boolean bulkCrawl) {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,303 @@
+package com.dbmetagen.app.benchmark;
+
+import com.dbmetagen.app.Application;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * End-to-end load test against a synthetic schema in an embedded H2 database running in
+ * MySQL compatibility mode, so crawler and cache changes can be compared offline against
+ * a reproducible baseline.
+ *
+ * It first crawls the schema directly through the repository, then starts the application
+ * on a random port and drives the metadata and model endpoints from concurrent clients.
+ * Every phase reports p50/p99/max latency, throughput and peak heap:
+ *
+ *     mvn -f benchmarks/pom.xml package
+ *     java -Xmx4g -cp benchmarks/target/benchmarks.jar com.dbmetagen.app.benchmark.LoadTest \
+ *         --tables=10000 --columns=40 --foreign-keys=4 --indexes=3 --clients=16
+ *
+ * Peak heap is the sum of the peaks of the heap pools since the phase started. The pools
+ * may peak at different times, so it is an upper bound.
+ */
+public final class LoadTest {
+
+    private static final String URL = "jdbc:h2:mem:/LOADTEST";
+
+    private final int tableCount;
+    private final int columnsPerTable;
+    private final int foreignKeysPerTable;
+    private final int indexesPerTable;
+    private final int crawls;
+    private final String crawlMode;
+    private final int crawlConcurrency;
+    private final int clients;
+    private final int requests;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private LoadTest(Map<String, String> options) {
+        this.tableCount = intOption(options, "tables", 1000);
+        this.columnsPerTable = intOption(options, "columns", 40);
+        this.foreignKeysPerTable = intOption(options, "foreign-keys", 4);
+        this.indexesPerTable = intOption(options, "indexes", 3);
+        this.crawls = intOption(options, "crawls", 3);
+        String mode = options.remove("crawl-mode");
+        this.crawlMode = mode != null ? mode : DatabaseConfig.CRAWL_MODE_JDBC;
+        this.crawlConcurrency = intOption(options, "crawl-concurrency", 4);
+        this.clients = intOption(options, "clients", 16);
+        this.requests = intOption(options, "requests", 20000);
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + options.keySet());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadTest(options).run();
+        // The embedded server and the application's pools are not worth a clean shutdown
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Schema: %d tables, %d columns, %d foreign keys and %d indexes per table%n",
+                tableCount, columnsPerTable, foreignKeysPerTable, indexesPerTable);
+
+        try (Connection keepAlive = DriverManager.getConnection(URL, "sa", "")) {
+            long start = System.nanoTime();
+            try (Statement statement = keepAlive.createStatement()) {
+                statement.execute("SET MODE MySQL");
+            }
+            SyntheticSchema.create(keepAlive, tableCount, columnsPerTable, foreignKeysPerTable, indexesPerTable);
+            System.out.printf("Created in %d ms%n%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+            Map<String, Object> settings = new HashMap<>();
+            settings.put("crawlMode", crawlMode);
+            settings.put("crawlConcurrency", crawlConcurrency);
+            settings.put("poolMaxSize", Math.max(10, crawlConcurrency + clients));
+            settings.put("persistSnapshots", false);
+            settings.put("slowTableThresholdMs", 0);
+            Path configPath = BenchmarkConfig.write(URL, settings);
+
+            printHeader();
+            crawl(new DatabaseConfig(configPath));
+            serve(configPath);
+        }
+    }
+
+    /**
+     * Full crawls through the repository, one at a time
+     */
+    private void crawl(DatabaseConfig databaseConfig) {
+        JdbcDatabaseMetadataRepository repository = new JdbcDatabaseMetadataRepository(databaseConfig, new SimpleMeterRegistry());
+        Phase phase = new Phase(crawls);
+        for (int i = 0; i < crawls; i++) {
+            long start = System.nanoTime();
+            DatabaseMetadata metadata = repository.extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+            phase.record(start);
+            if (metadata.getTables().size() != tableCount) {
+                throw new IllegalStateException("Crawled " + metadata.getTables().size() + " of " + tableCount + " tables");
+            }
+        }
+        phase.print("extractDatabaseMetadata");
+        databaseConfig.closeConnectionPool();
+    }
+
+    /**
+     * Starts the application against the schema and loads its endpoints
+     */
+    private void serve(Path configPath) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+                .properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN")
+                .initializers(applicationContext -> applicationContext.addBeanFactoryPostProcessor(beanFactory ->
+                        // Points the scanned configuration bean at the load test's file
+                        ((BeanDefinitionRegistry) beanFactory).getBeanDefinition("databaseConfig")
+                                .getConstructorArgumentValues().addIndexedArgumentValue(0, configPath)))
+                .run();
+        try {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port + "/api/metadata";
+
+            // The first request crawls and caches the schema, the rest are served from the cache
+            run("GET /api/metadata (cold)", 1, 1, i -> base);
+            run("GET /api/metadata", clients, Math.max(clients, requests / 1000), i -> base);
+            run("GET /api/metadata (gzip)", clients, Math.max(clients, requests / 100), i -> base,
+                    Map.of("Accept-Encoding", "gzip"), 200);
+            run("GET /api/metadata (If-None-Match)", clients, requests, i -> base,
+                    Map.of("If-None-Match", eTag(base)), 304);
+            run("GET /api/metadata?stream=true", clients, Math.max(clients, requests / 1000), i -> base + "?stream=true");
+            run("GET /api/metadata/tables/{t}", clients, requests,
+                    i -> base + "/tables/" + SyntheticSchema.tableName(i % tableCount));
+            String firstTable = base + "/tables/" + SyntheticSchema.tableName(0);
+            run("GET /api/metadata/tables/{t} (If-None-Match)", clients, requests, i -> firstTable,
+                    Map.of("If-None-Match", eTag(firstTable)), 304);
+            run("GET /api/metadata/tables/{t}/columns/{c}", clients, requests,
+                    i -> base + "/tables/" + SyntheticSchema.tableName(i % tableCount)
+                            + "/columns/" + SyntheticSchema.columnName(i % columnsPerTable));
+            run("GET /api/metadata/models/{t}", clients, requests / 10,
+                    i -> base + "/models/" + SyntheticSchema.tableName(i % tableCount));
+            run("POST /api/metadata/refresh", 1, 3, i -> base + "/refresh");
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Sends the requests from concurrent clients, each picking its targets from its own
+     * seeded random sequence
+     */
+    private void run(String name, int clientCount, int requestCount, IntFunction<String> url) throws Exception {
+        run(name, clientCount, requestCount, url, Map.of(), 200);
+    }
+
+    private void run(String name, int clientCount, int requestCount, IntFunction<String> url,
+                     Map<String, String> headers, int expectedStatus) throws Exception {
+        Phase phase = new Phase(requestCount);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        boolean post = name.startsWith("POST");
+        ExecutorService executor = Executors.newFixedThreadPool(clientCount);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clientCount; c++) {
+                SplittableRandom random = new SplittableRandom(c);
+                futures.add(executor.submit(() -> {
+                    while (next.getAndIncrement() < requestCount) {
+                        URI uri = URI.create(url.apply(random.nextInt(Integer.MAX_VALUE)));
+                        HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(10));
+                        headers.forEach(request::header);
+                        if (post) {
+                            request.POST(HttpRequest.BodyPublishers.noBody());
+                        }
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                        phase.record(start);
+                        if (response.statusCode() != expectedStatus) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        phase.print(name);
+        if (errors.get() > 0) {
+            System.out.printf("  %d requests failed%n", errors.get());
+        }
+    }
+
+    private String eTag(String url) throws Exception {
+        HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.discarding());
+        return response.headers().firstValue("ETag")
+                .orElseThrow(() -> new IllegalStateException("No ETag from " + url));
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-46s %8s %10s %10s %10s %10s %10s%n",
+                "phase", "ops", "p50 ms", "p99 ms", "max ms", "ops/s", "heap MB");
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.remove(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * Latencies and peak heap of one phase, which starts when it is created
+     */
+    private static final class Phase {
+        private final long[] latencies;
+        private final AtomicInteger count = new AtomicInteger();
+        private final long start = System.nanoTime();
+
+        private Phase(int capacity) {
+            this.latencies = new long[capacity];
+            System.gc();
+            for (MemoryPoolMXBean pool : heapPools()) {
+                pool.resetPeakUsage();
+            }
+        }
+
+        private void record(long startNanos) {
+            latencies[count.getAndIncrement()] = System.nanoTime() - startNanos;
+        }
+
+        private void print(String name) {
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            int n = count.get();
+            long[] sorted = Arrays.copyOf(latencies, n);
+            Arrays.sort(sorted);
+            long peakHeap = 0;
+            for (MemoryPoolMXBean pool : heapPools()) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+            System.out.printf(Locale.ROOT, "%-46s %8d %10.2f %10.2f %10.2f %10.1f %10d%n",
+                    name, n, percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0),
+                    n / elapsedSeconds, peakHeap / (1024 * 1024));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        private static List<MemoryPoolMXBean> heapPools() {
+            List<MemoryPoolMXBean> pools = new ArrayList<>();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                    pools.add(pool);
+                }
+            }
+            return pools;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.dbmetagen.app.benchmark;
+
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Heap retained by a crawled snapshot before and after it is frozen. The schema is crawled
+ * from an embedded H2 database, so the strings come from the driver like in production,
+ * and the retained size is the used heap after a full collection:
+ *
+ *     java -XX:+UseSerialGC -Xmx4g -cp benchmarks/target/benchmarks.jar \
+ *         com.dbmetagen.app.benchmark.ModelFootprint --tables=3000 --columns=40
+ *
+ * A measurement to read, not a check: the numbers depend on the JVM and collector. Packed
+ * column flags are in both numbers, as they are part of the model itself.
+ */
+public final class ModelFootprint {
+
+    private static final String URL = "jdbc:h2:mem:/FOOTPRINT";
+
+    private ModelFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tables = 3000;
+        int columns = 40;
+        for (String arg : args) {
+            if (arg.startsWith("--tables=")) {
+                tables = Integer.parseInt(arg.substring("--tables=".length()));
+            } else if (arg.startsWith("--columns=")) {
+                columns = Integer.parseInt(arg.substring("--columns=".length()));
+            } else {
+                throw new IllegalArgumentException("Expected --tables=n or --columns=n, got " + arg);
+            }
+        }
+
+        try (Connection keepAlive = DriverManager.getConnection(URL, "sa", "")) {
+            SyntheticSchema.create(keepAlive, tables, columns);
+            Map<String, Object> settings = new HashMap<>();
+            settings.put("persistSnapshots", false);
+            DatabaseConfig databaseConfig = BenchmarkConfig.create(URL, settings);
+            JdbcDatabaseMetadataRepository repository = new JdbcDatabaseMetadataRepository(databaseConfig, new SimpleMeterRegistry());
+            // Opens the pool and fills the driver's caches, which would otherwise be counted
+            repository.extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+
+            long base = retainedHeap();
+            DatabaseMetadata crawled = repository.extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+            crawled.buildIndexes();
+            long crawledBytes = retainedHeap() - base;
+            Reference.reachabilityFence(crawled);
+            crawled = null;
+
+            base = retainedHeap();
+            DatabaseMetadata frozen = repository.extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+            frozen.freeze();
+            long frozenBytes = retainedHeap() - base;
+            Reference.reachabilityFence(frozen);
+
+            System.out.printf("Schema: %d tables, %d columns per table%n", tables, columns);
+            System.out.printf(Locale.ROOT, "%-10s %12.1f MB%n", "crawled", crawledBytes / 1048576.0);
+            System.out.printf(Locale.ROOT, "%-10s %12.1f MB  (%.1f%% less)%n", "frozen", frozenBytes / 1048576.0,
+                    100.0 * (crawledBytes - frozenBytes) / crawledBytes);
+            databaseConfig.closeConnectionPool();
+        }
+    }
+
+    private static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,147 @@
+package com.dbmetagen.app.benchmark;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.ForeignKeyMetadata;
+import com.dbmetagen.app.model.IndexMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Deterministic synthetic schemas for the benchmarks, either as an in-memory
+ * {@link DatabaseMetadata} snapshot or as DDL executed against an embedded database
+ */
+public final class SyntheticSchema {
+
+    /** Column types in the shape the MySQL driver reports them, cycled through per column */
+    private static final String[] TYPE_NAMES = {
+            "INT", "VARCHAR", "DATETIME", "DECIMAL", "BIGINT UNSIGNED", "BIT", "TEXT", "TIMESTAMP", "DOUBLE", "BLOB"
+    };
+
+    /** Their {@link Types} codes */
+    private static final int[] SQL_TYPES = {
+            Types.INTEGER, Types.VARCHAR, Types.TIMESTAMP, Types.DECIMAL, Types.BIGINT, Types.BIT,
+            Types.LONGVARCHAR, Types.TIMESTAMP, Types.DOUBLE, Types.LONGVARBINARY
+    };
+
+    /** The same types as DDL accepted by H2 in MySQL mode */
+    private static final String[] DDL_TYPES = {
+            "INT", "VARCHAR(255)", "DATETIME", "DECIMAL(12,2)", "BIGINT", "BIT", "TEXT", "TIMESTAMP", "DOUBLE", "BLOB"
+    };
+
+    private SyntheticSchema() {
+    }
+
+    public static String tableName(int table) {
+        return "bench_table_" + table + "_records";
+    }
+
+    public static String columnName(int column) {
+        return column == 0 ? "id" : "field_" + column + "_value";
+    }
+
+    /**
+     * Builds a snapshot where every table has an id primary key, a foreign key to the
+     * previous table and an index on its first data column
+     */
+    public static DatabaseMetadata metadata(int tableCount, int columnsPerTable) {
+        List<TableMetadata> tables = new ArrayList<>(tableCount);
+
+        for (int t = 0; t < tableCount; t++) {
+            TableMetadata table = new TableMetadata();
+            table.setTableName(tableName(t));
+            table.setPrimaryKey(columnName(0));
+
+            List<ColumnMetadata> columns = new ArrayList<>(columnsPerTable);
+            for (int c = 0; c < columnsPerTable; c++) {
+                ColumnMetadata column = new ColumnMetadata();
+                column.setColumnName(columnName(c));
+                int type = c == 0 ? 0 : c % TYPE_NAMES.length;
+                column.setDataType(TYPE_NAMES[type]);
+                column.setSqlType(SQL_TYPES[type]);
+                column.setUnsigned(TYPE_NAMES[type].endsWith(" UNSIGNED"));
+                column.setSize(c == 0 ? 10 : 255);
+                column.setNullable(c != 0);
+                column.setPrimaryKey(c == 0);
+                column.setAutoIncrement(c == 0);
+                columns.add(column);
+            }
+            table.setColumns(columns);
+
+            List<ForeignKeyMetadata> foreignKeys = new ArrayList<>();
+            if (t > 0) {
+                ForeignKeyMetadata fk = new ForeignKeyMetadata();
+                fk.setConstraintName("fk_" + t);
+                fk.setColumnName(columnName(1));
+                fk.setReferenceTableName(tableName(t - 1));
+                fk.setReferenceColumnName(columnName(0));
+                foreignKeys.add(fk);
+            }
+            table.setForeignKeys(foreignKeys);
+
+            IndexMetadata index = new IndexMetadata();
+            index.setIndexName("idx_" + t);
+            index.setUnique(false);
+            index.setColumnNames(new ArrayList<>(Collections.singletonList(columnName(1))));
+            table.setIndexes(new ArrayList<>(Collections.singletonList(index)));
+
+            tables.add(table);
+        }
+
+        DatabaseMetadata metadata = new DatabaseMetadata();
+        metadata.setDatabaseName("bench");
+        metadata.setTables(tables);
+        return metadata;
+    }
+
+    /**
+     * Creates the same shape of schema in a database, with real foreign keys and indexes
+     */
+    public static void create(Connection connection, int tableCount, int columnsPerTable) throws SQLException {
+        create(connection, tableCount, columnsPerTable, 1, 1);
+    }
+
+    /**
+     * Creates a schema with denser relationships: columns 1 to {@code foreignKeysPerTable}
+     * reference the ids of the preceding tables, and each of the following
+     * {@code indexesPerTable} columns has an index of its own
+     */
+    public static void create(Connection connection, int tableCount, int columnsPerTable,
+                              int foreignKeysPerTable, int indexesPerTable) throws SQLException {
+        if (columnsPerTable <= foreignKeysPerTable + indexesPerTable) {
+            throw new IllegalArgumentException("Need more than " + (foreignKeysPerTable + indexesPerTable)
+                    + " columns per table for the foreign keys and indexes, got " + columnsPerTable);
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (int t = 0; t < tableCount; t++) {
+                StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(tableName(t)).append(" (");
+                for (int c = 0; c < columnsPerTable; c++) {
+                    if (c > 0) {
+                        ddl.append(", ");
+                    }
+                    ddl.append(columnName(c)).append(' ');
+                    // Foreign key columns have to match the referenced id
+                    ddl.append(c == 0 ? "INT AUTO_INCREMENT PRIMARY KEY" : c <= foreignKeysPerTable ? "INT" : DDL_TYPES[c % DDL_TYPES.length]);
+                }
+                for (int k = 1; k <= foreignKeysPerTable && k <= t; k++) {
+                    ddl.append(", CONSTRAINT fk_").append(t).append(k == 1 ? "" : "_" + k)
+                            .append(" FOREIGN KEY (").append(columnName(k)).append(") REFERENCES ")
+                            .append(tableName(t - k)).append(" (").append(columnName(0)).append(')');
+                }
+                ddl.append(')');
+                statement.execute(ddl.toString());
+                for (int i = 0; i < indexesPerTable; i++) {
+                    statement.execute("CREATE INDEX idx_" + t + (i == 0 ? "" : "_" + i) + " ON " + tableName(t)
+                            + " (" + columnName(foreignKeysPerTable + 1 + i) + ")");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.dbmetagen.app.controller;
+
+import com.dbmetagen.app.benchmark.BenchmarkConfig;
+import com.dbmetagen.app.benchmark.FixedMetadataRepository;
+import com.dbmetagen.app.benchmark.SyntheticSchema;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.ForeignKeyMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.service.ModelGeneratorService;
+import com.dbmetagen.app.service.ModelGeneratorServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the metadata endpoints do per request: look a table or its dependents up by name,
+ * and serialize the snapshot, either as one bean, streamed table by table, as a projected
+ * page, or from the cached gzip body.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MetadataAccessBenchmark {
+
+    private static final int COLUMNS_PER_TABLE = 20;
+
+    @Param({"10", "1000", "10000"})
+    private int tables;
+
+    private DatabaseMetadata metadata;
+    private ObjectMapper objectMapper;
+    private MetadataJsonStreamer streamer;
+    private CompressedMetadataCache compressedCache;
+    /** Looked up in upper case, as clients often send it, to exercise case folding */
+    private String lookupName;
+    private Set<TableField> nameOnly;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Cached by the service, which also keeps the compressed body with it
+        ModelGeneratorService service = new ModelGeneratorServiceImpl(
+                new FixedMetadataRepository(SyntheticSchema.metadata(tables, COLUMNS_PER_TABLE)),
+                BenchmarkConfig.create("jdbc:h2:mem:unused", Collections.emptyMap()), new SimpleMeterRegistry());
+        metadata = service.getDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+        objectMapper = new ObjectMapper();
+        streamer = new MetadataJsonStreamer(objectMapper);
+        compressedCache = new CompressedMetadataCache(objectMapper, service);
+        lookupName = SyntheticSchema.tableName(tables - 1).toUpperCase(Locale.ROOT);
+        nameOnly = TableField.parse("tableName");
+    }
+
+    @Benchmark
+    public TableMetadata findTableIndexed() {
+        return metadata.findTable(lookupName);
+    }
+
+    /** The linear scan the endpoints used before the name index */
+    @Benchmark
+    public TableMetadata findTableScan() {
+        return metadata.getTables().stream()
+                .filter(table -> table.getTableName().equalsIgnoreCase(lookupName))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Benchmark
+    public List<String> findDependentsGraph() {
+        return metadata.relationships().dependents(SyntheticSchema.tableName(0));
+    }
+
+    /** The scan of every table's foreign keys the relationship graph replaces */
+    @Benchmark
+    public List<String> findDependentsScan() {
+        String referenced = SyntheticSchema.tableName(0);
+        List<String> dependents = new ArrayList<>();
+        for (TableMetadata table : metadata.getTables()) {
+            for (ForeignKeyMetadata fk : table.getForeignKeys()) {
+                if (fk.getReferenceTableName().equalsIgnoreCase(referenced)) {
+                    dependents.add(table.getTableName());
+                    break;
+                }
+            }
+        }
+        return dependents;
+    }
+
+    /** A sidebar page of names, the last one of the schema */
+    @Benchmark
+    public void serializeNamePage() throws IOException {
+        List<TableMetadata> page = metadata.findTables(null, SyntheticSchema.tableName(tables - 2), 50);
+        streamer.streamTables(page, nameOnly, null).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void serializeBean() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), metadata);
+    }
+
+    @Benchmark
+    public void serializeStreaming() throws IOException {
+        streamer.streamDatabaseMetadata(metadata).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+
+    /** Compressed on the first invocation only, like the first download of a snapshot */
+    @Benchmark
+    public void serveCachedGzip() throws IOException {
+        compressedCache.respond(DatabaseConfig.DEFAULT_DATASOURCE, metadata, "gzip").getBody().writeTo(OutputStream.nullOutputStream());
+    }
+
+    /** The cached body inflated for a client that does not accept gzip */
+    @Benchmark
+    public void serveCachedIdentity() throws IOException {
+        compressedCache.respond(DatabaseConfig.DEFAULT_DATASOURCE, metadata, null).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,76 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.benchmark.BenchmarkConfig;
+import com.dbmetagen.app.benchmark.SyntheticSchema;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full JDBC crawl of a synthetic schema in an in-memory H2 database, sequential and with
+ * parallel workers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CrawlerBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:/BENCH";
+    private static final int COLUMNS_PER_TABLE = 20;
+
+    @Param({"10", "1000"})
+    private int tables;
+
+    @Param({"1", "4"})
+    private int crawlConcurrency;
+
+    /** Keeps the in-memory database alive between crawls */
+    private Connection keepAlive;
+    private DatabaseConfig databaseConfig;
+    private JdbcDatabaseMetadataRepository repository;
+
+    @Setup
+    public void setUp() throws Exception {
+        keepAlive = DriverManager.getConnection(URL, "sa", "");
+        SyntheticSchema.create(keepAlive, tables, COLUMNS_PER_TABLE);
+
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("crawlMode", DatabaseConfig.CRAWL_MODE_JDBC);
+        settings.put("crawlConcurrency", crawlConcurrency);
+        databaseConfig = BenchmarkConfig.create(URL, settings);
+        repository = new JdbcDatabaseMetadataRepository(databaseConfig, new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        databaseConfig.closeConnectionPool();
+        keepAlive.createStatement().execute("DROP ALL OBJECTS");
+        keepAlive.close();
+    }
+
+    @Benchmark
+    public DatabaseMetadata extractDatabaseMetadata() {
+        return repository.extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.benchmark.BenchmarkConfig;
+import com.dbmetagen.app.benchmark.FixedMetadataRepository;
+import com.dbmetagen.app.benchmark.SyntheticSchema;
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Code generation hot paths over a synthetic schema: rendering model classes, converting
+ * names and mapping column types. Each operation covers the whole schema.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CodeGeneratorBenchmark {
+
+    private static final int COLUMNS_PER_TABLE = 20;
+
+    @Param({"10", "1000", "50000"})
+    private int tables;
+
+    private ModelGeneratorServiceImpl service;
+    private List<TableMetadata> tableList;
+
+    @Setup
+    public void setUp() throws Exception {
+        DatabaseMetadata metadata = SyntheticSchema.metadata(tables, COLUMNS_PER_TABLE);
+        tableList = metadata.getTables();
+        service = new ModelGeneratorServiceImpl(new FixedMetadataRepository(metadata),
+                BenchmarkConfig.create("jdbc:h2:mem:unused", Collections.emptyMap()), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void generateModelClasses(Blackhole blackhole) {
+        for (TableMetadata table : tableList) {
+            blackhole.consume(service.generateModelClass(table));
+        }
+    }
+
+    @Benchmark
+    public void toClassName(Blackhole blackhole) {
+        for (TableMetadata table : tableList) {
+            blackhole.consume(NameConverter.toClassName(table.getTableName()));
+        }
+    }
+
+    @Benchmark
+    public void toCamelCase(Blackhole blackhole) {
+        for (TableMetadata table : tableList) {
+            for (ColumnMetadata column : table.getColumns()) {
+                blackhole.consume(NameConverter.toCamelCase(column.getColumnName()));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getJavaType(Blackhole blackhole) {
+        for (TableMetadata table : tableList) {
+            for (ColumnMetadata column : table.getColumns()) {
+                blackhole.consume(JavaTypeMapper.DEFAULT.getJavaType(column));
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.benchmark.SyntheticSchema;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of persisted metadata snapshots, which bounds how fast a
+ * restarted instance can serve its first request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class SnapshotCodecBenchmark {
+
+    private static final int COLUMNS_PER_TABLE = 20;
+    private static final String URL = "jdbc:mysql://localhost:3306/bench";
+
+    @Param({"10", "1000", "50000"})
+    private int tables;
+
+    private MetadataSnapshot snapshot;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        DatabaseMetadata metadata = SyntheticSchema.metadata(tables, COLUMNS_PER_TABLE);
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (TableMetadata table : metadata.getTables()) {
+            fingerprints.put(table.getTableName(), "20:" + table.getTableName().hashCode());
+        }
+        snapshot = new MetadataSnapshot(metadata, fingerprints, System.currentTimeMillis(), false, new RefreshResult());
+        encoded = MetadataSnapshotCodec.encode(snapshot, URL);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return MetadataSnapshotCodec.encode(snapshot, URL);
+    }
+
+    @Benchmark
+    public MetadataSnapshot decode() throws IOException {
+        return MetadataSnapshotCodec.decode(ByteBuffer.wrap(encoded), URL);
+    }
+}
@@ -0,0 +1,14 @@
+package com.dbmetagen.app.config;
+
+/**
+ * Notified by {@link DatabaseConfig} after a reload published a configuration that differs
+ * from the previous one, so it can drop only the state the changed settings affect
+ */
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+    /**
+     * Called on the reloading thread once the connection pools have been updated
+     */
+    void configurationChanged(ConfigSnapshot previous, ConfigSnapshot current);
+}
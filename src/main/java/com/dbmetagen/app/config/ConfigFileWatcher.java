@@ -0,0 +1,106 @@
+package com.dbmetagen.app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the configuration when its file is edited, so changes apply without a POST to
+ * {@code /api/config/update}.
+ *
+ * Editors often write a file in several steps, so a reload waits until the file has been
+ * quiet for a moment. A file that does not validate is logged and ignored, leaving the
+ * current configuration in effect until the next edit. Edits are ignored while
+ * {@code watchConfigFile} is false.
+ */
+@Component
+public class ConfigFileWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigFileWatcher.class);
+
+    private static final long QUIET_PERIOD_MS = 200;
+
+    private final DatabaseConfig databaseConfig;
+    private WatchService watchService;
+
+    @Autowired
+    public ConfigFileWatcher(DatabaseConfig databaseConfig) {
+        this.databaseConfig = databaseConfig;
+    }
+
+    @PostConstruct
+    public void start() {
+        Path directory = databaseConfig.getConfigPath().getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.warn("Cannot watch configuration directory " + directory + ", edits need a reload through the API", e);
+            return;
+        }
+        Thread thread = new Thread(this::watch, "config-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watch() {
+        Path fileName = databaseConfig.getConfigPath().getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = pollChanged(key, fileName);
+                // Let the rest of the edit land before reading the file
+                while ((key = watchService.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= pollChanged(key, fileName);
+                }
+                if (changed && databaseConfig.snapshot().isWatchConfigFile()) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * @return whether the key's events touched the configuration file or may have been lost
+     */
+    private static boolean pollChanged(WatchKey key, Path fileName) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            databaseConfig.reloadConfiguration();
+        } catch (RuntimeException e) {
+            log.warn("Ignoring invalid edit of configuration file " + databaseConfig.getConfigPath()
+                    + ", the previous configuration stays in effect", e);
+        }
+    }
+}
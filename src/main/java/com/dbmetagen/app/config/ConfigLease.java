@@ -0,0 +1,32 @@
+package com.dbmetagen.app.config;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The configuration a piece of work started with. While the lease is open, the connection
+ * pools built from it stay open through any number of reloads; closing it lets them retire.
+ *
+ * @see DatabaseConfig#leaseSnapshot()
+ */
+public final class ConfigLease implements AutoCloseable {
+
+    private final ConnectionPool connectionPool;
+    private final ConfigSnapshot config;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ConfigLease(ConnectionPool connectionPool, ConfigSnapshot config) {
+        this.connectionPool = connectionPool;
+        this.config = config;
+    }
+
+    public ConfigSnapshot getConfig() {
+        return config;
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            connectionPool.release(config);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.dbmetagen.app.config;
+
+import lombok.ToString;
+import lombok.Value;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One immutable, fully validated version of the configuration file. {@link DatabaseConfig}
+ * publishes a new instance on every reload, so a reader that takes one snapshot sees the
+ * settings of a single version and never a mix of old and new values.
+ */
+@Value
+public class ConfigSnapshot {
+    String url;
+    String username;
+    @ToString.Exclude
+    String password;
+    String modelPackage;
+    String outputDirectory;
+    /** Every datasource by id, starting with the default one built from the top-level settings */
+    Map<String, DataSourceSettings> dataSources;
+    String crawlMode;
+    int crawlConcurrency;
+    long slowTableThresholdMs;
+    long crawlTimeoutSeconds;
+    long queryTimeoutSeconds;
+    long partialRetrySeconds;
+    long cacheTtlSeconds;
+    boolean persistSnapshots;
+    long cacheMemoryBudgetMb;
+    int maxConcurrentCrawls;
+    int generationThreads;
+    int generationJobThreads;
+    long generationJobRetentionSeconds;
+    String modelTemplate;
+    /** Java types by database product name, then by column type name, both ignoring case */
+    Map<String, Map<String, String>> typeOverrides;
+    boolean watchConfigFile;
+    int poolMaxSize;
+    int poolMinIdle;
+    long poolIdleTimeoutMs;
+    long poolMaxLifetimeMs;
+    long poolConnectionTimeoutMs;
+    long poolValidationTimeoutMs;
+
+    /**
+     * @param content the JSON content of the configuration file
+     * @throws RuntimeException if the content is not valid JSON or a setting is missing or invalid
+     */
+    static ConfigSnapshot parse(String content) {
+        try {
+            return new ConfigSnapshot(new JSONObject(content));
+        } catch (JSONException e) {
+            throw new RuntimeException("Invalid JSON format in configuration file", e);
+        }
+    }
+
+    private ConfigSnapshot(JSONObject jsonObject) {
+        // Validate required fields
+        String[] requiredFields = {"url", "username", "password", "modelPackage", "outputDirectory"};
+        for (String field : requiredFields) {
+            if (!jsonObject.has(field)) {
+                throw new RuntimeException("Missing required field in configuration: " + field);
+            }
+        }
+
+        this.url = jsonObject.getString("url");
+        this.username = jsonObject.getString("username");
+        this.password = jsonObject.getString("password");
+        this.modelPackage = jsonObject.getString("modelPackage");
+        this.outputDirectory = jsonObject.getString("outputDirectory");
+        this.dataSources = readDataSources(jsonObject);
+
+        // Optional settings
+        this.crawlMode = jsonObject.optString("crawlMode", DatabaseConfig.CRAWL_MODE_JDBC);
+        if (!DatabaseConfig.CRAWL_MODE_JDBC.equals(crawlMode) && !DatabaseConfig.CRAWL_MODE_BULK.equals(crawlMode)) {
+            throw new RuntimeException("Invalid crawlMode in configuration: " + crawlMode);
+        }
+        this.crawlConcurrency = jsonObject.optInt("crawlConcurrency", 1);
+        if (crawlConcurrency < 1) {
+            throw new RuntimeException("crawlConcurrency must be at least 1: " + crawlConcurrency);
+        }
+        this.slowTableThresholdMs = jsonObject.optLong("slowTableThresholdMs", 1000);
+        if (slowTableThresholdMs < 0) {
+            throw new RuntimeException("slowTableThresholdMs must not be negative: " + slowTableThresholdMs);
+        }
+        this.crawlTimeoutSeconds = jsonObject.optLong("crawlTimeoutSeconds", 0);
+        if (crawlTimeoutSeconds < 0) {
+            throw new RuntimeException("crawlTimeoutSeconds must not be negative: " + crawlTimeoutSeconds);
+        }
+        this.queryTimeoutSeconds = jsonObject.optLong("queryTimeoutSeconds", 0);
+        if (queryTimeoutSeconds < 0) {
+            throw new RuntimeException("queryTimeoutSeconds must not be negative: " + queryTimeoutSeconds);
+        }
+        this.partialRetrySeconds = jsonObject.optLong("partialRetrySeconds", 30);
+        if (partialRetrySeconds < 0) {
+            throw new RuntimeException("partialRetrySeconds must not be negative: " + partialRetrySeconds);
+        }
+        this.cacheTtlSeconds = jsonObject.optLong("cacheTtlSeconds", 0);
+        if (cacheTtlSeconds < 0) {
+            throw new RuntimeException("cacheTtlSeconds must not be negative: " + cacheTtlSeconds);
+        }
+        this.persistSnapshots = jsonObject.optBoolean("persistSnapshots", true);
+        this.cacheMemoryBudgetMb = jsonObject.optLong("cacheMemoryBudgetMb", 512);
+        if (cacheMemoryBudgetMb < 0) {
+            throw new RuntimeException("cacheMemoryBudgetMb must not be negative: " + cacheMemoryBudgetMb);
+        }
+        this.maxConcurrentCrawls = jsonObject.optInt("maxConcurrentCrawls", 4);
+        if (maxConcurrentCrawls < 1) {
+            throw new RuntimeException("maxConcurrentCrawls must be at least 1: " + maxConcurrentCrawls);
+        }
+        this.generationThreads = jsonObject.optInt("generationThreads", Runtime.getRuntime().availableProcessors());
+        if (generationThreads < 1) {
+            throw new RuntimeException("generationThreads must be at least 1: " + generationThreads);
+        }
+        this.generationJobThreads = jsonObject.optInt("generationJobThreads", 2);
+        if (generationJobThreads < 1) {
+            throw new RuntimeException("generationJobThreads must be at least 1: " + generationJobThreads);
+        }
+        this.generationJobRetentionSeconds = jsonObject.optLong("generationJobRetentionSeconds", 600);
+        if (generationJobRetentionSeconds < 0) {
+            throw new RuntimeException("generationJobRetentionSeconds must not be negative: " + generationJobRetentionSeconds);
+        }
+        this.modelTemplate = jsonObject.optString("modelTemplate", null);
+        this.typeOverrides = readTypeOverrides(jsonObject.optJSONObject("typeOverrides"));
+        this.watchConfigFile = jsonObject.optBoolean("watchConfigFile", true);
+
+        // Connection pool settings
+        this.poolMaxSize = jsonObject.optInt("poolMaxSize", 10);
+        this.poolMinIdle = jsonObject.optInt("poolMinIdle", 1);
+        this.poolIdleTimeoutMs = jsonObject.optLong("poolIdleTimeoutMs", 600000);
+        this.poolMaxLifetimeMs = jsonObject.optLong("poolMaxLifetimeMs", 1800000);
+        this.poolConnectionTimeoutMs = jsonObject.optLong("poolConnectionTimeoutMs", 30000);
+        this.poolValidationTimeoutMs = jsonObject.optLong("poolValidationTimeoutMs", 5000);
+        if (poolMaxSize < 1 || poolMinIdle < 0 || poolMinIdle > poolMaxSize) {
+            throw new RuntimeException("Invalid pool sizing in configuration: poolMaxSize="
+                    + poolMaxSize + ", poolMinIdle=" + poolMinIdle);
+        }
+    }
+
+    /**
+     * Reads the default datasource from the top-level settings and the named ones from "datasources"
+     */
+    private static Map<String, DataSourceSettings> readDataSources(JSONObject jsonObject) {
+        Map<String, DataSourceSettings> result = new LinkedHashMap<>();
+        result.put(DatabaseConfig.DEFAULT_DATASOURCE, new DataSourceSettings(DatabaseConfig.DEFAULT_DATASOURCE,
+                jsonObject.getString("url"), jsonObject.getString("username"), jsonObject.getString("password")));
+
+        JSONObject json = jsonObject.optJSONObject("datasources");
+        if (json != null) {
+            for (String id : json.keySet()) {
+                if (result.containsKey(id)) {
+                    throw new RuntimeException("Duplicate datasource id in configuration: " + id);
+                }
+                JSONObject dataSource = json.getJSONObject(id);
+                for (String field : new String[]{"url", "username", "password"}) {
+                    if (!dataSource.has(field)) {
+                        throw new RuntimeException("Missing required field in datasource " + id + ": " + field);
+                    }
+                }
+                result.put(id, new DataSourceSettings(id,
+                        dataSource.getString("url"), dataSource.getString("username"), dataSource.getString("password")));
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static Map<String, Map<String, String>> readTypeOverrides(JSONObject json) {
+        if (json == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Map<String, String>> overrides = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String productName : json.keySet()) {
+            JSONObject types = json.getJSONObject(productName);
+            Map<String, String> javaTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (String typeName : types.keySet()) {
+                javaTypes.put(typeName, types.getString(typeName));
+            }
+            overrides.put(productName, Collections.unmodifiableMap(javaTypes));
+        }
+        return Collections.unmodifiableMap(overrides);
+    }
+
+    /**
+     * @return the Java type overrides for a database product, empty if there are none
+     */
+    public Map<String, String> getTypeOverrides(String databaseProductName) {
+        if (databaseProductName == null) {
+            return Collections.emptyMap();
+        }
+        return typeOverrides.getOrDefault(databaseProductName, Collections.emptyMap());
+    }
+
+    /**
+     * @return true if metadata should be extracted with bulk catalog queries where the database supports them
+     */
+    public boolean isBulkCrawl() {
+        return DatabaseConfig.CRAWL_MODE_BULK.equals(crawlMode);
+    }
+
+    /**
+     * @return the directory the models of a datasource are generated in, which is not created here
+     */
+    public Path getPackageDirectory(String dataSourceId) {
+        return Paths.get(outputDirectory, dataSourceId, modelPackage.replace('.', '/'));
+    }
+
+    /**
+     * @return true if a datasource with this id is configured
+     */
+    public boolean hasDataSource(String dataSourceId) {
+        return dataSources.containsKey(dataSourceId);
+    }
+
+    /**
+     * @return the settings of the datasource with the given id
+     * @throws IllegalArgumentException if there is no such datasource
+     */
+    public DataSourceSettings getDataSource(String dataSourceId) {
+        DataSourceSettings dataSource = dataSources.get(dataSourceId);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown datasource: " + dataSourceId);
+        }
+        return dataSource;
+    }
+}
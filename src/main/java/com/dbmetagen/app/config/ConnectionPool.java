@@ -0,0 +1,184 @@
+package com.dbmetagen.app.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pools of validated connections owned by {@link DatabaseConfig}, one per datasource.
+ *
+ * Every published {@link ConfigSnapshot} is tied to the pools built from its settings. A
+ * reload keeps the pools whose settings did not change and builds new ones for the rest, so
+ * new borrowers get connections from the new pools straight away. The previous snapshot stays
+ * registered while it is leased: a crawl leases the snapshot it starts with and keeps
+ * borrowing from that snapshot's pools until it finishes, even across several reloads. A pool
+ * no registered snapshot uses any more is retired in the background and only closed once
+ * every connection borrowed from it has been returned, so crawls that are already running
+ * are not interrupted. Pools of removed datasources are retired the same way.
+ */
+class ConnectionPool {
+
+    private static final long RETIRE_CHECK_INTERVAL_MS = 1000;
+
+    /** Snapshots that are current or leased, by identity */
+    private final Map<ConfigSnapshot, Generation> generations = new IdentityHashMap<>();
+    private Generation current;
+    /** Pools no snapshot uses that still have connections borrowed */
+    private final Set<Pool> retiring = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService retirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "connection-pool-retirer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Makes the snapshot the current one. Pools of the previous snapshot with the same
+     * settings are shared, the others are built here, before the snapshot is handed out.
+     * @param poolConfigs the pool settings of every datasource of the snapshot, by id
+     */
+    synchronized void publish(ConfigSnapshot snapshot, Map<String, HikariConfig> poolConfigs) {
+        Generation previous = current;
+        Map<String, Pool> pools = new HashMap<>();
+        for (Map.Entry<String, HikariConfig> entry : poolConfigs.entrySet()) {
+            Pool pool = previous != null ? previous.pools.get(entry.getKey()) : null;
+            if (pool == null || !sameSettings(pool.config, entry.getValue())) {
+                pool = new Pool(entry.getValue(), new HikariDataSource(entry.getValue()));
+            }
+            pool.users++;
+            pools.put(entry.getKey(), pool);
+        }
+
+        current = new Generation(snapshot, pools);
+        generations.put(snapshot, current);
+        if (previous != null) {
+            releaseIfUnused(previous);
+        }
+    }
+
+    /**
+     * Keeps the pools of the current snapshot open until {@link #release} is called for it
+     * @return the current snapshot
+     */
+    synchronized ConfigSnapshot lease() {
+        current.leases++;
+        return current.snapshot;
+    }
+
+    synchronized void release(ConfigSnapshot snapshot) {
+        Generation generation = generations.get(snapshot);
+        if (generation != null && generation.leases > 0) {
+            generation.leases--;
+            releaseIfUnused(generation);
+        }
+    }
+
+    /**
+     * Borrows a connection from the datasource's pool of the given snapshot, which is open
+     * while the snapshot is current or leased
+     * @throws SQLException if the snapshot is neither, or its pool has no connection to give
+     */
+    Connection getConnection(ConfigSnapshot snapshot, String dataSourceId) throws SQLException {
+        Pool pool;
+        synchronized (this) {
+            Generation generation = generations.get(snapshot);
+            if (generation == null) {
+                throw new SQLException("The configuration changed and the connection pools built from the previous one are closed");
+            }
+            pool = generation.pools.get(dataSourceId);
+        }
+        if (pool == null) {
+            throw new SQLException("No connection pool is configured for datasource: " + dataSourceId);
+        }
+        return pool.dataSource.getConnection();
+    }
+
+    synchronized void close() {
+        for (Generation generation : generations.values()) {
+            for (Pool pool : generation.pools.values()) {
+                pool.dataSource.close();
+            }
+        }
+        generations.clear();
+        for (Pool pool : retiring) {
+            pool.dataSource.close();
+        }
+        retiring.clear();
+        retirer.shutdownNow();
+    }
+
+    private void releaseIfUnused(Generation generation) {
+        if (generation == current || generation.leases > 0) {
+            return;
+        }
+        generations.remove(generation.snapshot);
+        for (Pool pool : generation.pools.values()) {
+            if (--pool.users == 0) {
+                retire(pool);
+            }
+        }
+    }
+
+    private void retire(Pool pool) {
+        retiring.add(pool);
+        // Idle connections go right away, borrowed ones are evicted when they are returned
+        pool.dataSource.getHikariPoolMXBean().softEvictConnections();
+        retirer.schedule(() -> closeWhenIdle(pool), RETIRE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeWhenIdle(Pool pool) {
+        if (pool.dataSource.getHikariPoolMXBean().getActiveConnections() > 0) {
+            retirer.schedule(() -> closeWhenIdle(pool), RETIRE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        } else {
+            retiring.remove(pool);
+            pool.dataSource.close();
+        }
+    }
+
+    private static boolean sameSettings(HikariConfig a, HikariConfig b) {
+        return Objects.equals(a.getPoolName(), b.getPoolName())
+                && Objects.equals(a.getJdbcUrl(), b.getJdbcUrl())
+                && Objects.equals(a.getUsername(), b.getUsername())
+                && Objects.equals(a.getPassword(), b.getPassword())
+                && a.getMaximumPoolSize() == b.getMaximumPoolSize()
+                && a.getMinimumIdle() == b.getMinimumIdle()
+                && a.getIdleTimeout() == b.getIdleTimeout()
+                && a.getMaxLifetime() == b.getMaxLifetime()
+                && a.getConnectionTimeout() == b.getConnectionTimeout()
+                && a.getValidationTimeout() == b.getValidationTimeout();
+    }
+
+    /** The pools of one snapshot; guarded by the {@link ConnectionPool} */
+    private static final class Generation {
+        private final ConfigSnapshot snapshot;
+        private final Map<String, Pool> pools;
+        private int leases;
+
+        private Generation(ConfigSnapshot snapshot, Map<String, Pool> pools) {
+            this.snapshot = snapshot;
+            this.pools = pools;
+        }
+    }
+
+    /** One pool and the number of registered snapshots using it; guarded by the {@link ConnectionPool} */
+    private static final class Pool {
+        private final HikariConfig config;
+        private final HikariDataSource dataSource;
+        private int users;
+
+        private Pool(HikariConfig config, HikariDataSource dataSource) {
+            this.config = config;
+            this.dataSource = dataSource;
+        }
+    }
+}
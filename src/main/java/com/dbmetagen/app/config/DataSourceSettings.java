@@ -0,0 +1,35 @@
+package com.dbmetagen.app.config;
+
+import lombok.ToString;
+import lombok.Value;
+
+/**
+ * Connection settings of one named datasource
+ */
+@Value
+public class DataSourceSettings {
+    String id;
+    String url;
+    String username;
+    @ToString.Exclude
+    String password;
+
+    /**
+     * @return the database name, taken from the last path segment of the URL without its
+     *         parameters, e.g. {@code shop} from {@code jdbc:mysql://host/shop?useSSL=false}
+     *         or {@code test} from {@code jdbc:h2:mem:test;MODE=MySQL}
+     */
+    public String getDatabaseName() {
+        String path = url;
+        int parameters = path.indexOf('?');
+        if (parameters >= 0) {
+            path = path.substring(0, parameters);
+        }
+        parameters = path.indexOf(';');
+        if (parameters >= 0) {
+            path = path.substring(0, parameters);
+        }
+        int slash = path.lastIndexOf('/');
+        return path.substring(slash >= 0 ? slash + 1 : path.lastIndexOf(':') + 1);
+    }
+}
@@ -1,80 +1,230 @@
 package com.dbmetagen.app.config;
 
-import lombok.Data;
-import org.json.JSONException;
-import org.json.JSONObject;
+import com.zaxxer.hikari.HikariConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * The configuration loaded from {@code db-config.json} and the connection pools built from it.
+ *
+ * Each load parses and validates the whole file into an immutable {@link ConfigSnapshot} that
+ * is published through an atomic reference, so readers never block and a reader that holds
+ * one snapshot never combines settings of two versions. A reload that fails validation keeps
+ * the current snapshot. After a reload that changed anything the registered
+ * {@link ConfigChangeListener}s are told what the previous and the new snapshot were.
+ */
 @Component
-@Data
 public class DatabaseConfig {
-    private String url;
-    private String username;
-    private String password;
-    private String modelPackage;
-    private String outputDirectory;
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseConfig.class);
+
+    private final ConnectionPool connectionPool = new ConnectionPool();
+    private final AtomicReference<ConfigSnapshot> snapshot = new AtomicReference<>();
+    private final List<ConfigChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Path configPath;
     
     private static final String CONFIG_PATH = "src/main/resources/db-config.json";
+    
+    /** Crawl mode issuing per-table {@code DatabaseMetaData} calls (the default) */
+    public static final String CRAWL_MODE_JDBC = "jdbc";
+    
+    /** Crawl mode reading the whole schema from the vendor's catalog views in a few set-based queries */
+    public static final String CRAWL_MODE_BULK = "bulk";
+    
+    /** Id of the datasource configured by the top-level url, username and password */
+    public static final String DEFAULT_DATASOURCE = "default";
 
     public DatabaseConfig() {
-        loadConfiguration();
+        this(Paths.get(CONFIG_PATH));
     }
     
-    public void reloadConfiguration() {
-        loadConfiguration();
+    /**
+     * Loads the configuration from the given file, which the application takes from the
+     * {@code dbmetagen.config-path} property. A relative path is resolved against the working
+     * directory once, here.
+     */
+    @Autowired
+    public DatabaseConfig(@Value("${dbmetagen.config-path:" + CONFIG_PATH + "}") Path configPath) {
+        this.configPath = configPath.toAbsolutePath().normalize();
+        ConfigSnapshot loaded = readConfiguration();
+        publish(loaded);
     }
     
-    private void loadConfiguration() {
-        try {
-            Path configPath = Paths.get(CONFIG_PATH);
-            
-            if (!Files.exists(configPath)) {
-                throw new RuntimeException("Configuration file not found: " + CONFIG_PATH);
-            }
-            
-            String content = new String(Files.readAllBytes(configPath));
-            JSONObject jsonObject = new JSONObject(content);
-
-            // Validate required fields
-            String[] requiredFields = {"url", "username", "password", "modelPackage", "outputDirectory"};
-            for (String field : requiredFields) {
-                if (!jsonObject.has(field)) {
-                    throw new RuntimeException("Missing required field in configuration: " + field);
-                }
+    /**
+     * @return the current configuration; hold on to it to read several settings consistently
+     */
+    public ConfigSnapshot snapshot() {
+        return snapshot.get();
+    }
+    
+    /**
+     * Takes the current configuration for work that borrows connections over a while, such as
+     * a crawl. The connection pools built from it stay open until the lease is closed, even if
+     * the configuration is reloaded in the meantime.
+     */
+    public ConfigLease leaseSnapshot() {
+        return new ConfigLease(connectionPool, connectionPool.lease());
+    }
+    
+    /**
+     * @return the absolute path of the configuration file
+     */
+    public Path getConfigPath() {
+        return configPath;
+    }
+    
+    public void addChangeListener(ConfigChangeListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Reads the configuration file again and publishes it if it differs from the current one.
+     * Only the pools of datasources whose settings changed are rebuilt, before the snapshot
+     * that uses them is published. Work that leased the previous snapshot goes on borrowing
+     * from its pools until the lease is closed; then the pools the new snapshot does not use
+     * are retired.
+     * @return the configuration now in effect
+     * @throws RuntimeException if the file cannot be read or is invalid, leaving the current configuration in effect
+     */
+    public synchronized ConfigSnapshot reloadConfiguration() {
+        ConfigSnapshot loaded = readConfiguration();
+        ConfigSnapshot previous = snapshot.get();
+        if (loaded.equals(previous)) {
+            return previous;
+        }
+        
+        publish(loaded);
+        log.info("Reloaded configuration from {}", configPath);
+        
+        for (ConfigChangeListener listener : listeners) {
+            try {
+                listener.configurationChanged(previous, loaded);
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply a configuration change", e);
             }
-            
-            this.url = jsonObject.getString("url");
-            this.username = jsonObject.getString("username");
-            this.password = jsonObject.getString("password");
-            this.modelPackage = jsonObject.getString("modelPackage");
-            this.outputDirectory = jsonObject.getString("outputDirectory");
-            
+        }
+        return loaded;
+    }
+    
+    private ConfigSnapshot readConfiguration() {
+        if (!Files.exists(configPath)) {
+            throw new RuntimeException("Configuration file not found: " + configPath);
+        }
+        try {
+            return ConfigSnapshot.parse(Files.readString(configPath, StandardCharsets.UTF_8));
         } catch (IOException e) {
             throw new RuntimeException("Failed to read database configuration file", e);
-        } catch (JSONException e) {
-            throw new RuntimeException("Invalid JSON format in configuration file", e);
         }
     }
     
     /**
-     * Tests the database connection with the current configuration
+     * Publishes the snapshot once the pools whose connection or pool settings changed are rebuilt
+     */
+    private void publish(ConfigSnapshot config) {
+        Map<String, HikariConfig> poolConfigs = new HashMap<>();
+        for (DataSourceSettings dataSource : config.getDataSources().values()) {
+            poolConfigs.put(dataSource.getId(), buildPoolConfig(config, dataSource));
+        }
+        connectionPool.publish(config, poolConfigs);
+        snapshot.set(config);
+    }
+    
+    /**
+     * @return true if a datasource with this id is configured
+     */
+    public boolean hasDataSource(String dataSourceId) {
+        return snapshot().hasDataSource(dataSourceId);
+    }
+    
+    /**
+     * @return the settings of the datasource with the given id
+     * @throws IllegalArgumentException if there is no such datasource
+     */
+    public DataSourceSettings getDataSource(String dataSourceId) {
+        return snapshot().getDataSource(dataSourceId);
+    }
+    
+    /**
+     * Borrows a validated connection from the default datasource's pool
+     * @see #getConnection(String)
+     */
+    public Connection getConnection() throws SQLException {
+        return getConnection(DEFAULT_DATASOURCE);
+    }
+    
+    /**
+     * Borrows a validated connection from the datasource's pool with the current configuration
+     * @see #getConnection(ConfigSnapshot, String)
+     */
+    public Connection getConnection(String dataSourceId) throws SQLException {
+        try (ConfigLease lease = leaseSnapshot()) {
+            return getConnection(lease.getConfig(), dataSourceId);
+        }
+    }
+    
+    /**
+     * Borrows a validated connection from the pool built from the given configuration, which
+     * is still open after a reload while the configuration is leased. Work that borrows several
+     * connections leases the snapshot it starts with and passes it here, so all of them come
+     * from the same settings. Closing the connection returns it to the pool.
+     * @return a connection to the datasource
+     * @throws SQLException if no connection could be obtained, or the configuration is neither current nor leased
+     * @throws IllegalArgumentException if the configuration has no such datasource
+     * @see #leaseSnapshot()
+     */
+    public Connection getConnection(ConfigSnapshot config, String dataSourceId) throws SQLException {
+        config.getDataSource(dataSourceId);
+        return connectionPool.getConnection(config, dataSourceId);
+    }
+    
+    /**
+     * Tests the connection to a datasource with the current configuration
      * @return true if the connection was successful
      * @throws SQLException if the connection fails
      */
-    public boolean testConnection() throws SQLException {
-        try (Connection connection = DriverManager.getConnection(
-                this.url,
-                this.username,
-                this.password)) {
-            return connection.isValid(5); // 5 second timeout
+    public boolean testConnection(String dataSourceId) throws SQLException {
+        try (ConfigLease lease = leaseSnapshot();
+             Connection connection = getConnection(lease.getConfig(), dataSourceId)) {
+            return connection.isValid((int) Math.max(1, lease.getConfig().getPoolValidationTimeoutMs() / 1000));
         }
     }
-} 
\ No newline at end of file
+    
+    @PreDestroy
+    public void closeConnectionPool() {
+        connectionPool.close();
+    }
+    
+    private static HikariConfig buildPoolConfig(ConfigSnapshot config, DataSourceSettings dataSource) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("db-meta-generator-" + dataSource.getId());
+        hikariConfig.setJdbcUrl(dataSource.getUrl());
+        hikariConfig.setUsername(dataSource.getUsername());
+        hikariConfig.setPassword(dataSource.getPassword());
+        hikariConfig.setMaximumPoolSize(config.getPoolMaxSize());
+        hikariConfig.setMinimumIdle(config.getPoolMinIdle());
+        hikariConfig.setIdleTimeout(config.getPoolIdleTimeoutMs());
+        hikariConfig.setMaxLifetime(config.getPoolMaxLifetimeMs());
+        hikariConfig.setConnectionTimeout(config.getPoolConnectionTimeoutMs());
+        hikariConfig.setValidationTimeout(config.getPoolValidationTimeoutMs());
+        // Start without connecting so a bad configuration can still be corrected through the API
+        hikariConfig.setInitializationFailTimeout(-1);
+        return hikariConfig;
+    }
+}
\ No newline at end of file
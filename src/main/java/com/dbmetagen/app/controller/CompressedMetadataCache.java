@@ -0,0 +1,87 @@
+package com.dbmetagen.app.controller;
+
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.service.ModelGeneratorService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the full metadata document of each datasource serialized and gzip-compressed with
+ * its cached snapshot, so repeated downloads are copied from memory instead of being
+ * serialized again. Clients that do not accept gzip get the cached body inflated on the fly,
+ * which is still much cheaper than serializing and holds only one copy in memory.
+ *
+ * The body is stored through {@link ModelGeneratorService#keepSerializedMetadata}, so it
+ * counts against the cache memory budget and goes when the snapshot is replaced, evicted or
+ * invalidated, or its datasource is removed.
+ */
+@Component
+public class CompressedMetadataCache {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectWriter metadataWriter;
+    private final ModelGeneratorService modelGeneratorService;
+
+    @Autowired
+    public CompressedMetadataCache(ObjectMapper objectMapper, ModelGeneratorService modelGeneratorService) {
+        this.metadataWriter = objectMapper.writerFor(DatabaseMetadata.class);
+        this.modelGeneratorService = modelGeneratorService;
+    }
+
+    /**
+     * Answers with the same document as serializing the {@link DatabaseMetadata} bean
+     * @param acceptEncoding the request's Accept-Encoding header, may be null
+     */
+    public ResponseEntity<StreamingResponseBody> respond(String datasource, DatabaseMetadata metadata, String acceptEncoding) throws IOException {
+        byte[] compressed = compressed(datasource, metadata);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (ModelArchiveStreamer.acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .contentLength(compressed.length)
+                    .body(outputStream -> outputStream.write(compressed));
+        }
+        return response.body(outputStream -> {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed), BUFFER_SIZE)) {
+                in.transferTo(outputStream);
+            }
+        });
+    }
+
+    /**
+     * Concurrent first requests for a new snapshot may both compress it; either result is kept
+     */
+    private byte[] compressed(String datasource, DatabaseMetadata metadata) throws IOException {
+        byte[] body = modelGeneratorService.getSerializedMetadata(datasource, metadata);
+        if (body == null) {
+            body = compress(metadata);
+            modelGeneratorService.keepSerializedMetadata(datasource, metadata, body);
+        }
+        return body;
+    }
+
+    private byte[] compress(DatabaseMetadata metadata) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+        try (OutputStream gzip = new GZIPOutputStream(buffer, BUFFER_SIZE)) {
+            metadataWriter.writeValue(gzip, metadata);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -1,7 +1,8 @@
 package com.dbmetagen.app.controller;
 
+import com.dbmetagen.app.config.ConfigSnapshot;
+import com.dbmetagen.app.config.DataSourceSettings;
 import com.dbmetagen.app.config.DatabaseConfig;
-import com.dbmetagen.app.service.ModelGeneratorService;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,13 +10,13 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -23,22 +24,42 @@ import java.util.Map;
 public class ConfigurationController {
 
     private final DatabaseConfig databaseConfig;
-    private final ModelGeneratorService modelGeneratorService;
     
     @Autowired
-    public ConfigurationController(DatabaseConfig databaseConfig, ModelGeneratorService modelGeneratorService) {
+    public ConfigurationController(DatabaseConfig databaseConfig) {
         this.databaseConfig = databaseConfig;
-        this.modelGeneratorService = modelGeneratorService;
     }
     
     @GetMapping("/current")
-    public ResponseEntity<Map<String, String>> getCurrentConfig() {
-        Map<String, String> config = new HashMap<>();
-        config.put("url", databaseConfig.getUrl());
-        config.put("username", databaseConfig.getUsername());
+    public ResponseEntity<Map<String, Object>> getCurrentConfig() {
+        ConfigSnapshot current = databaseConfig.snapshot();
+        Map<String, Object> config = new HashMap<>();
+        config.put("url", current.getUrl());
+        config.put("username", current.getUsername());
         // Don't expose password in response
-        config.put("modelPackage", databaseConfig.getModelPackage());
-        config.put("outputDirectory", databaseConfig.getOutputDirectory());
+        config.put("modelPackage", current.getModelPackage());
+        config.put("outputDirectory", current.getOutputDirectory());
+        config.put("crawlMode", current.getCrawlMode());
+        config.put("crawlConcurrency", current.getCrawlConcurrency());
+        config.put("slowTableThresholdMs", current.getSlowTableThresholdMs());
+        config.put("crawlTimeoutSeconds", current.getCrawlTimeoutSeconds());
+        config.put("queryTimeoutSeconds", current.getQueryTimeoutSeconds());
+        config.put("partialRetrySeconds", current.getPartialRetrySeconds());
+        config.put("cacheTtlSeconds", current.getCacheTtlSeconds());
+        config.put("persistSnapshots", current.isPersistSnapshots());
+        config.put("cacheMemoryBudgetMb", current.getCacheMemoryBudgetMb());
+        config.put("maxConcurrentCrawls", current.getMaxConcurrentCrawls());
+        config.put("typeOverrides", current.getTypeOverrides());
+        config.put("watchConfigFile", current.isWatchConfigFile());
+        
+        Map<String, Object> dataSources = new LinkedHashMap<>();
+        for (DataSourceSettings dataSource : current.getDataSources().values()) {
+            Map<String, Object> settings = new HashMap<>();
+            settings.put("url", dataSource.getUrl());
+            settings.put("username", dataSource.getUsername());
+            dataSources.put(dataSource.getId(), settings);
+        }
+        config.put("datasources", dataSources);
         
         return ResponseEntity.ok(config);
     }
@@ -47,12 +68,12 @@ public class ConfigurationController {
      * Update configuration using direct JSON body instead of file upload
      */
     @PostMapping(value = "/update", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<?> updateDatabaseConfig(@RequestBody Map<String, String> configMap) {
+    public ResponseEntity<?> updateDatabaseConfig(@RequestBody Map<String, Object> configMap) {
         try {
             // Validate required fields
             String[] requiredFields = {"url", "username", "password", "modelPackage", "outputDirectory"};
             for (String field : requiredFields) {
-                if (!configMap.containsKey(field) || configMap.get(field) == null || configMap.get(field).trim().isEmpty()) {
+                if (!configMap.containsKey(field) || configMap.get(field) == null || configMap.get(field).toString().trim().isEmpty()) {
                     Map<String, Object> error = new HashMap<>();
                     error.put("status", "error");
                     error.put("message", "Missing required field: " + field);
@@ -61,8 +82,8 @@ public class ConfigurationController {
             }
             
             // Validate database URL format
-            String inputUrl = configMap.get("url");
-            if (inputUrl == null || !inputUrl.startsWith("jdbc:")) {
+            Object inputUrl = configMap.get("url");
+            if (!(inputUrl instanceof String) || !((String) inputUrl).startsWith("jdbc:")) {
                 Map<String, Object> error = new HashMap<>();
                 error.put("status", "error");
                 error.put("message", "Invalid database URL format. Must start with 'jdbc:'");
@@ -71,32 +92,33 @@ public class ConfigurationController {
             
             // Create JSON object
             JSONObject jsonObject = new JSONObject();
-            for (Map.Entry<String, String> entry : configMap.entrySet()) {
+            for (Map.Entry<String, Object> entry : configMap.entrySet()) {
                 jsonObject.put(entry.getKey(), entry.getValue());
             }
             
-            // Write to file
-            Path targetPath = Paths.get("src/main/resources/db-config.json");
-            Files.writeString(targetPath, jsonObject.toString(2), StandardCharsets.UTF_8);
-            
-            // Reload configuration
-            databaseConfig.reloadConfiguration();
+            // Replace the file in one step, so the file watcher never reads it half written
+            Path targetPath = databaseConfig.getConfigPath();
+            Path tempPath = Files.createTempFile(targetPath.getParent(), "db-config", ".tmp");
+            try {
+                Files.writeString(tempPath, jsonObject.toString(2), StandardCharsets.UTF_8);
+                Files.move(tempPath, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
             
-            // Clear the cached database metadata
-            modelGeneratorService.clearCache();
+            // Reload configuration, which drops only the cached metadata the changes affect
+            ConfigSnapshot current = databaseConfig.reloadConfiguration();
             
             // Generate response
-            String dbUrl = databaseConfig.getUrl();
-            String dbName = dbUrl.substring(dbUrl.lastIndexOf("/") + 1);
-            String outputPath = databaseConfig.getOutputDirectory() + File.separator + dbName;
+            String dbUrl = current.getUrl();
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Database configuration updated successfully");
             response.put("url", dbUrl);
-            response.put("username", databaseConfig.getUsername());
-            response.put("modelPackage", databaseConfig.getModelPackage());
-            response.put("outputDirectory", databaseConfig.getOutputDirectory());
-            response.put("modelOutputPath", outputPath + File.separator + databaseConfig.getModelPackage().replace('.', File.separatorChar));
+            response.put("username", current.getUsername());
+            response.put("modelPackage", current.getModelPackage());
+            response.put("outputDirectory", current.getOutputDirectory());
+            response.put("modelOutputPath", current.getPackageDirectory(DatabaseConfig.DEFAULT_DATASOURCE).toString());
             response.put("status", "success");
             
             return ResponseEntity.ok(response);
@@ -109,11 +131,17 @@ public class ConfigurationController {
     }
     
     @GetMapping("/test-connection")
-    public ResponseEntity<?> testDatabaseConnection() {
+    public ResponseEntity<?> testDatabaseConnection(
+            @RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource) {
         Map<String, Object> response = new HashMap<>();
+        if (!databaseConfig.hasDataSource(datasource)) {
+            response.put("status", "error");
+            response.put("message", "Datasource not found: " + datasource);
+            return ResponseEntity.status(404).body(response);
+        }
         
         try {
-            boolean isConnected = databaseConfig.testConnection();
+            boolean isConnected = databaseConfig.testConnection(datasource);
             response.put("status", "success");
             response.put("connected", isConnected);
             response.put("message", "Database connection successful");
@@ -1,23 +1,41 @@
 package com.dbmetagen.app.controller;
 
 import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.ColumnMetadata;
 import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.RelationshipGraph;
 import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.service.GenerationJob;
+import com.dbmetagen.app.service.GenerationJobManager;
+import com.dbmetagen.app.service.GenerationReport;
 import com.dbmetagen.app.service.ModelGeneratorService;
+import com.dbmetagen.app.service.RefreshResult;
+import com.dbmetagen.app.service.SchemaDiff;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/metadata")
@@ -25,49 +43,289 @@ public class DatabaseMetadataController {
 
     private final ModelGeneratorService modelGeneratorService;
     private final DatabaseConfig databaseConfig;
+    private final MetadataJsonStreamer jsonStreamer;
+    private final ModelArchiveStreamer archiveStreamer;
+    private final GenerationJobManager jobManager;
+    private final CompressedMetadataCache compressedMetadataCache;
 
     @Autowired
-    public DatabaseMetadataController(ModelGeneratorService modelGeneratorService, DatabaseConfig databaseConfig) {
+    public DatabaseMetadataController(ModelGeneratorService modelGeneratorService, DatabaseConfig databaseConfig,
+                                      MetadataJsonStreamer jsonStreamer, ModelArchiveStreamer archiveStreamer,
+                                      GenerationJobManager jobManager, CompressedMetadataCache compressedMetadataCache) {
         this.modelGeneratorService = modelGeneratorService;
         this.databaseConfig = databaseConfig;
+        this.jsonStreamer = jsonStreamer;
+        this.archiveStreamer = archiveStreamer;
+        this.jobManager = jobManager;
+        this.compressedMetadataCache = compressedMetadataCache;
     }
 
+    /**
+     * Answers from the snapshot's cached gzip body, with its content tag as ETag. A request
+     * whose If-None-Match still matches gets 304 without a body.
+     */
     @GetMapping("")
-    public ResponseEntity<?> getDatabaseMetadata() {
+    public ResponseEntity<StreamingResponseBody> getDatabaseMetadata(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                                     WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return jsonStreamer.streamValue(404, unknownDataSource(datasource));
+        }
         try {
-            return ResponseEntity.ok(modelGeneratorService.getDatabaseMetadata());
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            if (webRequest.checkNotModified(eTag(metadata.contentTag()))) {
+                return null;
+            }
+            return compressedMetadataCache.respond(datasource, metadata, acceptEncoding);
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("status", "error");
             error.put("message", "Failed to retrieve database metadata: " + e.getMessage());
+            return jsonStreamer.streamValue(500, error);
+        }
+    }
+
+    /**
+     * Streaming variant of {@link #getDatabaseMetadata}: tables are serialized one at a time with
+     * chunked transfer instead of being copied from the cached gzip body. Selected by {@code stream=true}.
+     */
+    @GetMapping(value = "", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamDatabaseMetadata(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                                                        WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return jsonStreamer.streamValue(404, unknownDataSource(datasource));
+        }
+        try {
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            if (webRequest.checkNotModified(eTag(metadata.contentTag()))) {
+                return null;
+            }
+            return jsonStreamer.streamDatabaseMetadata(metadata);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to retrieve database metadata: " + e.getMessage());
+            return jsonStreamer.streamValue(500, error);
+        }
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshMetadata(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
+        try {
+            RefreshResult result = modelGeneratorService.refreshMetadata(datasource);
+            return ResponseEntity.ok(refreshResponse(result));
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to refresh database metadata: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Refreshes every configured datasource concurrently, up to the configured crawl limit.
+     * A failing datasource is reported in its own entry and does not fail the others.
+     */
+    @PostMapping("/refresh-all")
+    public ResponseEntity<?> refreshAllMetadata() {
+        Map<String, CompletableFuture<RefreshResult>> refreshes = new LinkedHashMap<>();
+        for (String id : databaseConfig.snapshot().getDataSources().keySet()) {
+            refreshes.put(id, modelGeneratorService.refreshMetadataAsync(id));
+        }
+        
+        Map<String, Object> results = new LinkedHashMap<>();
+        int failed = 0;
+        for (Map.Entry<String, CompletableFuture<RefreshResult>> entry : refreshes.entrySet()) {
+            try {
+                results.put(entry.getKey(), refreshResponse(entry.getValue().join()));
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                Map<String, Object> error = new HashMap<>();
+                error.put("status", "error");
+                error.put("message", "Failed to refresh database metadata: " + cause.getMessage());
+                results.put(entry.getKey(), error);
+                failed++;
+            }
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", failed == 0 ? "success" : "error");
+        response.put("failed", failed);
+        response.put("datasources", results);
+        return ResponseEntity.status(failed == 0 ? 200 : 500).body(response);
+    }
+
+    /**
+     * Refreshes the datasource and returns what changed since the snapshot cached before
+     */
+    @PostMapping("/refresh/diff")
+    public ResponseEntity<?> refreshMetadataDiff(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
+        try {
+            return ResponseEntity.ok(modelGeneratorService.refreshMetadataDiff(datasource));
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to refresh database metadata: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Lists the changes that turn the source datasource's schema into the target's
+     */
+    @GetMapping("/diff")
+    public ResponseEntity<?> diffMetadata(@RequestParam(value = "source", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String source,
+                                          @RequestParam("target") String target) {
+        for (String datasource : new String[]{source, target}) {
+            if (!databaseConfig.hasDataSource(datasource)) {
+                return ResponseEntity.status(404).body(unknownDataSource(datasource));
+            }
+        }
+        try {
+            SchemaDiff diff = modelGeneratorService.diffMetadata(source, target);
+            return ResponseEntity.ok(diff);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to compare database metadata: " + e.getMessage());
             return ResponseEntity.status(500).body(error);
         }
     }
 
+    private static Map<String, Object> refreshResponse(RefreshResult result) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("fullCrawl", result.isFullCrawl());
+        response.put("added", result.getAddedTables());
+        response.put("changed", result.getChangedTables());
+        response.put("dropped", result.getDroppedTables());
+        response.put("unchanged", result.getUnchangedTables());
+        response.put("durationMs", result.getDurationMs());
+        return response;
+    }
+
+    /**
+     * Table names are wrapped in URL-safe Base64 so clients treat cursors as opaque
+     */
+    private static String encodeCursor(String tableName) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(tableName.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Weak, because the same tag is sent for the gzip and the identity encoding of a body
+     */
+    private static String eTag(String contentTag) {
+        return "W/\"" + contentTag + "\"";
+    }
+
+    private static Map<String, Object> unknownDataSource(String datasource) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("message", "Datasource not found: " + datasource);
+        return error;
+    }
+
+    /**
+     * Lists the tables, written incrementally with chunked transfer instead of buffering the
+     * whole array. The document is the same as serializing the list. There is no buffered
+     * variant, so {@code stream=true}, which used to select this one, changes nothing. The
+     * body type is declared so Spring MVC picks the streaming handler.
+     *
+     * {@code fields} selects table properties, e.g. {@code fields=tableName} for names only.
+     * {@code prefix}, {@code limit} and {@code cursor} page through the tables sorted by name
+     * ignoring case; a page that is not the last links to the next one in a {@code Link} header.
+     * The cursor is the last name of the previous page, so pages stay consistent when tables
+     * are added or dropped in between. The query is part of the resource, so every page carries
+     * the tag of the whole snapshot.
+     */
     @GetMapping("/tables")
-    public ResponseEntity<?> getAllTables() {
+    public ResponseEntity<StreamingResponseBody> getAllTables(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                                              @RequestParam(value = "fields", required = false) String fields,
+                                                              @RequestParam(value = "prefix", required = false) String prefix,
+                                                              @RequestParam(value = "limit", required = false) Integer limit,
+                                                              @RequestParam(value = "cursor", required = false) String cursor,
+                                                              WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return jsonStreamer.streamValue(404, unknownDataSource(datasource));
+        }
+        
+        Set<TableField> selected;
+        String after;
+        try {
+            selected = TableField.parse(fields);
+            after = cursor != null ? decodeCursor(cursor) : null;
+            if (limit != null && limit < 1) {
+                throw new IllegalArgumentException("limit must be at least 1: " + limit);
+            }
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", e.getMessage());
+            return jsonStreamer.streamValue(400, error);
+        }
+        
         try {
-            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata();
-            return ResponseEntity.ok(metadata.getTables());
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            if (webRequest.checkNotModified(eTag(metadata.contentTag()))) {
+                return null;
+            }
+            if (prefix == null && limit == null && after == null) {
+                return jsonStreamer.streamTables(metadata.getTables(), selected, null);
+            }
+            
+            // One more than requested tells whether there is a next page
+            int pageSize = limit != null ? limit : Integer.MAX_VALUE;
+            List<TableMetadata> page = metadata.findTables(prefix, after, pageSize == Integer.MAX_VALUE ? pageSize : pageSize + 1);
+            String nextLink = null;
+            if (page.size() > pageSize) {
+                page = page.subList(0, pageSize);
+                nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+                        .replaceQueryParam("cursor", encodeCursor(page.get(pageSize - 1).getTableName()))
+                        .build()
+                        .toUriString();
+            }
+            return jsonStreamer.streamTables(page, selected, nextLink);
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("status", "error");
             error.put("message", "Failed to retrieve tables: " + e.getMessage());
-            return ResponseEntity.status(500).body(error);
+            return jsonStreamer.streamValue(500, error);
         }
     }
 
+    /**
+     * Tagged with the table's own content tag, so it stays valid while other tables change
+     */
     @GetMapping("/tables/{tableName}")
-    public ResponseEntity<?> getTableMetadata(@PathVariable String tableName) {
+    public ResponseEntity<?> getTableMetadata(@PathVariable String tableName,
+                                              @RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                              WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
         try {
-            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata();
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            TableMetadata tableMetadata = metadata.findTable(tableName);
             
-            Optional<TableMetadata> tableMetadata = metadata.getTables().stream()
-                    .filter(table -> table.getTableName().equalsIgnoreCase(tableName))
-                    .findFirst();
-            
-            if (tableMetadata.isPresent()) {
-                return ResponseEntity.ok(tableMetadata.get());
+            if (tableMetadata != null) {
+                if (webRequest.checkNotModified(eTag(tableMetadata.contentTag()))) {
+                    return null;
+                }
+                return ResponseEntity.ok(tableMetadata);
             } else {
                 Map<String, Object> error = new HashMap<>();
                 error.put("status", "error");
@@ -82,41 +340,279 @@ public class DatabaseMetadataController {
         }
     }
 
-    @GetMapping("/models")
-    public ResponseEntity<?> generateAllModels() {
+    @GetMapping("/tables/{tableName}/columns/{columnName}")
+    public ResponseEntity<?> getColumnMetadata(@PathVariable String tableName, @PathVariable String columnName,
+                                               @RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                               WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
+        try {
+            TableMetadata table = modelGeneratorService.getDatabaseMetadata(datasource).findTable(tableName);
+            ColumnMetadata column = table != null ? table.findColumn(columnName) : null;
+            
+            if (column != null) {
+                if (webRequest.checkNotModified(eTag(table.contentTag()))) {
+                    return null;
+                }
+                return ResponseEntity.ok(column);
+            } else {
+                Map<String, Object> error = new HashMap<>();
+                error.put("status", "error");
+                error.put("message", table == null
+                        ? "Table not found: " + tableName
+                        : "Column not found: " + tableName + "." + columnName);
+                return ResponseEntity.status(404).body(error);
+            }
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to retrieve column metadata: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Tables the table references through its foreign keys
+     */
+    @GetMapping("/tables/{tableName}/dependencies")
+    public ResponseEntity<?> getTableDependencies(@PathVariable String tableName,
+                                                  @RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                                  WebRequest webRequest) {
+        return relatedTables(datasource, tableName, "dependencies", webRequest);
+    }
+
+    /**
+     * Tables whose foreign keys reference the table
+     */
+    @GetMapping("/tables/{tableName}/dependents")
+    public ResponseEntity<?> getTableDependents(@PathVariable String tableName,
+                                                @RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                                WebRequest webRequest) {
+        return relatedTables(datasource, tableName, "dependents", webRequest);
+    }
+
+    /**
+     * Tables within {@code hops} foreign keys of the table, with their distance. {@code direction}
+     * is {@code dependencies}, {@code dependents} or {@code both}.
+     */
+    @GetMapping("/tables/{tableName}/neighbourhood")
+    public ResponseEntity<?> getTableNeighbourhood(@PathVariable String tableName,
+                                                   @RequestParam(value = "hops", defaultValue = "1") int hops,
+                                                   @RequestParam(value = "direction", defaultValue = "both") String direction,
+                                                   @RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                                   WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
+        RelationshipGraph.Direction followed = null;
+        for (RelationshipGraph.Direction candidate : RelationshipGraph.Direction.values()) {
+            if (candidate.name().equalsIgnoreCase(direction)) {
+                followed = candidate;
+            }
+        }
+        if (followed == null || hops < 1) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", followed == null
+                    ? "direction must be dependencies, dependents or both: " + direction
+                    : "hops must be at least 1: " + hops);
+            return ResponseEntity.status(400).body(error);
+        }
+        try {
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            TableMetadata table = metadata.findTable(tableName);
+            if (table == null) {
+                return ResponseEntity.status(404).body(tableNotFound(tableName));
+            }
+            if (webRequest.checkNotModified(eTag(metadata.contentTag()))) {
+                return null;
+            }
+            Map<String, Integer> neighbourhood = metadata.relationships().neighbourhood(tableName, hops, followed);
+            Map<String, Object> response = new HashMap<>();
+            response.put("table", table.getTableName());
+            response.put("hops", hops);
+            response.put("direction", followed.name().toLowerCase(Locale.ROOT));
+            response.put("tables", neighbourhood);
+            response.put("count", neighbourhood.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to retrieve table relationships: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Every table in an order that loads referenced tables before the tables referencing them.
+     * The tables of a cycle are listed next to each other.
+     */
+    @GetMapping("/relationships/load-order")
+    public ResponseEntity<?> getLoadOrder(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                          WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
+        try {
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            if (webRequest.checkNotModified(eTag(metadata.contentTag()))) {
+                return null;
+            }
+            RelationshipGraph relationships = metadata.relationships();
+            Map<String, Object> response = new HashMap<>();
+            response.put("loadOrder", relationships.loadOrder());
+            response.put("cycles", relationships.cycles().size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to retrieve table relationships: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    /**
+     * Groups of tables that reference each other, and tables that reference themselves
+     */
+    @GetMapping("/relationships/cycles")
+    public ResponseEntity<?> getCycles(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource,
+                                       WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
+        try {
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            if (webRequest.checkNotModified(eTag(metadata.contentTag()))) {
+                return null;
+            }
+            List<List<String>> cycles = metadata.relationships().cycles();
+            Map<String, Object> response = new HashMap<>();
+            response.put("cycles", cycles);
+            response.put("count", cycles.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to retrieve table relationships: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+
+    private ResponseEntity<?> relatedTables(String datasource, String tableName, String relation, WebRequest webRequest) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
         try {
-            Map<String, String> models = modelGeneratorService.generateModelClasses();
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            TableMetadata table = metadata.findTable(tableName);
+            if (table == null) {
+                return ResponseEntity.status(404).body(tableNotFound(tableName));
+            }
+            // Dependents change with other tables, so the tag is the snapshot's
+            if (webRequest.checkNotModified(eTag(metadata.contentTag()))) {
+                return null;
+            }
+            List<String> related = "dependents".equals(relation)
+                    ? metadata.relationships().dependents(tableName)
+                    : metadata.relationships().dependencies(tableName);
             Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("models", models);
-            response.put("count", models.size());
-            response.put("message", "Generated " + models.size() + " model classes");
+            response.put("table", table.getTableName());
+            response.put(relation, related);
+            response.put("count", related.size());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             Map<String, Object> error = new HashMap<>();
             error.put("status", "error");
-            error.put("message", "Failed to generate models: " + e.getMessage());
+            error.put("message", "Failed to retrieve table relationships: " + e.getMessage());
             return ResponseEntity.status(500).body(error);
         }
     }
 
+    private static Map<String, Object> tableNotFound(String tableName) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("message", "Table not found: " + tableName);
+        return error;
+    }
+
+    /**
+     * Generates all model classes and answers with them once done, as it always has. The
+     * generation runs as a job, so concurrent requests for a datasource share one run, and the
+     * request thread is released while it waits. Clients that would rather poll submit the job
+     * through {@code POST /api/metadata/jobs}.
+     */
+    @GetMapping("/models")
+    public DeferredResult<ResponseEntity<?>> generateAllModels(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource) {
+        // No timeout, like the synchronous request this used to be
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(0L);
+        if (!databaseConfig.hasDataSource(datasource)) {
+            result.setResult(ResponseEntity.status(404).body(unknownDataSource(datasource)));
+            return result;
+        }
+        jobManager.submit(datasource).getCompletion().thenAccept(job -> result.setResult(modelsResponse(job)));
+        return result;
+    }
+
+    private static ResponseEntity<?> modelsResponse(GenerationJob job) {
+        GenerationReport report = job.getReport();
+        if (report == null || report.getModels() == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to generate models: " + (report == null ? job.getError() : "the result was replaced by a later run"));
+            return ResponseEntity.status(500).body(error);
+        }
+        Map<String, String> models = report.getModels();
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("models", models);
+        response.put("count", models.size());
+        response.put("written", report.getWritten());
+        response.put("skipped", report.getSkipped());
+        response.put("deleted", report.getDeleted());
+        response.put("durationMs", report.getDurationMs());
+        response.put("message", "Generated " + models.size() + " model classes");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Streams every generated model class as a ZIP archive without writing files to disk
+     */
+    @GetMapping("/models/archive")
+    public ResponseEntity<StreamingResponseBody> downloadModelArchive(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return jsonStreamer.streamValue(404, unknownDataSource(datasource));
+        }
+        try {
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            return archiveStreamer.streamArchive(metadata, databaseConfig.snapshot().getModelPackage(), acceptEncoding);
+        } catch (Exception e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Failed to generate model archive: " + e.getMessage());
+            return jsonStreamer.streamValue(500, error);
+        }
+    }
+
     @GetMapping("/models/{tableName}")
-    public ResponseEntity<?> generateModelForTable(@PathVariable String tableName) {
+    public ResponseEntity<?> generateModelForTable(@PathVariable String tableName,
+                                                   @RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            return ResponseEntity.status(404).body(unknownDataSource(datasource));
+        }
         try {
-            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata();
-            
-            Optional<TableMetadata> tableMetadata = metadata.getTables().stream()
-                    .filter(table -> table.getTableName().equalsIgnoreCase(tableName))
-                    .findFirst();
+            DatabaseMetadata metadata = modelGeneratorService.getDatabaseMetadata(datasource);
+            TableMetadata table = metadata.findTable(tableName);
             
-            if (tableMetadata.isPresent()) {
+            if (table != null) {
                 // Generate the model code
-                String modelCode = modelGeneratorService.generateModelClass(tableMetadata.get());
+                String modelCode = modelGeneratorService.generateModelClass(table);
                 
                 // Save the model to disk
-                TableMetadata table = tableMetadata.get();
-                String className = toClassName(table.getTableName());
-                saveModelToFile(className, modelCode);
+                String className = modelGeneratorService.getModelClassName(table.getTableName());
+                boolean fileChanged = modelGeneratorService.saveModelClass(datasource, className, modelCode);
                 
                 // Return the response
                 Map<String, Object> response = new HashMap<>();
@@ -125,6 +621,7 @@ public class DatabaseMetadataController {
                 response.put("className", className);
                 response.put("modelClass", modelCode);
                 response.put("fileSaved", true);
+                response.put("fileChanged", fileChanged);
                 return ResponseEntity.ok(response);
             } else {
                 Map<String, Object> error = new HashMap<>();
@@ -139,59 +636,4 @@ public class DatabaseMetadataController {
             return ResponseEntity.status(500).body(error);
         }
     }
-    
-    /**
-     * Helper method to convert table name to class name (PascalCase)
-     */
-    private String toClassName(String tableName) {
-        StringBuilder result = new StringBuilder();
-        
-        // Split by underscore and capitalize each part
-        String[] parts = tableName.split("_");
-        for (String part : parts) {
-            if (!part.isEmpty()) {
-                result.append(Character.toUpperCase(part.charAt(0)));
-                
-                if (part.length() > 1) {
-                    result.append(part.substring(1).toLowerCase());
-                }
-            }
-        }
-        
-        return result.toString();
-    }
-    
-    /**
-     * Helper method to save a model class to disk
-     */
-    private void saveModelToFile(String className, String modelCode) throws IOException {
-        // Get configuration from service
-        String baseOutputDirectory = databaseConfig.getOutputDirectory();
-        String modelPackage = databaseConfig.getModelPackage();
-        
-        // Get database name from metadata for subfolder organization
-        String databaseName = modelGeneratorService.getDatabaseMetadata().getDatabaseName();
-        
-        // Create database-specific output directory
-        String dbSpecificOutputDir = baseOutputDirectory + File.separator + databaseName;
-        
-        // Create package directory structure
-        String packagePath = modelPackage.replace('.', '/');
-        File outputDir = new File(dbSpecificOutputDir);
-        File packageDir = new File(outputDir, packagePath);
-        
-        // Ensure directories exist
-        if (!outputDir.exists()) {
-            outputDir.mkdirs();
-        }
-        if (!packageDir.exists()) {
-            packageDir.mkdirs();
-        }
-        
-        // Write the file
-        File modelFile = new File(packageDir, className + ".java");
-        try (FileWriter writer = new FileWriter(modelFile)) {
-            writer.write(modelCode);
-        }
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,148 @@
+package com.dbmetagen.app.controller;
+
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.service.GenerationJob;
+import com.dbmetagen.app.service.GenerationJobManager;
+import com.dbmetagen.app.service.GenerationReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model generation as background jobs: submit, poll the progress, fetch the result or cancel.
+ * {@code GET /api/metadata/models} runs through the same jobs and waits for the result.
+ */
+@RestController
+@RequestMapping("/api/metadata/jobs")
+public class GenerationJobController {
+
+    private final GenerationJobManager jobManager;
+    private final DatabaseConfig databaseConfig;
+
+    @Autowired
+    public GenerationJobController(GenerationJobManager jobManager, DatabaseConfig databaseConfig) {
+        this.jobManager = jobManager;
+        this.databaseConfig = databaseConfig;
+    }
+
+    /**
+     * Starts generating the datasource's model classes, or returns the job already doing so
+     */
+    @PostMapping("")
+    public ResponseEntity<?> submitJob(@RequestParam(value = "datasource", defaultValue = DatabaseConfig.DEFAULT_DATASOURCE) String datasource) {
+        if (!databaseConfig.hasDataSource(datasource)) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("status", "error");
+            error.put("message", "Datasource not found: " + datasource);
+            return ResponseEntity.status(404).body(error);
+        }
+        GenerationJob job = jobManager.submit(datasource);
+        return ResponseEntity.accepted()
+                .header("Location", "/api/metadata/jobs/" + job.getId())
+                .body(jobResponse(job));
+    }
+
+    @GetMapping("")
+    public ResponseEntity<?> getJobs() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (GenerationJob job : jobManager.getJobs()) {
+            jobs.add(jobResponse(job));
+        }
+        return ResponseEntity.ok(jobs);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId) {
+        GenerationJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(404).body(jobNotFound(jobId));
+        }
+        return ResponseEntity.ok(jobResponse(job));
+    }
+
+    /**
+     * Returns the generated models and file counts of a job that succeeded
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<?> getJobResult(@PathVariable String jobId) {
+        GenerationJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(404).body(jobNotFound(jobId));
+        }
+        GenerationReport report = job.getReport();
+        if (report == null) {
+            Map<String, Object> error = jobResponse(job);
+            error.put("status", "error");
+            error.put("message", "Job has no result in state " + job.getState());
+            return ResponseEntity.status(409).body(error);
+        }
+        if (job.isModelsDiscarded()) {
+            Map<String, Object> error = jobResponse(job);
+            error.put("status", "error");
+            error.put("message", "The models of this job were dropped after a later job for the datasource succeeded");
+            return ResponseEntity.status(410).body(error);
+        }
+
+        Map<String, Object> response = jobResponse(job);
+        response.put("status", "success");
+        response.put("models", report.getModels());
+        response.put("count", report.getModels().size());
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<?> cancelJob(@PathVariable String jobId) {
+        GenerationJob job = jobManager.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(404).body(jobNotFound(jobId));
+        }
+        if (!jobManager.cancel(jobId)) {
+            Map<String, Object> error = jobResponse(job);
+            error.put("status", "error");
+            error.put("message", "Job has already finished");
+            return ResponseEntity.status(409).body(error);
+        }
+        return ResponseEntity.accepted().body(jobResponse(job));
+    }
+
+    static Map<String, Object> jobResponse(GenerationJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("datasource", job.getDataSourceId());
+        response.put("state", job.getState());
+        response.put("tablesDone", job.getTablesDone());
+        response.put("tablesTotal", job.getTablesTotal());
+        response.put("submittedAt", job.getSubmittedAt());
+        response.put("startedAt", job.getStartedAt());
+        response.put("finishedAt", job.getFinishedAt());
+        if (job.getError() != null) {
+            response.put("error", job.getError());
+        }
+        GenerationReport report = job.getReport();
+        if (report != null) {
+            response.put("written", report.getWritten());
+            response.put("skipped", report.getSkipped());
+            response.put("deleted", report.getDeleted());
+            response.put("durationMs", report.getDurationMs());
+        }
+        return response;
+    }
+
+    private static Map<String, Object> jobNotFound(String jobId) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("status", "error");
+        error.put("message", "Job not found: " + jobId);
+        return error;
+    }
+}
@@ -0,0 +1,147 @@
+package com.dbmetagen.app.controller;
+
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes metadata responses table by table straight to the response stream.
+ *
+ * Each table is serialized into the generator's small buffer, which is flushed to the
+ * servlet output as it fills, so the response goes out with chunked transfer encoding
+ * and memory use does not grow with the number of tables.
+ */
+@Component
+public class MetadataJsonStreamer {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter tableWriter;
+    private final ObjectWriter valueWriter;
+
+    @Autowired
+    public MetadataJsonStreamer(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        // Let the generator decide when to flush instead of flushing after every table
+        this.tableWriter = objectMapper.writerFor(TableMetadata.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.valueWriter = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Streams the same document as serializing the {@link DatabaseMetadata} bean, with its
+     * properties in the same order
+     */
+    public ResponseEntity<StreamingResponseBody> streamDatabaseMetadata(DatabaseMetadata metadata) {
+        return stream(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("databaseName", metadata.getDatabaseName());
+            generator.writeStringField("databaseProductName", metadata.getDatabaseProductName());
+            generator.writeFieldName("tables");
+            writeTables(generator, metadata.getTables());
+            generator.writeFieldName("incompleteTables");
+            valueWriter.writeValue(generator, metadata.getIncompleteTables());
+            generator.writeBooleanField("partial", metadata.isPartial());
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * Streams the selected properties of the tables as a JSON array. Each property is written
+     * straight from the table, so the cost follows the size of the page and the fields selected.
+     * @param nextLink link to the following page, sent as a {@code Link} header, or null on the last page
+     */
+    public ResponseEntity<StreamingResponseBody> streamTables(List<TableMetadata> tables, Set<TableField> fields, String nextLink) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextLink != null) {
+            headers.add(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return stream(200, headers, generator -> {
+            if (fields.size() == TableField.values().length) {
+                writeTables(generator, tables);
+                return;
+            }
+            generator.writeStartArray();
+            for (TableMetadata table : tables) {
+                generator.writeStartObject();
+                for (TableField field : fields) {
+                    generator.writeFieldName(field.getJsonName());
+                    valueWriter.writeValue(generator, fieldValue(table, field));
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        });
+    }
+
+    /**
+     * Streams a single value, used for error bodies of streaming endpoints
+     */
+    public ResponseEntity<StreamingResponseBody> streamValue(int status, Object value) {
+        return stream(status, generator -> objectMapper.writeValue(generator, value));
+    }
+
+    private void writeTables(JsonGenerator generator, List<TableMetadata> tables) throws IOException {
+        generator.writeStartArray();
+        for (TableMetadata table : tables) {
+            tableWriter.writeValue(generator, table);
+        }
+        generator.writeEndArray();
+    }
+
+    private static Object fieldValue(TableMetadata table, TableField field) {
+        switch (field) {
+            case TABLE_NAME:
+                return table.getTableName();
+            case COLUMNS:
+                return table.getColumns();
+            case FOREIGN_KEYS:
+                return table.getForeignKeys();
+            case INDEXES:
+                return table.getIndexes();
+            case PRIMARY_KEY:
+                return table.getPrimaryKey();
+            default:
+                throw new IllegalArgumentException("Unknown field: " + field);
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(JsonBody body) {
+        return stream(200, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(int status, JsonBody body) {
+        return stream(status, new HttpHeaders(), body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(int status, HttpHeaders headers, JsonBody body) {
+        StreamingResponseBody responseBody = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            body.write(generator);
+            generator.close();
+        };
+        return ResponseEntity.status(status)
+                .headers(headers)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(responseBody);
+    }
+
+    @FunctionalInterface
+    private interface JsonBody {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
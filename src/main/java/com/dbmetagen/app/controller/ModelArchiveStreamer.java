@@ -0,0 +1,111 @@
+package com.dbmetagen.app.controller;
+
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.service.ModelGeneratorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams generated model classes into a ZIP archive, rendering one table at a time.
+ *
+ * Only the class currently being written is held in memory. When the client accepts gzip
+ * the entries are stored uncompressed and the whole response is gzip-encoded instead,
+ * which compresses across classes; otherwise each entry is deflated on its own.
+ */
+@Component
+public class ModelArchiveStreamer {
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+
+    private final ModelGeneratorService modelGeneratorService;
+
+    @Autowired
+    public ModelArchiveStreamer(ModelGeneratorService modelGeneratorService) {
+        this.modelGeneratorService = modelGeneratorService;
+    }
+
+    /**
+     * @param metadata the snapshot to generate models from
+     * @param modelPackage package of the generated classes, used for the entry paths
+     * @param acceptEncoding the request's Accept-Encoding header, may be null
+     */
+    public ResponseEntity<StreamingResponseBody> streamArchive(DatabaseMetadata metadata, String modelPackage, String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String entryPrefix = metadata.getDatabaseName() + "/" + modelPackage.replace('.', '/') + "/";
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+            ZipOutputStream zip = new ZipOutputStream(target, StandardCharsets.UTF_8);
+            zip.setMethod(gzip ? ZipOutputStream.STORED : ZipOutputStream.DEFLATED);
+
+            for (TableMetadata table : metadata.getTables()) {
+                byte[] source = modelGeneratorService.generateModelClass(table).getBytes(StandardCharsets.UTF_8);
+                ZipEntry entry = new ZipEntry(entryPrefix + modelGeneratorService.getModelClassName(table.getTableName()) + ".java");
+                if (gzip) {
+                    // Stored entries need their size and checksum up front
+                    CRC32 crc = new CRC32();
+                    crc.update(source);
+                    entry.setSize(source.length);
+                    entry.setCompressedSize(source.length);
+                    entry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(entry);
+                zip.write(source);
+                zip.closeEntry();
+            }
+
+            // Finishes the archive (and the gzip trailer) without closing the servlet stream
+            zip.finish();
+            if (gzip) {
+                ((GZIPOutputStream) target).finish();
+            }
+            outputStream.flush();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(APPLICATION_ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + metadata.getDatabaseName() + "-models.zip\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!"gzip".equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            // Honour an explicit "gzip;q=0"
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
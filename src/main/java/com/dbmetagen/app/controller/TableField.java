@@ -0,0 +1,55 @@
+package com.dbmetagen.app.controller;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Properties of a table that the {@code fields} parameter of the table endpoints can select
+ */
+public enum TableField {
+    TABLE_NAME("tableName"),
+    COLUMNS("columns"),
+    FOREIGN_KEYS("foreignKeys"),
+    INDEXES("indexes"),
+    PRIMARY_KEY("primaryKey");
+
+    private final String jsonName;
+
+    TableField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Parses a comma-separated list of JSON property names. The table name is always selected,
+     * as it identifies the table and is the pagination cursor.
+     * @param fields the list, or null for every field
+     * @throws IllegalArgumentException if a name is not a table property
+     */
+    public static Set<TableField> parse(String fields) {
+        if (fields == null) {
+            return EnumSet.allOf(TableField.class);
+        }
+        Set<TableField> selected = EnumSet.of(TABLE_NAME);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            TableField field = null;
+            for (TableField candidate : values()) {
+                if (candidate.jsonName.equals(trimmed)) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field: " + trimmed);
+            }
+            selected.add(field);
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,69 @@
+package com.dbmetagen.app.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One pass of freezing a snapshot. Strings are interned through a dictionary shared by all
+ * tables of the snapshot, so the type names, default values and column names that repeat
+ * across a schema are held once. Unlike {@link String#intern()} the dictionary is dropped
+ * after the pass and does not pin strings of dropped tables. Lists are copied into
+ * unmodifiable lists backed by arrays of exactly their size.
+ */
+final class Compaction {
+
+    private final Map<String, String> strings = new HashMap<>();
+
+    /**
+     * Guards the setters of the model classes, which must not change a snapshot once published
+     */
+    static void checkNotFrozen(boolean frozen) {
+        if (frozen) {
+            throw new IllegalStateException("Metadata of a frozen snapshot cannot be modified");
+        }
+    }
+
+    /**
+     * @return the canonical instance of the string, null for null
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = strings.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    /**
+     * @return a right-sized unmodifiable copy of the list with its strings interned
+     */
+    List<String> internAll(List<String> values) {
+        if (values == null) {
+            return null;
+        }
+        List<String> interned = new ArrayList<>(values.size());
+        for (String value : values) {
+            interned.add(intern(value));
+        }
+        return compact(interned);
+    }
+
+    /**
+     * @return a right-sized unmodifiable copy of the list, or the list itself if it already is one
+     */
+    static <T> List<T> compact(List<T> list) {
+        if (list == null) {
+            return null;
+        }
+        for (T element : list) {
+            if (element == null) {
+                // List.copyOf rejects nulls; the copy constructor sizes its array exactly as well
+                return Collections.unmodifiableList(new ArrayList<>(list));
+            }
+        }
+        return List.copyOf(list);
+    }
+}
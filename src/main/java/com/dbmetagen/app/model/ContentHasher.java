@@ -0,0 +1,62 @@
+package com.dbmetagen.app.model;
+
+import java.util.List;
+
+/**
+ * 64-bit FNV-1a hash over the properties of the model that are serialized. The values are
+ * length-prefixed, so adjacent strings cannot run into each other, and the hash does not
+ * depend on identity hash codes, so a tag stays the same across restarts and instances.
+ */
+final class ContentHasher {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    ContentHasher add(String value) {
+        if (value == null) {
+            return add(-1L);
+        }
+        add((long) value.length());
+        for (int i = 0; i < value.length(); i++) {
+            mix(value.charAt(i));
+        }
+        return this;
+    }
+
+    ContentHasher add(long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Character.SIZE) {
+            mix((int) (value >>> shift) & 0xffff);
+        }
+        return this;
+    }
+
+    ContentHasher add(boolean value) {
+        mix(value ? 1 : 0);
+        return this;
+    }
+
+    ContentHasher add(List<String> values) {
+        if (values == null) {
+            return add(-1L);
+        }
+        add((long) values.size());
+        for (String value : values) {
+            add(value);
+        }
+        return this;
+    }
+
+    /**
+     * @return the hash as 16 hex digits
+     */
+    String toTag() {
+        String hex = Long.toHexString(hash);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    private void mix(int value) {
+        hash = (hash ^ value) * PRIME;
+    }
+}
@@ -1,10 +1,177 @@
 package com.dbmetagen.app.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Collections;
 import java.util.List;
  
 @Data
 public class DatabaseMetadata {
     private String databaseName;
+    /** As reported by {@code DatabaseMetaData.getDatabaseProductName()}, e.g. "MySQL" */
+    private String databaseProductName;
     private List<TableMetadata> tables;
-} 
\ No newline at end of file
+    /**
+     * Tables the crawl failed to extract or ran out of time for. They are missing from
+     * {@link #getTables()}, or still have the definition of an earlier snapshot.
+     */
+    private List<String> incompleteTables = Collections.emptyList();
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile NameIndex<TableMetadata> tableIndex;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile SortedNameIndex<TableMetadata> sortedTables;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile String contentTag;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile RelationshipGraph relationships;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient boolean frozen;
+
+    public void setDatabaseName(String databaseName) {
+        Compaction.checkNotFrozen(frozen);
+        this.databaseName = databaseName;
+    }
+
+    public void setDatabaseProductName(String databaseProductName) {
+        Compaction.checkNotFrozen(frozen);
+        this.databaseProductName = databaseProductName;
+    }
+
+    public void setTables(List<TableMetadata> tables) {
+        Compaction.checkNotFrozen(frozen);
+        this.tables = tables;
+        this.tableIndex = null;
+        this.sortedTables = null;
+        this.contentTag = null;
+        this.relationships = null;
+    }
+
+    public void setIncompleteTables(List<String> incompleteTables) {
+        Compaction.checkNotFrozen(frozen);
+        this.incompleteTables = incompleteTables;
+        this.contentTag = null;
+    }
+
+    /**
+     * @return whether some tables are incomplete, see {@link #getIncompleteTables()}
+     */
+    public boolean isPartial() {
+        return !incompleteTables.isEmpty();
+    }
+
+    /**
+     * Compacts the snapshot and builds its indexes. Called once before a snapshot is
+     * published; neither it nor its tables may be modified afterwards, their setters throw an
+     * {@link IllegalStateException}.
+     *
+     * Strings repeated across the tables are interned through one dictionary and every list
+     * becomes an unmodifiable, right-sized copy. Tables carried over from a snapshot that was
+     * frozen before are kept as they are.
+     */
+    public void freeze() {
+        Compaction compaction = new Compaction();
+        databaseName = compaction.intern(databaseName);
+        databaseProductName = compaction.intern(databaseProductName);
+        incompleteTables = compaction.internAll(incompleteTables);
+        for (TableMetadata table : tables) {
+            table.freeze(compaction);
+        }
+        setTables(Compaction.compact(tables));
+        buildIndexes();
+        frozen = true;
+    }
+
+    /**
+     * Builds the table and column name indexes, the relationship graph and the content tags,
+     * so lookups on a published snapshot never have to build them
+     */
+    public void buildIndexes() {
+        for (TableMetadata table : tables) {
+            table.buildIndexes();
+        }
+        tableIndex = new NameIndex<>(tables, TableMetadata::getTableName);
+        sortedTables = new SortedNameIndex<>(tables, TableMetadata::getTableName);
+        relationships = new RelationshipGraph(tables);
+        contentTag = computeContentTag();
+    }
+
+    /**
+     * @return a fingerprint of the whole snapshot, combined from the tags of its tables
+     * @see TableMetadata#contentTag()
+     */
+    public String contentTag() {
+        String tag = contentTag;
+        if (tag == null) {
+            tag = computeContentTag();
+            contentTag = tag;
+        }
+        return tag;
+    }
+
+    /**
+     * @return the table with the given name ignoring case, or null if there is none
+     */
+    public TableMetadata findTable(String tableName) {
+        NameIndex<TableMetadata> index = tableIndex;
+        if (index == null) {
+            index = new NameIndex<>(tables, TableMetadata::getTableName);
+            tableIndex = index;
+        }
+        return index.get(tableName);
+    }
+
+    /**
+     * Pages through the tables sorted by name, see {@link SortedNameIndex#page}
+     * @return a view of the page, not a copy
+     */
+    public List<TableMetadata> findTables(String prefix, String after, int limit) {
+        SortedNameIndex<TableMetadata> index = sortedTables;
+        if (index == null) {
+            index = new SortedNameIndex<>(tables, TableMetadata::getTableName);
+            sortedTables = index;
+        }
+        return index.page(prefix, after, limit);
+    }
+
+    /**
+     * @return the foreign key relationships between the tables
+     */
+    public RelationshipGraph relationships() {
+        RelationshipGraph graph = relationships;
+        if (graph == null) {
+            graph = new RelationshipGraph(tables);
+            relationships = graph;
+        }
+        return graph;
+    }
+
+    private String computeContentTag() {
+        ContentHasher hasher = new ContentHasher()
+                .add(databaseName)
+                .add(databaseProductName)
+                .add((long) tables.size());
+        for (TableMetadata table : tables) {
+            hasher.add(table.contentTag());
+        }
+        return hasher.add(incompleteTables).toTag();
+    }
+}
@@ -1,6 +1,10 @@
 package com.dbmetagen.app.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
 public class ForeignKeyMetadata {
@@ -8,4 +12,37 @@ public class ForeignKeyMetadata {
     private String columnName;
     private String referenceTableName;
     private String referenceColumnName;
-} 
\ No newline at end of file
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient boolean frozen;
+
+    public void setConstraintName(String constraintName) {
+        Compaction.checkNotFrozen(frozen);
+        this.constraintName = constraintName;
+    }
+
+    public void setColumnName(String columnName) {
+        Compaction.checkNotFrozen(frozen);
+        this.columnName = columnName;
+    }
+
+    public void setReferenceTableName(String referenceTableName) {
+        Compaction.checkNotFrozen(frozen);
+        this.referenceTableName = referenceTableName;
+    }
+
+    public void setReferenceColumnName(String referenceColumnName) {
+        Compaction.checkNotFrozen(frozen);
+        this.referenceColumnName = referenceColumnName;
+    }
+
+    void freeze(Compaction compaction) {
+        constraintName = compaction.intern(constraintName);
+        columnName = compaction.intern(columnName);
+        referenceTableName = compaction.intern(referenceTableName);
+        referenceColumnName = compaction.intern(referenceColumnName);
+        frozen = true;
+    }
+}
@@ -1,6 +1,11 @@
 package com.dbmetagen.app.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
 import java.util.List;
 
 @Data
@@ -8,4 +13,30 @@ public class IndexMetadata {
     private String indexName;
     private boolean isUnique;
     private List<String> columnNames;
-} 
\ No newline at end of file
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient boolean frozen;
+
+    public void setIndexName(String indexName) {
+        Compaction.checkNotFrozen(frozen);
+        this.indexName = indexName;
+    }
+
+    public void setUnique(boolean isUnique) {
+        Compaction.checkNotFrozen(frozen);
+        this.isUnique = isUnique;
+    }
+
+    public void setColumnNames(List<String> columnNames) {
+        Compaction.checkNotFrozen(frozen);
+        this.columnNames = columnNames;
+    }
+
+    void freeze(Compaction compaction) {
+        indexName = compaction.intern(indexName);
+        columnNames = compaction.internAll(columnNames);
+        frozen = true;
+    }
+}
@@ -0,0 +1,72 @@
+package com.dbmetagen.app.model;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable case-insensitive lookup from a name to an element, built once from a list.
+ *
+ * Keys are hashed on their case-folded characters with open addressing, so a lookup
+ * neither folds the requested name into a new string nor allocates anything else.
+ * Names compare with {@link String#equalsIgnoreCase}; when two elements share a name
+ * the first one in the list wins.
+ */
+public final class NameIndex<T> {
+
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    public NameIndex(List<T> elements, Function<T, String> nameOf) {
+        int capacity = 2;
+        while (capacity < elements.size() * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+
+        for (T element : elements) {
+            String name = nameOf.apply(element);
+            if (name == null) {
+                continue;
+            }
+            int slot = hash(name) & mask;
+            while (keys[slot] != null && !keys[slot].equalsIgnoreCase(name)) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == null) {
+                keys[slot] = name;
+                values[slot] = element;
+            }
+        }
+    }
+
+    /**
+     * @return the element with the given name ignoring case, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String name) {
+        if (name == null) {
+            return null;
+        }
+        int slot = hash(name) & mask;
+        String key;
+        while ((key = keys[slot]) != null) {
+            if (key.equalsIgnoreCase(name)) {
+                return (T) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            // Same folding as equalsIgnoreCase, so equal names always land in the same bucket
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,282 @@
+package com.dbmetagen.app.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable graph of the foreign key relationships between the tables of a snapshot.
+ *
+ * Tables are numbered by their position in the snapshot. Both directions are held as
+ * compressed adjacency arrays: the tables referenced by table {@code i} are
+ * {@code targets[offsets[i]]} up to {@code targets[offsets[i + 1]]}, so listing the
+ * dependencies or dependents of a table costs time proportional to their number. The load
+ * order and the cycles are computed once when the graph is built.
+ *
+ * References to tables that are not in the snapshot, e.g. in another schema, are left out.
+ * A table that references itself is a cycle of its own but does not affect the load order.
+ */
+public final class RelationshipGraph {
+
+    /**
+     * Which edges a neighbourhood follows
+     */
+    public enum Direction {
+        /** From a table to the tables it references */
+        DEPENDENCIES,
+        /** From a table to the tables that reference it */
+        DEPENDENTS,
+        BOTH
+    }
+
+    private final TableMetadata[] tables;
+    private final NameIndex<Integer> ids;
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final int[] reverseOffsets;
+    private final int[] reverseTargets;
+    private final int[] loadOrder;
+    private final int[][] cycles;
+
+    public RelationshipGraph(List<TableMetadata> tables) {
+        int n = tables.size();
+        this.tables = tables.toArray(new TableMetadata[0]);
+        List<Integer> positions = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            positions.add(i);
+        }
+        this.ids = new NameIndex<>(positions, i -> this.tables[i].getTableName());
+
+        // Forward edges come out grouped by source, one per referenced table
+        forwardOffsets = new int[n + 1];
+        int[] targets = new int[Math.max(16, n)];
+        int edges = 0;
+        int[] lastSource = new int[n];
+        Arrays.fill(lastSource, -1);
+        for (int i = 0; i < n; i++) {
+            List<ForeignKeyMetadata> foreignKeys = this.tables[i].getForeignKeys();
+            if (foreignKeys != null) {
+                for (ForeignKeyMetadata fk : foreignKeys) {
+                    Integer target = ids.get(fk.getReferenceTableName());
+                    if (target == null || lastSource[target] == i) {
+                        continue;
+                    }
+                    lastSource[target] = i;
+                    if (edges == targets.length) {
+                        targets = Arrays.copyOf(targets, edges * 2);
+                    }
+                    targets[edges++] = target;
+                }
+            }
+            forwardOffsets[i + 1] = edges;
+        }
+        forwardTargets = Arrays.copyOf(targets, edges);
+
+        // Reverse edges by counting sort on the target
+        reverseOffsets = new int[n + 1];
+        for (int e = 0; e < edges; e++) {
+            reverseOffsets[forwardTargets[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        reverseTargets = new int[edges];
+        int[] next = Arrays.copyOf(reverseOffsets, n);
+        for (int i = 0; i < n; i++) {
+            for (int e = forwardOffsets[i]; e < forwardOffsets[i + 1]; e++) {
+                reverseTargets[next[forwardTargets[e]]++] = i;
+            }
+        }
+
+        List<int[]> found = new ArrayList<>();
+        loadOrder = components(found);
+        cycles = found.toArray(new int[0][]);
+    }
+
+    /**
+     * @return whether the table is in the snapshot, ignoring case
+     */
+    public boolean contains(String tableName) {
+        return ids.get(tableName) != null;
+    }
+
+    /**
+     * @return names of the tables the table references, or null if there is no such table
+     */
+    public List<String> dependencies(String tableName) {
+        Integer id = ids.get(tableName);
+        return id == null ? null : names(forwardTargets, forwardOffsets[id], forwardOffsets[id + 1]);
+    }
+
+    /**
+     * @return names of the tables that reference the table, or null if there is no such table
+     */
+    public List<String> dependents(String tableName) {
+        Integer id = ids.get(tableName);
+        return id == null ? null : names(reverseTargets, reverseOffsets[id], reverseOffsets[id + 1]);
+    }
+
+    /**
+     * Walks breadth-first from the table, following the edges of the given direction. Only
+     * the tables reached are visited, so the cost follows the size of the neighbourhood.
+     * @return names of the tables within the given number of hops, mapped to their distance
+     *         in the order they were reached, without the table itself; null if there is no such table
+     */
+    public Map<String, Integer> neighbourhood(String tableName, int hops, Direction direction) {
+        Integer start = ids.get(tableName);
+        if (start == null) {
+            return null;
+        }
+        Map<Integer, Integer> distances = new LinkedHashMap<>();
+        distances.put(start, 0);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int table = queue.poll();
+            int distance = distances.get(table);
+            if (distance == hops) {
+                continue;
+            }
+            if (direction != Direction.DEPENDENTS) {
+                visit(forwardTargets, forwardOffsets[table], forwardOffsets[table + 1], distance + 1, distances, queue);
+            }
+            if (direction != Direction.DEPENDENCIES) {
+                visit(reverseTargets, reverseOffsets[table], reverseOffsets[table + 1], distance + 1, distances, queue);
+            }
+        }
+
+        Map<String, Integer> neighbourhood = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : distances.entrySet()) {
+            if (entry.getKey() != (int) start) {
+                neighbourhood.put(tables[entry.getKey()].getTableName(), entry.getValue());
+            }
+        }
+        return neighbourhood;
+    }
+
+    /**
+     * @return every table name, referenced tables before the tables that reference them.
+     *         The tables of a cycle are adjacent, in snapshot order.
+     */
+    public List<String> loadOrder() {
+        return names(loadOrder, 0, loadOrder.length);
+    }
+
+    /**
+     * @return the groups of tables that reference each other through a chain of foreign keys,
+     *         and the tables that reference themselves, each in snapshot order
+     */
+    public List<List<String>> cycles() {
+        List<List<String>> names = new ArrayList<>(cycles.length);
+        for (int[] cycle : cycles) {
+            names.add(names(cycle, 0, cycle.length));
+        }
+        return names;
+    }
+
+    private static void visit(int[] targets, int from, int to, int distance,
+                              Map<Integer, Integer> distances, ArrayDeque<Integer> queue) {
+        for (int e = from; e < to; e++) {
+            if (distances.putIfAbsent(targets[e], distance) == null) {
+                queue.add(targets[e]);
+            }
+        }
+    }
+
+    private List<String> names(int[] ids, int from, int to) {
+        if (from == to) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            names.add(tables[ids[i]].getTableName());
+        }
+        return names;
+    }
+
+    /**
+     * Finds the strongly connected components with Tarjan's algorithm, iteratively so deep
+     * reference chains cannot overflow the stack. A component is complete only after every
+     * component it references, so the order they complete in is a load order.
+     * @param cycles receives the components that are cycles
+     * @return the tables in load order
+     */
+    private int[] components(List<int[]> cycles) {
+        int n = tables.length;
+        int[] index = new int[n];
+        Arrays.fill(index, -1);
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        int[] path = new int[n];
+        int[] pathEdge = new int[n];
+        int pathSize = 0;
+        int[] order = new int[n];
+        int ordered = 0;
+        int counter = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            index[root] = low[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            path[pathSize] = root;
+            pathEdge[pathSize++] = forwardOffsets[root];
+
+            while (pathSize > 0) {
+                int v = path[pathSize - 1];
+                if (pathEdge[pathSize - 1] < forwardOffsets[v + 1]) {
+                    int w = forwardTargets[pathEdge[pathSize - 1]++];
+                    if (index[w] == -1) {
+                        index[w] = low[w] = counter++;
+                        stack[stackSize++] = w;
+                        onStack[w] = true;
+                        path[pathSize] = w;
+                        pathEdge[pathSize++] = forwardOffsets[w];
+                    } else if (onStack[w]) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                pathSize--;
+                if (pathSize > 0) {
+                    int parent = path[pathSize - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+                if (low[v] != index[v]) {
+                    continue;
+                }
+
+                int first = ordered;
+                int w;
+                do {
+                    w = stack[--stackSize];
+                    onStack[w] = false;
+                    order[ordered++] = w;
+                } while (w != v);
+                Arrays.sort(order, first, ordered);
+                if (ordered - first > 1 || referencesItself(v)) {
+                    cycles.add(Arrays.copyOfRange(order, first, ordered));
+                }
+            }
+        }
+        return order;
+    }
+
+    private boolean referencesItself(int table) {
+        for (int e = forwardOffsets[table]; e < forwardOffsets[table + 1]; e++) {
+            if (forwardTargets[e] == table) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
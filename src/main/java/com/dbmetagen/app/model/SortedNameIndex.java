@@ -0,0 +1,79 @@
+package com.dbmetagen.app.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable list of elements sorted by name, ignoring case first and then by exact name, for
+ * paging through them in a stable order.
+ *
+ * A page is located by binary search and returned as a view of the sorted list, so a request
+ * costs time in the size of the page, not of the list. Since names that share a prefix
+ * ignoring case are adjacent in this order, prefix filtering needs no scan either.
+ */
+public final class SortedNameIndex<T> {
+
+    /** The page order, total over distinct names */
+    public static final Comparator<String> ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private final List<T> sorted;
+    private final Function<T, String> nameOf;
+
+    public SortedNameIndex(List<T> elements, Function<T, String> nameOf) {
+        List<T> copy = new ArrayList<>(elements.size());
+        for (T element : elements) {
+            if (nameOf.apply(element) != null) {
+                copy.add(element);
+            }
+        }
+        copy.sort(Comparator.comparing(nameOf, ORDER));
+        this.sorted = Collections.unmodifiableList(copy);
+        this.nameOf = nameOf;
+    }
+
+    /**
+     * @param prefix only elements whose name starts with it ignoring case, null for all
+     * @param after only elements ordered after this name, null to start at the first one
+     * @param limit maximum number of elements returned
+     * @return a view of the matching elements in page order
+     */
+    public List<T> page(String prefix, String after, int limit) {
+        int from = 0;
+        if (prefix != null && !prefix.isEmpty()) {
+            from = firstNotBefore(prefix, String.CASE_INSENSITIVE_ORDER, false);
+        }
+        if (after != null) {
+            from = Math.max(from, firstNotBefore(after, ORDER, true));
+        }
+
+        int to = from;
+        while (to < sorted.size() && to - from < limit
+                && (prefix == null || nameOf.apply(sorted.get(to)).regionMatches(true, 0, prefix, 0, prefix.length()))) {
+            to++;
+        }
+        return sorted.subList(from, to);
+    }
+
+    /**
+     * @param strict whether elements equal to the name are skipped too
+     * @return the index of the first element not ordered before the name
+     */
+    private int firstNotBefore(String name, Comparator<String> order, boolean strict) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comparison = order.compare(nameOf.apply(sorted.get(mid)), name);
+            if (comparison < 0 || (strict && comparison == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,6 +1,11 @@
 package com.dbmetagen.app.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
 import java.util.List;
 
 @Data
@@ -10,4 +15,154 @@ public class TableMetadata {
     private List<ForeignKeyMetadata> foreignKeys;
     private List<IndexMetadata> indexes;
     private String primaryKey;
-} 
\ No newline at end of file
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile NameIndex<ColumnMetadata> columnIndex;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile String contentTag;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient boolean frozen;
+
+    public void setTableName(String tableName) {
+        Compaction.checkNotFrozen(frozen);
+        this.tableName = tableName;
+    }
+
+    public void setColumns(List<ColumnMetadata> columns) {
+        Compaction.checkNotFrozen(frozen);
+        this.columns = columns;
+        this.columnIndex = null;
+        this.contentTag = null;
+    }
+
+    public void setForeignKeys(List<ForeignKeyMetadata> foreignKeys) {
+        Compaction.checkNotFrozen(frozen);
+        this.foreignKeys = foreignKeys;
+    }
+
+    public void setIndexes(List<IndexMetadata> indexes) {
+        Compaction.checkNotFrozen(frozen);
+        this.indexes = indexes;
+    }
+
+    public void setPrimaryKey(String primaryKey) {
+        Compaction.checkNotFrozen(frozen);
+        this.primaryKey = primaryKey;
+    }
+
+    /**
+     * Interns the table's strings and right-sizes its lists into unmodifiable ones, unless a
+     * snapshot it was carried over from already did
+     */
+    void freeze(Compaction compaction) {
+        if (frozen) {
+            return;
+        }
+        tableName = compaction.intern(tableName);
+        primaryKey = compaction.intern(primaryKey);
+        if (columns != null) {
+            for (ColumnMetadata column : columns) {
+                column.freeze(compaction);
+            }
+            setColumns(Compaction.compact(columns));
+        }
+        if (foreignKeys != null) {
+            for (ForeignKeyMetadata fk : foreignKeys) {
+                fk.freeze(compaction);
+            }
+            foreignKeys = Compaction.compact(foreignKeys);
+        }
+        if (indexes != null) {
+            for (IndexMetadata index : indexes) {
+                index.freeze(compaction);
+            }
+            indexes = Compaction.compact(indexes);
+        }
+        frozen = true;
+    }
+
+    /**
+     * Builds the column name index and the content tag unless they are already built
+     */
+    public void buildIndexes() {
+        if (columnIndex == null) {
+            columnIndex = new NameIndex<>(columns, ColumnMetadata::getColumnName);
+        }
+        if (contentTag == null) {
+            contentTag = computeContentTag();
+        }
+    }
+
+    /**
+     * @return a fingerprint of everything the table serializes to, e.g. for an ETag. Tables of
+     *         a published snapshot are not modified, so it is computed once with the indexes.
+     */
+    public String contentTag() {
+        String tag = contentTag;
+        if (tag == null) {
+            tag = computeContentTag();
+            contentTag = tag;
+        }
+        return tag;
+    }
+
+    /**
+     * @return the column with the given name ignoring case, or null if there is none
+     */
+    public ColumnMetadata findColumn(String columnName) {
+        NameIndex<ColumnMetadata> index = columnIndex;
+        if (index == null) {
+            index = new NameIndex<>(columns, ColumnMetadata::getColumnName);
+            columnIndex = index;
+        }
+        return index.get(columnName);
+    }
+
+    private String computeContentTag() {
+        ContentHasher hasher = new ContentHasher()
+                .add(tableName)
+                .add(primaryKey);
+        if (columns != null) {
+            hasher.add((long) columns.size());
+            for (ColumnMetadata column : columns) {
+                hasher.add(column.getColumnName())
+                        .add(column.getDataType())
+                        .add(column.getSqlType())
+                        .add(column.getSize())
+                        .add(column.getDecimalDigits())
+                        .add(column.isUnsigned())
+                        .add(column.isNullable())
+                        .add(column.isPrimaryKey())
+                        .add(column.isAutoIncrement())
+                        .add(column.getDefaultValue())
+                        .add(column.getJavaType());
+            }
+        }
+        if (foreignKeys != null) {
+            hasher.add((long) foreignKeys.size());
+            for (ForeignKeyMetadata fk : foreignKeys) {
+                hasher.add(fk.getConstraintName())
+                        .add(fk.getColumnName())
+                        .add(fk.getReferenceTableName())
+                        .add(fk.getReferenceColumnName());
+            }
+        }
+        if (indexes != null) {
+            hasher.add((long) indexes.size());
+            for (IndexMetadata index : indexes) {
+                hasher.add(index.getIndexName())
+                        .add(index.isUnique())
+                        .add(index.getColumnNames());
+            }
+        }
+        return hasher.toTag();
+    }
+}
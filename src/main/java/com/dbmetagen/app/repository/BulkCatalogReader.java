@@ -0,0 +1,294 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.ForeignKeyMetadata;
+import com.dbmetagen.app.model.IndexMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.repository.CrawlMetrics.Mode;
+import com.dbmetagen.app.repository.CrawlMetrics.Phase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the metadata of a whole schema from the vendor's catalog views in a fixed number of
+ * set-based queries instead of four {@code DatabaseMetaData} calls per table. Rows are joined
+ * to their tables in memory by table name, and the resulting {@link TableMetadata} objects
+ * match what the per-table JDBC crawl produces.
+ *
+ * Subclasses supply the queries. Each takes the schema name as its only parameter and labels
+ * its result columns as documented on the method.
+ */
+abstract class BulkCatalogReader {
+
+    private final Connection connection;
+    private final String schema;
+    private final CrawlMetrics metrics;
+    private CrawlBudget budget;
+
+    BulkCatalogReader(Connection connection, String schema, CrawlMetrics metrics) {
+        this.connection = connection;
+        this.schema = schema;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return base tables of the schema as {@code TABLE_NAME}, ordered by name like {@code getTables}
+     */
+    abstract String tablesQuery();
+
+    /**
+     * @return columns of the schema, ordered by table and ordinal position; the rows are read by {@link #readColumn}
+     */
+    abstract String columnsQuery();
+
+    /**
+     * Maps a row of the {@link #columnsQuery()} to a column, without the primary key flag
+     */
+    abstract ColumnMetadata readColumn(ResultSet rs) throws SQLException;
+
+    /**
+     * @return primary key columns as {@code TABLE_NAME, COLUMN_NAME}
+     */
+    abstract String primaryKeysQuery();
+
+    /**
+     * @return foreign key columns as {@code TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME, REFERENCED_TABLE_NAME,
+     *         REFERENCED_COLUMN_NAME}, in the order of {@code getImportedKeys}
+     */
+    abstract String foreignKeysQuery();
+
+    /**
+     * @return index columns as {@code TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME}, ordered by position
+     */
+    abstract String indexesQuery();
+
+    /**
+     * Reads every base table of the schema together with its columns, keys and indexes
+     */
+    List<TableMetadata> readTables() throws SQLException {
+        return readTables(null);
+    }
+
+    /**
+     * Reads the given base tables of the schema together with their columns, keys and indexes.
+     * The queries still cover the whole schema, and the rows of other tables are skipped.
+     * @param tableNames the tables to read, null for all of them
+     * @return the tables that exist, in the order of {@link #readTables()}
+     */
+    List<TableMetadata> readTables(Collection<String> tableNames) throws SQLException {
+        Map<String, TableMetadata> tables = readTableNames(tableNames == null ? null : new HashSet<>(tableNames));
+
+        readColumns(tables);
+        readPrimaryKeys(tables);
+        readForeignKeys(tables);
+        readIndexes(tables);
+
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * Fingerprints every base table. This implementation takes the content tag of the
+     * definitions read by {@link #readTables()}, a 64-bit hash of every column, key and index;
+     * readers of databases that can checksum on the server override it.
+     * @return fingerprints keyed by table name, in the same order as {@link #readTables()}
+     */
+    Map<String, String> readFingerprints() throws SQLException {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (TableMetadata table : readTables()) {
+            fingerprints.put(table.getTableName(), table.contentTag());
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Limits the queries read from now on to the budget
+     */
+    void setBudget(CrawlBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @return a statement for the query with the schema bound to its parameter and the budget's query timeout
+     * @throws java.sql.SQLTimeoutException if the budget is exhausted
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        int timeoutSeconds = budget != null ? budget.queryTimeoutSeconds() : 0;
+        PreparedStatement ps = connection.prepareStatement(sql);
+        ps.setString(1, schema);
+        if (timeoutSeconds > 0) {
+            ps.setQueryTimeout(timeoutSeconds);
+        }
+        return ps;
+    }
+
+    /**
+     * Runs the {@link #tablesQuery()}
+     */
+    List<String> readTableNameList() throws SQLException {
+        List<String> tableNames = new ArrayList<>();
+
+        long start = System.nanoTime();
+        try (PreparedStatement ps = prepare(tablesQuery()); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                tableNames.add(rs.getString("TABLE_NAME"));
+            }
+        } finally {
+            metrics.recordQuery(Mode.BULK, Phase.TABLES, start);
+        }
+
+        return tableNames;
+    }
+
+    /**
+     * Records a fingerprint query that started at the given {@link System#nanoTime()}
+     */
+    void recordFingerprintQuery(long startNanos) {
+        metrics.recordQuery(Mode.BULK, Phase.FINGERPRINTS, startNanos);
+    }
+
+    private Map<String, TableMetadata> readTableNames(Set<String> wanted) throws SQLException {
+        Map<String, TableMetadata> tables = new LinkedHashMap<>();
+        for (String tableName : readTableNameList()) {
+            if (wanted != null && !wanted.contains(tableName)) {
+                continue;
+            }
+            TableMetadata table = new TableMetadata();
+            table.setTableName(tableName);
+            table.setColumns(new ArrayList<>());
+            table.setForeignKeys(new ArrayList<>());
+            table.setIndexes(new ArrayList<>());
+            tables.put(tableName, table);
+        }
+        return tables;
+    }
+
+    private void readColumns(Map<String, TableMetadata> tables) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement ps = prepare(columnsQuery()); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                TableMetadata table = tables.get(rs.getString("TABLE_NAME"));
+                if (table == null) {
+                    continue; // Column of a view
+                }
+                table.getColumns().add(readColumn(rs));
+            }
+        } finally {
+            metrics.recordQuery(Mode.BULK, Phase.COLUMNS, start);
+        }
+    }
+
+    private void readPrimaryKeys(Map<String, TableMetadata> tables) throws SQLException {
+        // Drivers report primary key columns sorted by name and the crawler keeps the first one
+        Map<String, String> primaryKeys = new HashMap<>();
+
+        long start = System.nanoTime();
+        try (PreparedStatement ps = prepare(primaryKeysQuery()); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String columnName = rs.getString("COLUMN_NAME");
+                primaryKeys.merge(rs.getString("TABLE_NAME"), columnName,
+                        (current, candidate) -> candidate.compareTo(current) < 0 ? candidate : current);
+            }
+        } finally {
+            metrics.recordQuery(Mode.BULK, Phase.PRIMARY_KEYS, start);
+        }
+
+        for (Map.Entry<String, String> entry : primaryKeys.entrySet()) {
+            TableMetadata table = tables.get(entry.getKey());
+            if (table == null) {
+                continue;
+            }
+
+            table.setPrimaryKey(entry.getValue());
+            for (ColumnMetadata column : table.getColumns()) {
+                if (column.getColumnName().equals(entry.getValue())) {
+                    column.setPrimaryKey(true);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void readForeignKeys(Map<String, TableMetadata> tables) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement ps = prepare(foreignKeysQuery()); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                TableMetadata table = tables.get(rs.getString("TABLE_NAME"));
+                if (table == null) {
+                    continue;
+                }
+
+                ForeignKeyMetadata fk = new ForeignKeyMetadata();
+                fk.setConstraintName(rs.getString("CONSTRAINT_NAME"));
+                fk.setColumnName(rs.getString("COLUMN_NAME"));
+                fk.setReferenceTableName(rs.getString("REFERENCED_TABLE_NAME"));
+                fk.setReferenceColumnName(rs.getString("REFERENCED_COLUMN_NAME"));
+
+                table.getForeignKeys().add(fk);
+            }
+        } finally {
+            metrics.recordQuery(Mode.BULK, Phase.IMPORTED_KEYS, start);
+        }
+    }
+
+    private void readIndexes(Map<String, TableMetadata> tables) throws SQLException {
+        // Grouped per table in a HashMap, like the per-table crawl, so indexes come out in the same order
+        Map<String, Map<String, IndexMetadata>> indexesByTable = new HashMap<>();
+
+        long start = System.nanoTime();
+        try (PreparedStatement ps = prepare(indexesQuery()); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                String tableName = rs.getString("TABLE_NAME");
+                String indexName = rs.getString("INDEX_NAME");
+                String columnName = rs.getString("COLUMN_NAME");
+
+                if (indexName == null || !tables.containsKey(tableName)) {
+                    continue;
+                }
+
+                Map<String, IndexMetadata> indexMap = indexesByTable.computeIfAbsent(tableName, name -> new HashMap<>());
+                IndexMetadata index = indexMap.get(indexName);
+                if (index == null) {
+                    index = new IndexMetadata();
+                    index.setIndexName(indexName);
+                    index.setUnique(!rs.getBoolean("NON_UNIQUE"));
+                    index.setColumnNames(new ArrayList<>());
+                    indexMap.put(indexName, index);
+                }
+
+                if (columnName != null) {
+                    index.getColumnNames().add(columnName);
+                }
+            }
+        } finally {
+            metrics.recordQuery(Mode.BULK, Phase.INDEX_INFO, start);
+        }
+
+        for (Map.Entry<String, Map<String, IndexMetadata>> entry : indexesByTable.entrySet()) {
+            tables.get(entry.getKey()).setIndexes(new ArrayList<>(entry.getValue().values()));
+        }
+    }
+
+    /**
+     * @return the first of the size columns that is not null, 0 if all are
+     */
+    static int firstSize(ResultSet rs, String... sizeColumns) throws SQLException {
+        for (String sizeColumn : sizeColumns) {
+            long size = rs.getLong(sizeColumn);
+            if (!rs.wasNull()) {
+                return (int) Math.min(size, Integer.MAX_VALUE);
+            }
+        }
+        return 0;
+    }
+}
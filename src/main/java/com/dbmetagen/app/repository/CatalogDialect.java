@@ -0,0 +1,29 @@
+package com.dbmetagen.app.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Vendor specifics of a crawl: where the crawled tables live, and a reader that pulls the
+ * whole schema from the vendor's catalog views in a few bulk queries. The dialect of a
+ * connection is chosen by {@link CatalogDialects#forProductName} from the product name the
+ * driver reports.
+ */
+interface CatalogDialect {
+
+    /**
+     * @param databaseProductName as reported by {@code DatabaseMetaData#getDatabaseProductName()}
+     */
+    boolean supports(String databaseProductName);
+
+    /**
+     * @return the catalog and schema holding the tables of the database the connection is opened on
+     */
+    CatalogScope scope(Connection connection) throws SQLException;
+
+    /**
+     * @return a reader of the whole scope, or null if tables can only be crawled one by one
+     *         through {@code DatabaseMetaData}
+     */
+    BulkCatalogReader bulkReader(Connection connection, CatalogScope scope, CrawlMetrics metrics);
+}
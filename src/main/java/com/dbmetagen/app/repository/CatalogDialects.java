@@ -0,0 +1,32 @@
+package com.dbmetagen.app.repository;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The known dialects. A new database is supported by implementing {@link CatalogDialect}
+ * and adding it here, ahead of the generic fallback.
+ */
+final class CatalogDialects {
+
+    private static final List<CatalogDialect> DIALECTS = Arrays.asList(
+            new MySqlDialect(),
+            new PostgreSqlDialect(),
+            new H2Dialect(),
+            new GenericJdbcDialect());
+
+    private CatalogDialects() {
+    }
+
+    /**
+     * @return the first dialect supporting the product, the generic one if no other does
+     */
+    static CatalogDialect forProductName(String databaseProductName) {
+        for (CatalogDialect dialect : DIALECTS) {
+            if (dialect.supports(databaseProductName)) {
+                return dialect;
+            }
+        }
+        throw new IllegalStateException("No catalog dialect for " + databaseProductName);
+    }
+}
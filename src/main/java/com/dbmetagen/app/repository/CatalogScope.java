@@ -0,0 +1,13 @@
+package com.dbmetagen.app.repository;
+
+import lombok.Value;
+
+/**
+ * Catalog and schema arguments of the {@code DatabaseMetaData} calls of a crawl, null where
+ * the database should not be filtered by them
+ */
+@Value
+class CatalogScope {
+    String catalog;
+    String schema;
+}
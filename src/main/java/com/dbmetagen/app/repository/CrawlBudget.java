@@ -0,0 +1,96 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.config.ConfigSnapshot;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time limits of one crawl: a deadline after which no further query or table is started, and
+ * a timeout for each query, which is also capped by the time left until the deadline.
+ *
+ * Statements the crawler prepares itself get the timeout as their query timeout. The
+ * {@code DatabaseMetaData} calls have no statement to set it on, so it is applied to the
+ * connection as its network timeout instead; a call that runs into it typically breaks the
+ * connection, which must then not be used for further tables.
+ */
+final class CrawlBudget {
+
+    /** Drivers use the executor to apply the timeout, which needs no thread of its own */
+    private static final Executor DIRECT = Runnable::run;
+
+    private final long deadlineNanos;
+    private final boolean hasDeadline;
+    private final long queryTimeoutMs;
+    private volatile boolean networkTimeoutUnsupported;
+
+    private CrawlBudget(long crawlTimeoutSeconds, long queryTimeoutSeconds) {
+        this.hasDeadline = crawlTimeoutSeconds > 0;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(crawlTimeoutSeconds);
+        this.queryTimeoutMs = TimeUnit.SECONDS.toMillis(queryTimeoutSeconds);
+    }
+
+    /**
+     * @return the budget of a crawl starting now, with the configured deadline and query timeout
+     */
+    static CrawlBudget forCrawl(ConfigSnapshot config) {
+        return new CrawlBudget(config.getCrawlTimeoutSeconds(), config.getQueryTimeoutSeconds());
+    }
+
+    /**
+     * @return a budget with the configured query timeout only
+     */
+    static CrawlBudget forQueries(ConfigSnapshot config) {
+        return new CrawlBudget(0, config.getQueryTimeoutSeconds());
+    }
+
+    boolean isExhausted() {
+        return hasDeadline && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return how long the next query may take in milliseconds, 0 for no limit
+     * @throws SQLTimeoutException if the deadline has passed
+     */
+    long queryTimeoutMs() throws SQLTimeoutException {
+        if (!hasDeadline) {
+            return queryTimeoutMs;
+        }
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remainingMs <= 0) {
+            throw new SQLTimeoutException("Crawl time budget exhausted");
+        }
+        return queryTimeoutMs > 0 ? Math.min(queryTimeoutMs, remainingMs) : remainingMs;
+    }
+
+    /**
+     * @return the query timeout in whole seconds as {@link java.sql.Statement#setQueryTimeout} takes it, 0 for no limit
+     * @throws SQLTimeoutException if the deadline has passed
+     */
+    int queryTimeoutSeconds() throws SQLTimeoutException {
+        long timeoutMs = queryTimeoutMs();
+        return (int) Math.min(Integer.MAX_VALUE, (timeoutMs + 999) / 1000);
+    }
+
+    /**
+     * Limits the calls on the connection to the query timeout. Does nothing if there is no
+     * limit or the driver does not support network timeouts. The pool resets the timeout
+     * when the connection is returned.
+     * @throws SQLTimeoutException if the deadline has passed
+     */
+    void limit(Connection connection) throws SQLException {
+        long timeoutMs = queryTimeoutMs();
+        if (timeoutMs == 0 || networkTimeoutUnsupported) {
+            return;
+        }
+        try {
+            connection.setNetworkTimeout(DIRECT, (int) Math.min(Integer.MAX_VALUE, timeoutMs));
+        } catch (SQLFeatureNotSupportedException e) {
+            networkTimeoutUnsupported = true;
+        }
+    }
+}
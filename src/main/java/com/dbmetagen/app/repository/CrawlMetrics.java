@@ -0,0 +1,77 @@
+package com.dbmetagen.app.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of the catalog queries a crawl issues, by phase and crawl mode.
+ *
+ * Every recording is one round trip to the database, so the timer counts are the number
+ * of round trips per phase. Per-table extraction time is recorded as a histogram without
+ * a table tag, which would not scale to large schemas; tables slower than the configured
+ * threshold are logged by name instead.
+ */
+class CrawlMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlMetrics.class);
+
+    enum Phase {
+        TABLES, COLUMNS, PRIMARY_KEYS, IMPORTED_KEYS, INDEX_INFO, FINGERPRINTS
+    }
+
+    enum Mode {
+        JDBC, BULK
+    }
+
+    private final Timer[][] queryTimers = new Timer[Mode.values().length][Phase.values().length];
+    private final Timer tableTimer;
+    private final Counter incompleteTables;
+
+    CrawlMetrics(MeterRegistry registry) {
+        for (Mode mode : Mode.values()) {
+            for (Phase phase : Phase.values()) {
+                queryTimers[mode.ordinal()][phase.ordinal()] = Timer.builder("dbmetagen.crawl.query")
+                        .description("Latency of catalog queries, one per round trip")
+                        .tag("mode", mode.name().toLowerCase())
+                        .tag("phase", phase.name().toLowerCase())
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+        }
+        this.tableTimer = Timer.builder("dbmetagen.crawl.table")
+                .description("Time to extract the metadata of one table")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.incompleteTables = Counter.builder("dbmetagen.crawl.tables.incomplete")
+                .description("Tables left out of a crawl because they failed or ran out of the crawl time budget")
+                .register(registry);
+    }
+
+    /**
+     * Records one query that started at the given {@link System#nanoTime()}
+     */
+    void recordQuery(Mode mode, Phase phase, long startNanos) {
+        queryTimers[mode.ordinal()][phase.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the extraction of a table that started at the given {@link System#nanoTime()}
+     * @param slowThresholdMs tables taking longer are logged, 0 to log none
+     */
+    void recordTable(String tableName, long startNanos, long slowThresholdMs) {
+        long nanos = System.nanoTime() - startNanos;
+        tableTimer.record(nanos, TimeUnit.NANOSECONDS);
+        if (slowThresholdMs > 0 && nanos > TimeUnit.MILLISECONDS.toNanos(slowThresholdMs)) {
+            log.warn("Slow table extraction: {} took {} ms", tableName, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+    void tablesIncomplete(int count) {
+        incompleteTables.increment(count);
+    }
+}
@@ -1,7 +1,38 @@
 package com.dbmetagen.app.repository;
 
 import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
  
+/**
+ * Extracts metadata from a configured datasource, identified by its id
+ */
 public interface DatabaseMetadataRepository {
-    DatabaseMetadata extractDatabaseMetadata();
+    /**
+     * Crawls every table. Tables that could not be extracted are listed in
+     * {@link DatabaseMetadata#getIncompleteTables()} instead of failing the crawl.
+     */
+    DatabaseMetadata extractDatabaseMetadata(String dataSourceId);
+
+    /**
+     * @return the name of the catalog that is crawled, without connecting to the database
+     */
+    String getDatabaseName(String dataSourceId);
+
+    /**
+     * Computes a cheap fingerprint of every table's definition without extracting it.
+     * @return fingerprints keyed by table name, in the order the full crawl returns tables
+     */
+    Map<String, String> fingerprintTables(String dataSourceId);
+
+    /**
+     * Extracts the metadata of the given tables only
+     * @param bulkCrawl whether to read them with bulk catalog queries where the database supports
+     *        them, like the snapshot they are patched into, see {@code ConfigSnapshot#isBulkCrawl()}
+     * @return the tables that could be extracted, without those that failed
+     */
+    List<TableMetadata> extractTables(String dataSourceId, Collection<String> tableNames, boolean bulkCrawl);
 } 
\ No newline at end of file
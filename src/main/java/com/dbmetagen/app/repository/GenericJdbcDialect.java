@@ -0,0 +1,26 @@
+package com.dbmetagen.app.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Any other database: the connection's catalog, every schema, and only the per-table
+ * {@code DatabaseMetaData} crawl
+ */
+class GenericJdbcDialect implements CatalogDialect {
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return true;
+    }
+
+    @Override
+    public CatalogScope scope(Connection connection) throws SQLException {
+        return new CatalogScope(connection.getCatalog(), null);
+    }
+
+    @Override
+    public BulkCatalogReader bulkReader(Connection connection, CatalogScope scope, CrawlMetrics metrics) {
+        return null;
+    }
+}
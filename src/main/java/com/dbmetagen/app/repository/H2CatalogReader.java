@@ -0,0 +1,175 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a whole schema of an embedded H2 2.x database from its INFORMATION_SCHEMA, which is
+ * used for tests and benchmarks in place of a database server. Fingerprints are hashed from
+ * the definitions read, since H2 has no aggregate checksum function.
+ *
+ * Columns are read as the driver's {@code getColumns} reports them, except that array, enum
+ * and row types are named by their kind, like {@code ARRAY}, without their element types or values.
+ */
+class H2CatalogReader extends BulkCatalogReader {
+
+    /** {@link Types} codes the H2 driver reports for each data type */
+    private static final Map<String, Integer> SQL_TYPES = new HashMap<>();
+
+    static {
+        SQL_TYPES.put("BOOLEAN", Types.BOOLEAN);
+        SQL_TYPES.put("TINYINT", Types.TINYINT);
+        SQL_TYPES.put("SMALLINT", Types.SMALLINT);
+        SQL_TYPES.put("INTEGER", Types.INTEGER);
+        SQL_TYPES.put("BIGINT", Types.BIGINT);
+        SQL_TYPES.put("NUMERIC", Types.NUMERIC);
+        SQL_TYPES.put("DECIMAL", Types.DECIMAL);
+        SQL_TYPES.put("DECFLOAT", Types.NUMERIC);
+        SQL_TYPES.put("REAL", Types.REAL);
+        SQL_TYPES.put("DOUBLE PRECISION", Types.DOUBLE);
+        SQL_TYPES.put("FLOAT", Types.FLOAT);
+        SQL_TYPES.put("CHARACTER", Types.CHAR);
+        SQL_TYPES.put("CHARACTER VARYING", Types.VARCHAR);
+        SQL_TYPES.put("VARCHAR_IGNORECASE", Types.VARCHAR);
+        SQL_TYPES.put("CHARACTER LARGE OBJECT", Types.CLOB);
+        SQL_TYPES.put("BINARY", Types.BINARY);
+        SQL_TYPES.put("BINARY VARYING", Types.VARBINARY);
+        SQL_TYPES.put("BINARY LARGE OBJECT", Types.BLOB);
+        SQL_TYPES.put("DATE", Types.DATE);
+        SQL_TYPES.put("TIME", Types.TIME);
+        SQL_TYPES.put("TIME WITH TIME ZONE", Types.TIME_WITH_TIMEZONE);
+        SQL_TYPES.put("TIMESTAMP", Types.TIMESTAMP);
+        SQL_TYPES.put("TIMESTAMP WITH TIME ZONE", Types.TIMESTAMP_WITH_TIMEZONE);
+        SQL_TYPES.put("UUID", Types.BINARY);
+        SQL_TYPES.put("ARRAY", Types.ARRAY);
+        SQL_TYPES.put("JAVA_OBJECT", Types.JAVA_OBJECT);
+    }
+
+    private static final String TABLES_QUERY =
+            "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+            "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE' " +
+            "ORDER BY TABLE_NAME";
+
+    private static final String COLUMNS_QUERY =
+            "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, DECLARED_DATA_TYPE, CHARACTER_MAXIMUM_LENGTH, " +
+            "NUMERIC_PRECISION, NUMERIC_SCALE, DATETIME_PRECISION, INTERVAL_TYPE, INTERVAL_PRECISION, " +
+            "MAXIMUM_CARDINALITY, IS_NULLABLE, COLUMN_DEFAULT, IS_IDENTITY " +
+            "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = ? " +
+            "ORDER BY TABLE_NAME, ORDINAL_POSITION";
+
+    private static final String PRIMARY_KEYS_QUERY =
+            "SELECT k.TABLE_NAME, k.COLUMN_NAME FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS c " +
+            "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k " +
+            "ON k.CONSTRAINT_SCHEMA = c.CONSTRAINT_SCHEMA AND k.CONSTRAINT_NAME = c.CONSTRAINT_NAME " +
+            "WHERE c.TABLE_SCHEMA = ? AND c.CONSTRAINT_TYPE = 'PRIMARY KEY'";
+
+    private static final String FOREIGN_KEYS_QUERY =
+            "SELECT k.TABLE_NAME, k.CONSTRAINT_NAME, k.COLUMN_NAME, " +
+            "u.TABLE_NAME AS REFERENCED_TABLE_NAME, u.COLUMN_NAME AS REFERENCED_COLUMN_NAME " +
+            "FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS r " +
+            "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE k " +
+            "ON k.CONSTRAINT_SCHEMA = r.CONSTRAINT_SCHEMA AND k.CONSTRAINT_NAME = r.CONSTRAINT_NAME " +
+            "JOIN INFORMATION_SCHEMA.KEY_COLUMN_USAGE u " +
+            "ON u.CONSTRAINT_SCHEMA = r.UNIQUE_CONSTRAINT_SCHEMA AND u.CONSTRAINT_NAME = r.UNIQUE_CONSTRAINT_NAME " +
+            "AND u.ORDINAL_POSITION = k.POSITION_IN_UNIQUE_CONSTRAINT " +
+            "WHERE r.CONSTRAINT_SCHEMA = ? " +
+            "ORDER BY k.TABLE_NAME, u.TABLE_SCHEMA, u.TABLE_NAME, k.ORDINAL_POSITION";
+
+    private static final String INDEXES_QUERY =
+            "SELECT c.TABLE_NAME, c.INDEX_NAME, " +
+            "CASE WHEN i.INDEX_TYPE_NAME IN ('PRIMARY KEY', 'UNIQUE INDEX') THEN 0 ELSE 1 END AS NON_UNIQUE, " +
+            "c.COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS c " +
+            "JOIN INFORMATION_SCHEMA.INDEXES i ON i.INDEX_SCHEMA = c.INDEX_SCHEMA AND i.INDEX_NAME = c.INDEX_NAME " +
+            "WHERE c.TABLE_SCHEMA = ? " +
+            "ORDER BY c.TABLE_NAME, c.INDEX_NAME, c.ORDINAL_POSITION";
+
+    H2CatalogReader(Connection connection, String schema, CrawlMetrics metrics) {
+        super(connection, schema, metrics);
+    }
+
+    @Override
+    String tablesQuery() {
+        return TABLES_QUERY;
+    }
+
+    @Override
+    String columnsQuery() {
+        return COLUMNS_QUERY;
+    }
+
+    @Override
+    ColumnMetadata readColumn(ResultSet rs) throws SQLException {
+        ColumnMetadata column = new ColumnMetadata();
+        column.setColumnName(rs.getString("COLUMN_NAME"));
+        String typeName = rs.getString("DATA_TYPE");
+        // DECIMAL and FLOAT are stored as NUMERIC and REAL or DOUBLE PRECISION
+        String declaredTypeName = rs.getString("DECLARED_DATA_TYPE");
+        if ("DECIMAL".equals(declaredTypeName)) {
+            typeName = declaredTypeName;
+        } else if ("INTERVAL".equals(typeName)) {
+            typeName = typeName + " " + rs.getString("INTERVAL_TYPE");
+        }
+        column.setDataType(typeName);
+        column.setSqlType(SQL_TYPES.getOrDefault(declaredTypeName != null ? declaredTypeName : typeName, Types.OTHER));
+        int fractionalSeconds = rs.getInt("DATETIME_PRECISION");
+        // Date, time and interval types have their fractional seconds as their scale
+        boolean temporal = !rs.wasNull();
+        Integer fixedSize = fixedSize(typeName, fractionalSeconds);
+        column.setSize(fixedSize != null ? fixedSize
+                : firstSize(rs, "CHARACTER_MAXIMUM_LENGTH", "NUMERIC_PRECISION", "MAXIMUM_CARDINALITY", "INTERVAL_PRECISION"));
+        column.setDecimalDigits(temporal ? fractionalSeconds : rs.getInt("NUMERIC_SCALE"));
+        column.setNullable("YES".equals(rs.getString("IS_NULLABLE")));
+        column.setDefaultValue(rs.getString("COLUMN_DEFAULT"));
+        column.setAutoIncrement("YES".equals(rs.getString("IS_IDENTITY")));
+        return column;
+    }
+
+    /**
+     * Derives the size the H2 driver reports in {@code getColumns} for a type whose size is
+     * not in the catalog: the length of its text form for date and time types, including the
+     * fractional digits of the seconds if it has any
+     * @return the size, null if the catalog has the size of the type
+     */
+    static Integer fixedSize(String typeName, int fractionalSeconds) {
+        int fraction = fractionalSeconds > 0 ? fractionalSeconds + 1 : 0;
+        switch (typeName) {
+            case "BOOLEAN":
+                return 1;
+            case "UUID":
+                return 16;
+            case "DATE":
+                return 10;
+            case "TIME":
+                return 8 + fraction;
+            case "TIME WITH TIME ZONE":
+                return 14 + fraction;
+            case "TIMESTAMP":
+                return 19 + fraction;
+            case "TIMESTAMP WITH TIME ZONE":
+                return 25 + fraction;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    String primaryKeysQuery() {
+        return PRIMARY_KEYS_QUERY;
+    }
+
+    @Override
+    String foreignKeysQuery() {
+        return FOREIGN_KEYS_QUERY;
+    }
+
+    @Override
+    String indexesQuery() {
+        return INDEXES_QUERY;
+    }
+}
@@ -0,0 +1,25 @@
+package com.dbmetagen.app.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Embedded H2 databases, in any compatibility mode, crawling the connection's current schema
+ */
+class H2Dialect implements CatalogDialect {
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "H2".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public CatalogScope scope(Connection connection) throws SQLException {
+        return new CatalogScope(connection.getCatalog(), connection.getSchema());
+    }
+
+    @Override
+    public BulkCatalogReader bulkReader(Connection connection, CatalogScope scope, CrawlMetrics metrics) {
+        return new H2CatalogReader(connection, scope.getSchema(), metrics);
+    }
+}
@@ -0,0 +1,233 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads a whole MySQL catalog from INFORMATION_SCHEMA, where the catalog is the schema
+ */
+class InformationSchemaReader extends BulkCatalogReader {
+
+    /** {@link Types} codes the MySQL driver reports for each type name */
+    private static final Map<String, Integer> SQL_TYPES = new HashMap<>();
+
+    static {
+        SQL_TYPES.put("BIT", Types.BIT);
+        SQL_TYPES.put("BOOL", Types.BOOLEAN);
+        SQL_TYPES.put("BOOLEAN", Types.BOOLEAN);
+        SQL_TYPES.put("TINYINT", Types.TINYINT);
+        SQL_TYPES.put("SMALLINT", Types.SMALLINT);
+        SQL_TYPES.put("MEDIUMINT", Types.INTEGER);
+        SQL_TYPES.put("INT", Types.INTEGER);
+        SQL_TYPES.put("INTEGER", Types.INTEGER);
+        SQL_TYPES.put("BIGINT", Types.BIGINT);
+        SQL_TYPES.put("FLOAT", Types.REAL);
+        SQL_TYPES.put("DOUBLE", Types.DOUBLE);
+        SQL_TYPES.put("DECIMAL", Types.DECIMAL);
+        SQL_TYPES.put("DATE", Types.DATE);
+        SQL_TYPES.put("YEAR", Types.DATE);
+        SQL_TYPES.put("TIME", Types.TIME);
+        SQL_TYPES.put("DATETIME", Types.TIMESTAMP);
+        SQL_TYPES.put("TIMESTAMP", Types.TIMESTAMP);
+        SQL_TYPES.put("CHAR", Types.CHAR);
+        SQL_TYPES.put("VARCHAR", Types.VARCHAR);
+        SQL_TYPES.put("TINYTEXT", Types.VARCHAR);
+        SQL_TYPES.put("TEXT", Types.LONGVARCHAR);
+        SQL_TYPES.put("MEDIUMTEXT", Types.LONGVARCHAR);
+        SQL_TYPES.put("LONGTEXT", Types.LONGVARCHAR);
+        SQL_TYPES.put("JSON", Types.LONGVARCHAR);
+        SQL_TYPES.put("ENUM", Types.CHAR);
+        SQL_TYPES.put("SET", Types.CHAR);
+        SQL_TYPES.put("BINARY", Types.BINARY);
+        SQL_TYPES.put("VARBINARY", Types.VARBINARY);
+        SQL_TYPES.put("TINYBLOB", Types.VARBINARY);
+        SQL_TYPES.put("BLOB", Types.LONGVARBINARY);
+        SQL_TYPES.put("MEDIUMBLOB", Types.LONGVARBINARY);
+        SQL_TYPES.put("LONGBLOB", Types.LONGVARBINARY);
+        SQL_TYPES.put("GEOMETRY", Types.BINARY);
+    }
+
+    private static final String TABLES_QUERY =
+            "SELECT TABLE_NAME FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE' " +
+            "ORDER BY TABLE_NAME";
+
+    private static final String COLUMNS_QUERY =
+            "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, COLUMN_TYPE, CHARACTER_MAXIMUM_LENGTH, " +
+            "NUMERIC_PRECISION, NUMERIC_SCALE, DATETIME_PRECISION, IS_NULLABLE, COLUMN_DEFAULT, EXTRA " +
+            "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ? " +
+            "ORDER BY TABLE_NAME, ORDINAL_POSITION";
+
+    private static final String PRIMARY_KEYS_QUERY =
+            "SELECT TABLE_NAME, COLUMN_NAME FROM information_schema.KEY_COLUMN_USAGE " +
+            "WHERE TABLE_SCHEMA = ? AND CONSTRAINT_NAME = 'PRIMARY'";
+
+    private static final String FOREIGN_KEYS_QUERY =
+            "SELECT k.TABLE_NAME, k.CONSTRAINT_NAME, k.COLUMN_NAME, k.REFERENCED_TABLE_NAME, k.REFERENCED_COLUMN_NAME " +
+            "FROM information_schema.KEY_COLUMN_USAGE k " +
+            "JOIN information_schema.REFERENTIAL_CONSTRAINTS r " +
+            "ON r.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA AND r.TABLE_NAME = k.TABLE_NAME " +
+            "AND r.CONSTRAINT_NAME = k.CONSTRAINT_NAME " +
+            "WHERE k.TABLE_SCHEMA = ? " +
+            "ORDER BY k.TABLE_NAME, k.REFERENCED_TABLE_SCHEMA, k.REFERENCED_TABLE_NAME, k.ORDINAL_POSITION";
+
+    private static final String INDEXES_QUERY =
+            "SELECT TABLE_NAME, INDEX_NAME, NON_UNIQUE, COLUMN_NAME FROM information_schema.STATISTICS " +
+            "WHERE TABLE_SCHEMA = ? " +
+            "ORDER BY TABLE_NAME, NON_UNIQUE, INDEX_NAME, SEQ_IN_INDEX";
+
+    private static final String COLUMN_CHECKSUMS_QUERY =
+            "SELECT TABLE_NAME, COUNT(*) AS ITEMS, SUM(CRC32(CONCAT_WS('|', COLUMN_NAME, ORDINAL_POSITION, " +
+            "COLUMN_TYPE, IS_NULLABLE, IFNULL(COLUMN_DEFAULT, '<null>'), EXTRA))) AS CHECKSUM " +
+            "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ? GROUP BY TABLE_NAME";
+
+    private static final String KEY_CHECKSUMS_QUERY =
+            "SELECT TABLE_NAME, COUNT(*) AS ITEMS, SUM(CRC32(CONCAT_WS('|', CONSTRAINT_NAME, COLUMN_NAME, " +
+            "ORDINAL_POSITION, IFNULL(REFERENCED_TABLE_NAME, ''), IFNULL(REFERENCED_COLUMN_NAME, '')))) AS CHECKSUM " +
+            "FROM information_schema.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = ? GROUP BY TABLE_NAME";
+
+    private static final String INDEX_CHECKSUMS_QUERY =
+            "SELECT TABLE_NAME, COUNT(*) AS ITEMS, SUM(CRC32(CONCAT_WS('|', INDEX_NAME, SEQ_IN_INDEX, " +
+            "IFNULL(COLUMN_NAME, ''), NON_UNIQUE))) AS CHECKSUM " +
+            "FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = ? GROUP BY TABLE_NAME";
+
+    InformationSchemaReader(Connection connection, String dbName, CrawlMetrics metrics) {
+        super(connection, dbName, metrics);
+    }
+
+    @Override
+    String tablesQuery() {
+        return TABLES_QUERY;
+    }
+
+    @Override
+    String columnsQuery() {
+        return COLUMNS_QUERY;
+    }
+
+    @Override
+    ColumnMetadata readColumn(ResultSet rs) throws SQLException {
+        ColumnMetadata column = new ColumnMetadata();
+        column.setColumnName(rs.getString("COLUMN_NAME"));
+        String columnType = rs.getString("COLUMN_TYPE");
+        String typeName = toTypeName(rs.getString("DATA_TYPE"), columnType);
+        // TINYINT(1) is reported as a plain BIT, even when unsigned
+        boolean unsigned = !"BIT".equals(typeName) && columnType.toLowerCase().contains("unsigned");
+        column.setDataType(unsigned ? typeName + " UNSIGNED" : typeName);
+        column.setSqlType(SQL_TYPES.getOrDefault(typeName, Types.OTHER));
+        Integer temporalSize = temporalSize(typeName, rs.getInt("DATETIME_PRECISION"));
+        column.setSize(temporalSize != null ? temporalSize : firstSize(rs, "CHARACTER_MAXIMUM_LENGTH", "NUMERIC_PRECISION"));
+        column.setDecimalDigits(rs.getInt("NUMERIC_SCALE"));
+        column.setUnsigned(unsigned);
+        column.setNullable("YES".equals(rs.getString("IS_NULLABLE")));
+        column.setDefaultValue(rs.getString("COLUMN_DEFAULT"));
+
+        String extra = rs.getString("EXTRA");
+        column.setAutoIncrement(extra != null && extra.toLowerCase().contains("auto_increment"));
+        return column;
+    }
+
+    @Override
+    String primaryKeysQuery() {
+        return PRIMARY_KEYS_QUERY;
+    }
+
+    @Override
+    String foreignKeysQuery() {
+        return FOREIGN_KEYS_QUERY;
+    }
+
+    @Override
+    String indexesQuery() {
+        return INDEXES_QUERY;
+    }
+
+    /**
+     * Fingerprints every base table from server-side checksums of its column, key and index
+     * definitions. Only one row per table and catalog view crosses the wire.
+     */
+    @Override
+    Map<String, String> readFingerprints() throws SQLException {
+        Map<String, StringBuilder> fingerprints = new LinkedHashMap<>();
+        for (String tableName : readTableNameList()) {
+            fingerprints.put(tableName, new StringBuilder());
+        }
+
+        for (String query : new String[]{COLUMN_CHECKSUMS_QUERY, KEY_CHECKSUMS_QUERY, INDEX_CHECKSUMS_QUERY}) {
+            Map<String, String> checksums = new HashMap<>();
+            long start = System.nanoTime();
+            try (PreparedStatement ps = prepare(query); ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    checksums.put(rs.getString("TABLE_NAME"), rs.getLong("ITEMS") + ":" + rs.getString("CHECKSUM"));
+                }
+            } finally {
+                recordFingerprintQuery(start);
+            }
+
+            for (Map.Entry<String, StringBuilder> entry : fingerprints.entrySet()) {
+                entry.getValue().append(checksums.getOrDefault(entry.getKey(), "0:0")).append('/');
+            }
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        fingerprints.forEach((tableName, fingerprint) -> result.put(tableName, fingerprint.toString()));
+        return result;
+    }
+
+    /**
+     * Derives the size the MySQL driver reports in {@code getColumns} for a date or time type,
+     * which INFORMATION_SCHEMA has no length for: the length of its text form, with a point
+     * and the fractional digits of the seconds if it has any
+     * @return the size, null if the type is not a date or time type
+     */
+    static Integer temporalSize(String typeName, int fractionalSeconds) {
+        int fraction = fractionalSeconds > 0 ? fractionalSeconds + 1 : 0;
+        switch (typeName) {
+            case "YEAR":
+                return 4;
+            case "DATE":
+                return 10;
+            case "TIME":
+                return 8 + fraction;
+            case "DATETIME":
+            case "TIMESTAMP":
+                return 19 + fraction;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Derives the type name the MySQL driver reports in {@code getColumns}, without the
+     * {@code UNSIGNED} suffix: upper-case type, {@code TINYINT(1)} as {@code BIT}
+     */
+    private static String toTypeName(String dataType, String columnType) {
+        String typeName = dataType.toUpperCase();
+        String lowerColumnType = columnType.toLowerCase();
+
+        if ("TINYINT".equals(typeName) && lowerColumnType.startsWith("tinyint(1)")) {
+            return "BIT";
+        }
+        switch (typeName) {
+            case "POINT":
+            case "LINESTRING":
+            case "POLYGON":
+            case "MULTIPOINT":
+            case "MULTILINESTRING":
+            case "MULTIPOLYGON":
+            case "GEOMETRYCOLLECTION":
+            case "GEOMCOLLECTION":
+                return "GEOMETRY";
+            default:
+                return typeName;
+        }
+    }
+}
@@ -1,101 +1,457 @@
 package com.dbmetagen.app.repository;
 
+import com.dbmetagen.app.config.ConfigLease;
+import com.dbmetagen.app.config.ConfigSnapshot;
 import com.dbmetagen.app.config.DatabaseConfig;
 import com.dbmetagen.app.model.*;
+import com.dbmetagen.app.repository.CrawlMetrics.Mode;
+import com.dbmetagen.app.repository.CrawlMetrics.Phase;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Repository
 public class JdbcDatabaseMetadataRepository implements DatabaseMetadataRepository {
 
+    private static final Logger log = LoggerFactory.getLogger(JdbcDatabaseMetadataRepository.class);
+
+    /** Columns of the {@code DatabaseMetaData} results that make up a table's fingerprint */
+    private static final String[] COLUMN_FINGERPRINT =
+            {"COLUMN_NAME", "TYPE_NAME", "COLUMN_SIZE", "DECIMAL_DIGITS", "NULLABLE", "COLUMN_DEF", "IS_AUTOINCREMENT"};
+    private static final String[] PRIMARY_KEY_FINGERPRINT = {"PK_NAME", "KEY_SEQ", "COLUMN_NAME"};
+    private static final String[] FOREIGN_KEY_FINGERPRINT =
+            {"FK_NAME", "KEY_SEQ", "FKCOLUMN_NAME", "PKTABLE_NAME", "PKCOLUMN_NAME"};
+    private static final String[] INDEX_FINGERPRINT = {"INDEX_NAME", "ORDINAL_POSITION", "COLUMN_NAME", "NON_UNIQUE"};
+
     private final DatabaseConfig databaseConfig;
+    private final CrawlMetrics metrics;
 
     @Autowired
-    public JdbcDatabaseMetadataRepository(DatabaseConfig databaseConfig) {
+    public JdbcDatabaseMetadataRepository(DatabaseConfig databaseConfig, MeterRegistry meterRegistry) {
         this.databaseConfig = databaseConfig;
+        this.metrics = new CrawlMetrics(meterRegistry);
     }
 
+    /**
+     * Crawls within the configured time budget. Tables that fail or that the budget leaves no
+     * time for are left out and listed as incomplete, and the rest is returned, unless no
+     * table could be extracted at all. A bulk read that fails or times out falls back to the
+     * per-table crawl for the rest of the budget.
+     */
     @Override
-    public DatabaseMetadata extractDatabaseMetadata() {
+    public DatabaseMetadata extractDatabaseMetadata(String dataSourceId) {
+        try (ConfigLease lease = databaseConfig.leaseSnapshot()) {
+            return extractDatabaseMetadata(lease.getConfig(), dataSourceId);
+        }
+    }
+
+    private DatabaseMetadata extractDatabaseMetadata(ConfigSnapshot config, String dataSourceId) {
+        CrawlBudget budget = CrawlBudget.forCrawl(config);
         DatabaseMetadata metadata = new DatabaseMetadata();
+        CatalogScope scope;
+        List<String> tableNames = null;
         
-        try (Connection connection = DriverManager.getConnection(
-                databaseConfig.getUrl(),
-                databaseConfig.getUsername(),
-                databaseConfig.getPassword())) {
+        try (Connection connection = openConnection(config, dataSourceId)) {
             
-            // Extract database name from connection URL
-            String url = databaseConfig.getUrl();
-            String dbName = url.substring(url.lastIndexOf("/") + 1);
-            metadata.setDatabaseName(dbName);
+            String productName = connection.getMetaData().getDatabaseProductName();
+            metadata.setDatabaseName(config.getDataSource(dataSourceId).getDatabaseName());
+            metadata.setDatabaseProductName(productName);
             
-            DatabaseMetaData metaData = connection.getMetaData();
-            List<TableMetadata> tables = extractTables(metaData, dbName);
-            metadata.setTables(tables);
+            CatalogDialect dialect = CatalogDialects.forProductName(productName);
+            scope = dialect.scope(connection);
+            BulkCatalogReader bulkReader = config.isBulkCrawl() ? dialect.bulkReader(connection, scope, metrics) : null;
             
-            return metadata;
+            if (bulkReader != null) {
+                try {
+                    // Whole schema in a handful of set-based queries
+                    bulkReader.setBudget(budget);
+                    metadata.setTables(bulkReader.readTables());
+                    return metadata;
+                } catch (SQLException e) {
+                    log.warn("Bulk catalog read of datasource {} failed, crawling it table by table: {}", dataSourceId, e.toString());
+                }
+            } else {
+                budget.limit(connection);
+                tableNames = extractTableNames(connection.getMetaData(), scope);
+            }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to extract database metadata", e);
         }
+        
+        if (tableNames == null) {
+            // A bulk query that failed or timed out may have broken its connection
+            try (Connection connection = openConnection(config, dataSourceId)) {
+                budget.limit(connection);
+                tableNames = extractTableNames(connection.getMetaData(), scope);
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to extract database metadata", e);
+            }
+        }
+        
+        List<TableMetadata> tables = extractTables(dataSourceId, scope, tableNames, config, budget);
+        if (tables.isEmpty() && !tableNames.isEmpty()) {
+            throw new RuntimeException("Failed to extract database metadata: none of the "
+                    + tableNames.size() + " tables could be extracted within the crawl budget");
+        }
+        metadata.setTables(tables);
+        metadata.setIncompleteTables(missingTables(tableNames, tables));
+        return metadata;
+    }
+
+    @Override
+    public Map<String, String> fingerprintTables(String dataSourceId) {
+        try (ConfigLease lease = databaseConfig.leaseSnapshot();
+             Connection connection = openConnection(lease.getConfig(), dataSourceId)) {
+            CrawlBudget budget = CrawlBudget.forQueries(lease.getConfig());
+            CatalogDialect dialect = CatalogDialects.forProductName(connection.getMetaData().getDatabaseProductName());
+            CatalogScope scope = dialect.scope(connection);
+            
+            // In either crawl mode, as the catalog views see more than a column listing does
+            BulkCatalogReader bulkReader = dialect.bulkReader(connection, scope, metrics);
+            if (bulkReader != null) {
+                bulkReader.setBudget(budget);
+                return bulkReader.readFingerprints();
+            }
+            budget.limit(connection);
+            return fingerprintTables(connection.getMetaData(), scope);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to fingerprint database tables", e);
+        }
+    }
+
+    /**
+     * Extracts the tables within the configured time budget. Tables that fail or that the
+     * budget leaves no time for are left out. A bulk read that fails or times out falls back
+     * to the per-table crawl, like a full crawl does.
+     */
+    @Override
+    public List<TableMetadata> extractTables(String dataSourceId, Collection<String> tableNames, boolean bulkCrawl) {
+        try (ConfigLease lease = databaseConfig.leaseSnapshot()) {
+            return extractTables(lease.getConfig(), dataSourceId, tableNames, bulkCrawl);
+        }
+    }
+
+    private List<TableMetadata> extractTables(ConfigSnapshot config, String dataSourceId, Collection<String> tableNames, boolean bulkCrawl) {
+        CrawlBudget budget = CrawlBudget.forCrawl(config);
+        CatalogScope scope;
+        try (Connection connection = openConnection(config, dataSourceId)) {
+            CatalogDialect dialect = CatalogDialects.forProductName(connection.getMetaData().getDatabaseProductName());
+            scope = dialect.scope(connection);
+            BulkCatalogReader bulkReader = bulkCrawl ? dialect.bulkReader(connection, scope, metrics) : null;
+            
+            if (bulkReader != null) {
+                try {
+                    bulkReader.setBudget(budget);
+                    return bulkReader.readTables(tableNames);
+                } catch (SQLException e) {
+                    log.warn("Bulk catalog read of {} tables of datasource {} failed, crawling them table by table: {}",
+                            tableNames.size(), dataSourceId, e.toString());
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to extract table metadata", e);
+        }
+        // The workers borrow connections of their own, not the one a failed bulk query may have broken
+        return extractTables(dataSourceId, scope, new ArrayList<>(tableNames), config, budget);
+    }
+
+    private static List<String> missingTables(List<String> tableNames, List<TableMetadata> tables) {
+        if (tables.size() == tableNames.size()) {
+            return Collections.emptyList();
+        }
+        Set<String> extracted = new HashSet<>();
+        for (TableMetadata table : tables) {
+            extracted.add(table.getTableName());
+        }
+        List<String> missing = new ArrayList<>();
+        for (String tableName : tableNames) {
+            if (!extracted.contains(tableName)) {
+                missing.add(tableName);
+            }
+        }
+        return missing;
     }
 
-    private List<TableMetadata> extractTables(DatabaseMetaData metaData, String dbName) throws SQLException {
-        List<TableMetadata> tables = new ArrayList<>();
+    /**
+     * Borrows from the pool of the configuration the crawl started with and leased, so a
+     * reload while it runs neither closes that pool nor hands it connections built from other settings
+     */
+    private Connection openConnection(ConfigSnapshot config, String dataSourceId) throws SQLException {
+        return databaseConfig.getConnection(config, dataSourceId);
+    }
+
+    /**
+     * Extract database name from connection URL, for naming snapshots and output directories.
+     * The crawl itself asks its dialect for the catalog and schema of the connection.
+     */
+    @Override
+    public String getDatabaseName(String dataSourceId) {
+        return databaseConfig.getDataSource(dataSourceId).getDatabaseName();
+    }
+
+    /**
+     * Fingerprints every table from a single catalog-wide {@code getColumns} call and the
+     * {@code getPrimaryKeys}, {@code getImportedKeys} and {@code getIndexInfo} of each table,
+     * which take no table pattern. Used for databases without catalog checksums.
+     */
+    private Map<String, String> fingerprintTables(DatabaseMetaData metaData, CatalogScope scope) throws SQLException {
+        Map<String, Integer> columnCounts = new HashMap<>();
+        Map<String, Long> checksums = new HashMap<>();
         
-        try (ResultSet rs = metaData.getTables(dbName, null, "%", new String[]{"TABLE"})) {
+        long start = System.nanoTime();
+        try (ResultSet rs = metaData.getColumns(scope.getCatalog(), scope.getSchema(), "%", "%")) {
             while (rs.next()) {
                 String tableName = rs.getString("TABLE_NAME");
-                
-                TableMetadata tableMetadata = new TableMetadata();
-                tableMetadata.setTableName(tableName);
-                
-                // Extract columns
-                tableMetadata.setColumns(extractColumns(metaData, dbName, tableName));
-                
-                // Extract primary keys
-                extractPrimaryKeys(metaData, dbName, tableName, tableMetadata);
-                
-                // Extract foreign keys
-                tableMetadata.setForeignKeys(extractForeignKeys(metaData, dbName, tableName));
-                
-                // Extract indexes
-                tableMetadata.setIndexes(extractIndexes(metaData, dbName, tableName));
-                
-                tables.add(tableMetadata);
+                columnCounts.merge(tableName, 1, Integer::sum);
+                checksums.merge(tableName, rowChecksum(rs, COLUMN_FINGERPRINT), Long::sum);
+            }
+        } finally {
+            metrics.recordQuery(Mode.JDBC, Phase.FINGERPRINTS, start);
+        }
+        
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (String tableName : extractTableNames(metaData, scope)) {
+            StringBuilder fingerprint = new StringBuilder()
+                    .append(columnCounts.getOrDefault(tableName, 0)).append(':').append(checksums.getOrDefault(tableName, 0L));
+            appendChecksum(fingerprint, () -> metaData.getPrimaryKeys(scope.getCatalog(), scope.getSchema(), tableName),
+                    PRIMARY_KEY_FINGERPRINT);
+            appendChecksum(fingerprint, () -> metaData.getImportedKeys(scope.getCatalog(), scope.getSchema(), tableName),
+                    FOREIGN_KEY_FINGERPRINT);
+            // Approximate, as the definition does not depend on statistics some drivers would compute
+            appendChecksum(fingerprint, () -> metaData.getIndexInfo(scope.getCatalog(), scope.getSchema(), tableName, false, true),
+                    INDEX_FINGERPRINT);
+            fingerprints.put(tableName, fingerprint.toString());
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Appends the number of rows of a {@code DatabaseMetaData} call and the sum of their checksums
+     */
+    private void appendChecksum(StringBuilder fingerprint, MetaDataCall call, String[] columns) throws SQLException {
+        int count = 0;
+        long checksum = 0;
+        
+        long start = System.nanoTime();
+        try (ResultSet rs = call.execute()) {
+            while (rs.next()) {
+                count++;
+                checksum += rowChecksum(rs, columns);
+            }
+        } finally {
+            metrics.recordQuery(Mode.JDBC, Phase.FINGERPRINTS, start);
+        }
+        fingerprint.append('/').append(count).append(':').append(checksum);
+    }
+
+    /**
+     * Hashes the given columns of the current row. Rows are summed, which like the server-side
+     * CRC32 sums does not depend on the order they are reported in.
+     */
+    private static long rowChecksum(ResultSet rs, String[] columns) throws SQLException {
+        StringBuilder definition = new StringBuilder();
+        for (String column : columns) {
+            definition.append(rs.getString(column)).append('|');
+        }
+        return definition.toString().hashCode();
+    }
+
+    @FunctionalInterface
+    private interface MetaDataCall {
+        ResultSet execute() throws SQLException;
+    }
+
+    private List<String> extractTableNames(DatabaseMetaData metaData, CatalogScope scope) throws SQLException {
+        List<String> tableNames = new ArrayList<>();
+        
+        long start = System.nanoTime();
+        try (ResultSet rs = metaData.getTables(scope.getCatalog(), scope.getSchema(), "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                tableNames.add(rs.getString("TABLE_NAME"));
+            }
+        } finally {
+            metrics.recordQuery(Mode.JDBC, Phase.TABLES, start);
+        }
+        
+        return tableNames;
+    }
+
+    /**
+     * Crawls the given tables on a bounded pool of workers. Each worker borrows one pooled
+     * connection and pulls the next table from a shared counter, so at most {@code crawlConcurrency}
+     * connections are open, and a worker only takes new work once it has finished its last table.
+     * Results are stored by position, which keeps the order reported by {@code getTables}.
+     *
+     * A table whose extraction fails is logged and left out, and its worker goes on with a
+     * fresh connection, as a call that timed out may have broken the old one. Once the budget
+     * is exhausted no further table is started.
+     * @return the extracted tables, without those left out
+     */
+    private List<TableMetadata> extractTables(String dataSourceId, CatalogScope scope, List<String> tableNames,
+                                              ConfigSnapshot config, CrawlBudget budget) {
+        int workers = Math.max(1, Math.min(Math.min(config.getCrawlConcurrency(), config.getPoolMaxSize()), tableNames.size()));
+        TableMetadata[] results = new TableMetadata[tableNames.size()];
+        AtomicInteger nextTable = new AtomicInteger();
+        Runnable worker = () -> crawlTables(dataSourceId, scope, tableNames, results, nextTable, config, budget);
+        
+        if (workers == 1) {
+            worker.run();
+        } else {
+            AtomicInteger threadCount = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+                Thread thread = new Thread(runnable, "metadata-crawler-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    futures.add(executor.submit(worker));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while extracting table metadata", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Failed to extract table metadata", e.getCause());
+            } finally {
+                // Stop the remaining workers from picking up new tables
+                nextTable.set(results.length);
+                executor.shutdownNow();
             }
         }
         
+        List<TableMetadata> tables = new ArrayList<>(results.length);
+        for (TableMetadata table : results) {
+            if (table != null) {
+                tables.add(table);
+            }
+        }
+        int incomplete = results.length - tables.size();
+        if (incomplete > 0) {
+            metrics.tablesIncomplete(incomplete);
+            log.warn("Left {} of {} tables of datasource {} incomplete{}", incomplete, results.length, dataSourceId,
+                    budget.isExhausted() ? ", the crawl time budget is exhausted" : "");
+        }
         return tables;
     }
 
-    private List<ColumnMetadata> extractColumns(DatabaseMetaData metaData, String dbName, String tableName) throws SQLException {
+    /**
+     * One worker of {@link #extractTables(String, CatalogScope, List, ConfigSnapshot, CrawlBudget)}.
+     * Stops when it cannot borrow a connection, leaving the remaining tables to the other workers.
+     */
+    private void crawlTables(String dataSourceId, CatalogScope scope, List<String> tableNames, TableMetadata[] results,
+                             AtomicInteger nextTable, ConfigSnapshot config, CrawlBudget budget) {
+        Connection connection = null;
+        try {
+            int index;
+            while (!budget.isExhausted() && (index = nextTable.getAndIncrement()) < results.length) {
+                String tableName = tableNames.get(index);
+                if (connection == null) {
+                    try {
+                        connection = openConnection(config, dataSourceId);
+                    } catch (SQLException e) {
+                        log.warn("Crawler of datasource {} could not borrow a connection: {}", dataSourceId, e.toString());
+                        return;
+                    }
+                }
+                try {
+                    budget.limit(connection);
+                    results[index] = extractTable(connection.getMetaData(), scope, tableName, config.getSlowTableThresholdMs());
+                } catch (SQLException e) {
+                    log.warn("Failed to extract table {} of datasource {}: {}", tableName, dataSourceId, e.toString());
+                    closeQuietly(connection);
+                    connection = null;
+                }
+            }
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // The pool evicts a connection it cannot reset
+        }
+    }
+
+    private TableMetadata extractTable(DatabaseMetaData metaData, CatalogScope scope, String tableName, long slowThresholdMs) throws SQLException {
+        long start = System.nanoTime();
+        TableMetadata tableMetadata = new TableMetadata();
+        tableMetadata.setTableName(tableName);
+        
+        // Extract columns
+        tableMetadata.setColumns(extractColumns(metaData, scope, tableName));
+        
+        // Extract primary keys
+        extractPrimaryKeys(metaData, scope, tableName, tableMetadata);
+        
+        // Extract foreign keys
+        tableMetadata.setForeignKeys(extractForeignKeys(metaData, scope, tableName));
+        
+        // Extract indexes
+        tableMetadata.setIndexes(extractIndexes(metaData, scope, tableName));
+        
+        metrics.recordTable(tableName, start, slowThresholdMs);
+        return tableMetadata;
+    }
+
+    private List<ColumnMetadata> extractColumns(DatabaseMetaData metaData, CatalogScope scope, String tableName) throws SQLException {
         List<ColumnMetadata> columns = new ArrayList<>();
         
-        try (ResultSet rs = metaData.getColumns(dbName, null, tableName, "%")) {
+        long start = System.nanoTime();
+        try (ResultSet rs = metaData.getColumns(scope.getCatalog(), scope.getSchema(), tableName, "%")) {
             while (rs.next()) {
                 ColumnMetadata column = new ColumnMetadata();
                 column.setColumnName(rs.getString("COLUMN_NAME"));
-                column.setDataType(rs.getString("TYPE_NAME"));
+                String typeName = rs.getString("TYPE_NAME");
+                column.setDataType(typeName);
+                column.setSqlType(rs.getInt("DATA_TYPE"));
                 column.setSize(rs.getInt("COLUMN_SIZE"));
+                column.setDecimalDigits(rs.getInt("DECIMAL_DIGITS"));
+                // MySQL reports unsigned columns as e.g. "INT UNSIGNED"
+                column.setUnsigned(typeName != null && typeName.regionMatches(true, typeName.length() - 9, " UNSIGNED", 0, 9));
                 column.setNullable(rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
                 column.setDefaultValue(rs.getString("COLUMN_DEF"));
                 column.setAutoIncrement("YES".equals(rs.getString("IS_AUTOINCREMENT")));
                 
                 columns.add(column);
             }
+        } finally {
+            metrics.recordQuery(Mode.JDBC, Phase.COLUMNS, start);
         }
         
         return columns;
     }
 
-    private void extractPrimaryKeys(DatabaseMetaData metaData, String dbName, String tableName, TableMetadata tableMetadata) throws SQLException {
-        try (ResultSet rs = metaData.getPrimaryKeys(dbName, null, tableName)) {
+    private void extractPrimaryKeys(DatabaseMetaData metaData, CatalogScope scope, String tableName, TableMetadata tableMetadata) throws SQLException {
+        long start = System.nanoTime();
+        try (ResultSet rs = metaData.getPrimaryKeys(scope.getCatalog(), scope.getSchema(), tableName)) {
             if (rs.next()) {
                 String pkColumnName = rs.getString("COLUMN_NAME");
                 tableMetadata.setPrimaryKey(pkColumnName);
@@ -108,13 +464,16 @@ public class JdbcDatabaseMetadataRepository implements DatabaseMetadataRepositor
                     }
                 }
             }
+        } finally {
+            metrics.recordQuery(Mode.JDBC, Phase.PRIMARY_KEYS, start);
         }
     }
 
-    private List<ForeignKeyMetadata> extractForeignKeys(DatabaseMetaData metaData, String dbName, String tableName) throws SQLException {
+    private List<ForeignKeyMetadata> extractForeignKeys(DatabaseMetaData metaData, CatalogScope scope, String tableName) throws SQLException {
         List<ForeignKeyMetadata> foreignKeys = new ArrayList<>();
         
-        try (ResultSet rs = metaData.getImportedKeys(dbName, null, tableName)) {
+        long start = System.nanoTime();
+        try (ResultSet rs = metaData.getImportedKeys(scope.getCatalog(), scope.getSchema(), tableName)) {
             while (rs.next()) {
                 ForeignKeyMetadata fk = new ForeignKeyMetadata();
                 fk.setConstraintName(rs.getString("FK_NAME"));
@@ -124,15 +483,18 @@ public class JdbcDatabaseMetadataRepository implements DatabaseMetadataRepositor
                 
                 foreignKeys.add(fk);
             }
+        } finally {
+            metrics.recordQuery(Mode.JDBC, Phase.IMPORTED_KEYS, start);
         }
         
         return foreignKeys;
     }
 
-    private List<IndexMetadata> extractIndexes(DatabaseMetaData metaData, String dbName, String tableName) throws SQLException {
+    private List<IndexMetadata> extractIndexes(DatabaseMetaData metaData, CatalogScope scope, String tableName) throws SQLException {
         Map<String, IndexMetadata> indexMap = new HashMap<>();
         
-        try (ResultSet rs = metaData.getIndexInfo(dbName, null, tableName, false, false)) {
+        long start = System.nanoTime();
+        try (ResultSet rs = metaData.getIndexInfo(scope.getCatalog(), scope.getSchema(), tableName, false, false)) {
             while (rs.next()) {
                 String indexName = rs.getString("INDEX_NAME");
                 boolean nonUnique = rs.getBoolean("NON_UNIQUE");
@@ -158,6 +520,8 @@ public class JdbcDatabaseMetadataRepository implements DatabaseMetadataRepositor
                     index.getColumnNames().add(columnName);
                 }
             }
+        } finally {
+            metrics.recordQuery(Mode.JDBC, Phase.INDEX_INFO, start);
         }
         
         return new ArrayList<>(indexMap.values());
@@ -0,0 +1,25 @@
+package com.dbmetagen.app.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * MySQL and MariaDB, where a database is a catalog and has no schemas
+ */
+class MySqlDialect implements CatalogDialect {
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "MySQL".equalsIgnoreCase(databaseProductName) || "MariaDB".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public CatalogScope scope(Connection connection) throws SQLException {
+        return new CatalogScope(connection.getCatalog(), null);
+    }
+
+    @Override
+    public BulkCatalogReader bulkReader(Connection connection, CatalogScope scope, CrawlMetrics metrics) {
+        return new InformationSchemaReader(connection, scope.getCatalog(), metrics);
+    }
+}
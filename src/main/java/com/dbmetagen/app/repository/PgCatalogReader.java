@@ -0,0 +1,420 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads a whole PostgreSQL schema from {@code pg_catalog}, which unlike the
+ * {@code information_schema} views is not filtered by privileges row by row
+ */
+class PgCatalogReader extends BulkCatalogReader {
+
+    /** {@link Types} codes the PostgreSQL driver reports for each type name */
+    private static final Map<String, Integer> SQL_TYPES = new HashMap<>();
+
+    static {
+        SQL_TYPES.put("bool", Types.BIT);
+        SQL_TYPES.put("bit", Types.BIT);
+        SQL_TYPES.put("int2", Types.SMALLINT);
+        SQL_TYPES.put("smallserial", Types.SMALLINT);
+        SQL_TYPES.put("int4", Types.INTEGER);
+        SQL_TYPES.put("serial", Types.INTEGER);
+        SQL_TYPES.put("int8", Types.BIGINT);
+        SQL_TYPES.put("bigserial", Types.BIGINT);
+        SQL_TYPES.put("oid", Types.BIGINT);
+        SQL_TYPES.put("float4", Types.REAL);
+        SQL_TYPES.put("float8", Types.DOUBLE);
+        SQL_TYPES.put("money", Types.DOUBLE);
+        SQL_TYPES.put("numeric", Types.NUMERIC);
+        SQL_TYPES.put("char", Types.CHAR);
+        SQL_TYPES.put("bpchar", Types.CHAR);
+        SQL_TYPES.put("varchar", Types.VARCHAR);
+        SQL_TYPES.put("text", Types.VARCHAR);
+        SQL_TYPES.put("name", Types.VARCHAR);
+        SQL_TYPES.put("bytea", Types.BINARY);
+        SQL_TYPES.put("date", Types.DATE);
+        SQL_TYPES.put("time", Types.TIME);
+        SQL_TYPES.put("timetz", Types.TIME);
+        SQL_TYPES.put("timestamp", Types.TIMESTAMP);
+        SQL_TYPES.put("timestamptz", Types.TIMESTAMP);
+        SQL_TYPES.put("xml", Types.SQLXML);
+    }
+
+    /** OIDs of the built-in types the PostgreSQL driver knows the size of */
+    private static final int BOOL = 16;
+    private static final int CHAR = 18;
+    private static final int INT8 = 20;
+    private static final int INT2 = 21;
+    private static final int INT4 = 23;
+    private static final int OID = 26;
+    private static final int FLOAT4 = 700;
+    private static final int FLOAT8 = 701;
+    private static final int BPCHAR = 1042;
+    private static final int VARCHAR = 1043;
+    private static final int DATE = 1082;
+    private static final int TIME = 1083;
+    private static final int TIMESTAMP = 1114;
+    private static final int TIMESTAMPTZ = 1184;
+    private static final int INTERVAL = 1186;
+    private static final int TIMETZ = 1266;
+    private static final int BIT = 1560;
+    private static final int VARBIT = 1562;
+    private static final int NUMERIC = 1700;
+
+    /** The size the driver reports for types without a length limit, its default {@code unknownLength} */
+    private static final int UNKNOWN_LENGTH = Integer.MAX_VALUE;
+
+    private static final String TABLES_QUERY =
+            "SELECT c.relname AS TABLE_NAME FROM pg_catalog.pg_class c " +
+            "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE n.nspname = ? AND c.relkind = 'r' " +
+            "ORDER BY c.relname";
+
+    private static final String COLUMNS_QUERY =
+            "SELECT c.relname AS TABLE_NAME, a.attname AS COLUMN_NAME, t.typname AS TYPE_NAME, t.typtype AS TYPE_TYPE, " +
+            "a.atttypid AS TYPE_OID, a.atttypmod AS TYPE_MOD, t.typelem AS ELEMENT_TYPE_OID, " +
+            "t.typbasetype AS BASE_TYPE_OID, t.typtypmod AS BASE_TYPE_MOD, " +
+            "a.attnotnull AS NOT_NULL, pg_catalog.pg_get_expr(d.adbin, d.adrelid) AS COLUMN_DEFAULT, " +
+            "a.attidentity <> '' AS IS_IDENTITY " +
+            "FROM pg_catalog.pg_attribute a " +
+            "JOIN pg_catalog.pg_class c ON c.oid = a.attrelid " +
+            "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+            "JOIN pg_catalog.pg_type t ON t.oid = a.atttypid " +
+            "LEFT JOIN pg_catalog.pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum " +
+            "WHERE n.nspname = ? AND c.relkind = 'r' AND a.attnum > 0 AND NOT a.attisdropped " +
+            "ORDER BY c.relname, a.attnum";
+
+    private static final String PRIMARY_KEYS_QUERY =
+            "SELECT c.relname AS TABLE_NAME, a.attname AS COLUMN_NAME FROM pg_catalog.pg_constraint k " +
+            "JOIN pg_catalog.pg_class c ON c.oid = k.conrelid " +
+            "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+            "JOIN pg_catalog.pg_attribute a ON a.attrelid = k.conrelid AND a.attnum = ANY (k.conkey) " +
+            "WHERE n.nspname = ? AND k.contype = 'p'";
+
+    private static final String FOREIGN_KEYS_QUERY =
+            "SELECT c.relname AS TABLE_NAME, k.conname AS CONSTRAINT_NAME, a.attname AS COLUMN_NAME, " +
+            "rc.relname AS REFERENCED_TABLE_NAME, ra.attname AS REFERENCED_COLUMN_NAME " +
+            "FROM pg_catalog.pg_constraint k " +
+            "JOIN pg_catalog.pg_class c ON c.oid = k.conrelid " +
+            "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+            "JOIN pg_catalog.pg_class rc ON rc.oid = k.confrelid " +
+            "JOIN pg_catalog.pg_namespace rn ON rn.oid = rc.relnamespace " +
+            "CROSS JOIN LATERAL unnest(k.conkey, k.confkey) WITH ORDINALITY AS u(attnum, refattnum, position) " +
+            "JOIN pg_catalog.pg_attribute a ON a.attrelid = k.conrelid AND a.attnum = u.attnum " +
+            "JOIN pg_catalog.pg_attribute ra ON ra.attrelid = k.confrelid AND ra.attnum = u.refattnum " +
+            "WHERE n.nspname = ? AND k.contype = 'f' " +
+            "ORDER BY c.relname, rn.nspname, rc.relname, u.position";
+
+    /** Expression columns have no attribute and are left out, like their null names in {@code getIndexInfo} */
+    private static final String INDEXES_QUERY =
+            "SELECT c.relname AS TABLE_NAME, i.relname AS INDEX_NAME, NOT x.indisunique AS NON_UNIQUE, " +
+            "a.attname AS COLUMN_NAME FROM pg_catalog.pg_index x " +
+            "JOIN pg_catalog.pg_class c ON c.oid = x.indrelid " +
+            "JOIN pg_catalog.pg_class i ON i.oid = x.indexrelid " +
+            "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+            "CROSS JOIN LATERAL unnest(x.indkey::int2[]) WITH ORDINALITY AS u(attnum, position) " +
+            "LEFT JOIN pg_catalog.pg_attribute a ON a.attrelid = x.indrelid AND a.attnum = u.attnum " +
+            "WHERE n.nspname = ? AND c.relkind = 'r' " +
+            "ORDER BY c.relname, NOT x.indisunique, i.relname, u.position";
+
+    /** One hash per table over its column, constraint and index definitions */
+    private static final String CHECKSUMS_QUERY =
+            "SELECT c.relname AS TABLE_NAME, md5(concat_ws('/', " +
+            "(SELECT string_agg(concat_ws('|', a.attname, pg_catalog.format_type(a.atttypid, a.atttypmod), a.attnotnull, " +
+            "coalesce(pg_catalog.pg_get_expr(d.adbin, d.adrelid), '<null>'), a.attidentity), ',' ORDER BY a.attnum) " +
+            "FROM pg_catalog.pg_attribute a " +
+            "LEFT JOIN pg_catalog.pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum " +
+            "WHERE a.attrelid = c.oid AND a.attnum > 0 AND NOT a.attisdropped), " +
+            "(SELECT string_agg(k.conname || ' ' || pg_catalog.pg_get_constraintdef(k.oid), ',' ORDER BY k.conname) " +
+            "FROM pg_catalog.pg_constraint k WHERE k.conrelid = c.oid), " +
+            "(SELECT string_agg(pg_catalog.pg_get_indexdef(x.indexrelid), ',' ORDER BY x.indexrelid::regclass::text) " +
+            "FROM pg_catalog.pg_index x WHERE x.indrelid = c.oid))) AS CHECKSUM " +
+            "FROM pg_catalog.pg_class c " +
+            "JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE n.nspname = ? AND c.relkind = 'r' " +
+            "ORDER BY c.relname";
+
+    PgCatalogReader(Connection connection, String schema, CrawlMetrics metrics) {
+        super(connection, schema, metrics);
+    }
+
+    @Override
+    String tablesQuery() {
+        return TABLES_QUERY;
+    }
+
+    @Override
+    String columnsQuery() {
+        return COLUMNS_QUERY;
+    }
+
+    @Override
+    ColumnMetadata readColumn(ResultSet rs) throws SQLException {
+        ColumnMetadata column = new ColumnMetadata();
+        column.setColumnName(rs.getString("COLUMN_NAME"));
+        String defaultValue = rs.getString("COLUMN_DEFAULT");
+        boolean sequence = defaultValue != null && defaultValue.startsWith("nextval(");
+        String typeName = toTypeName(rs.getString("TYPE_NAME"), sequence);
+        column.setDataType(typeName);
+        int sqlType = toSqlType(typeName, rs.getString("TYPE_TYPE"));
+        column.setSqlType(sqlType);
+
+        // Arrays are sized by their elements, domains by their base type
+        int typeOid = (int) rs.getLong(typeName.startsWith("_") ? "ELEMENT_TYPE_OID" : "TYPE_OID");
+        int typeMod = rs.getInt("TYPE_MOD");
+        int baseTypeOid = (int) rs.getLong("BASE_TYPE_OID");
+        int baseTypeMod = rs.getInt("BASE_TYPE_MOD");
+        column.setSize(columnSize(sqlType, typeOid, typeMod, baseTypeOid, baseTypeMod));
+        column.setDecimalDigits(decimalDigits(sqlType, typeOid, typeMod, baseTypeOid, baseTypeMod));
+        column.setNullable(!rs.getBoolean("NOT_NULL"));
+        column.setDefaultValue(defaultValue);
+        column.setAutoIncrement(sequence || rs.getBoolean("IS_IDENTITY"));
+        return column;
+    }
+
+    @Override
+    String primaryKeysQuery() {
+        return PRIMARY_KEYS_QUERY;
+    }
+
+    @Override
+    String foreignKeysQuery() {
+        return FOREIGN_KEYS_QUERY;
+    }
+
+    @Override
+    String indexesQuery() {
+        return INDEXES_QUERY;
+    }
+
+    /**
+     * Fingerprints every base table from a server-side hash of its definition, one row per table
+     */
+    @Override
+    Map<String, String> readFingerprints() throws SQLException {
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+
+        long start = System.nanoTime();
+        try (PreparedStatement ps = prepare(CHECKSUMS_QUERY); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                fingerprints.put(rs.getString("TABLE_NAME"), rs.getString("CHECKSUM"));
+            }
+        } finally {
+            recordFingerprintQuery(start);
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Derives the {@code COLUMN_SIZE} the PostgreSQL driver reports in {@code getColumns}: the
+     * precision of the type, or its display size where it has no precision. Domains are sized
+     * by their base type; one with a modifier of its own reports the raw modifier, or the
+     * precision it encodes for numeric domains.
+     */
+    static int columnSize(int sqlType, int typeOid, int typeMod, int baseTypeOid, int baseTypeMod) {
+        if (sqlType == Types.DISTINCT) {
+            if (baseTypeMod == -1) {
+                return precision(baseTypeOid, typeMod);
+            }
+            return baseTypeOid == NUMERIC ? precision(baseTypeOid, baseTypeMod) : baseTypeMod;
+        }
+        int size = precision(typeOid, typeMod);
+        return size == 0 && sqlType != Types.NUMERIC ? displaySize(typeOid, typeMod) : size;
+    }
+
+    /**
+     * Derives the {@code DECIMAL_DIGITS} the PostgreSQL driver reports in {@code getColumns}
+     */
+    static int decimalDigits(int sqlType, int typeOid, int typeMod, int baseTypeOid, int baseTypeMod) {
+        if (sqlType == Types.DISTINCT) {
+            return scale(baseTypeOid, baseTypeMod != -1 && baseTypeOid == NUMERIC ? baseTypeMod : typeMod);
+        }
+        return scale(typeOid, typeMod);
+    }
+
+    /**
+     * @return the precision of a type: decimal digits of numbers, characters of strings, bits of
+     *         bit strings, the display size of dates and times
+     */
+    private static int precision(int typeOid, int typeMod) {
+        switch (typeOid) {
+            case INT2:
+                return 5;
+            case OID:
+            case INT4:
+                return 10;
+            case INT8:
+                return 19;
+            case FLOAT4:
+                return 8;
+            case FLOAT8:
+                return 17;
+            case NUMERIC:
+                return typeMod == -1 ? 0 : ((typeMod - 4) & 0xFFFF0000) >> 16;
+            case CHAR:
+            case BOOL:
+                return 1;
+            case BPCHAR:
+            case VARCHAR:
+                return typeMod == -1 ? UNKNOWN_LENGTH : typeMod - 4;
+            case DATE:
+            case TIME:
+            case TIMETZ:
+            case INTERVAL:
+            case TIMESTAMP:
+            case TIMESTAMPTZ:
+                return displaySize(typeOid, typeMod);
+            case BIT:
+                return typeMod;
+            case VARBIT:
+                return typeMod == -1 ? UNKNOWN_LENGTH : typeMod;
+            default:
+                return UNKNOWN_LENGTH;
+        }
+    }
+
+    /**
+     * @return the digits after the decimal point of numbers, of the seconds of times
+     */
+    private static int scale(int typeOid, int typeMod) {
+        switch (typeOid) {
+            case FLOAT4:
+                return 8;
+            case FLOAT8:
+                return 17;
+            case NUMERIC:
+                return typeMod == -1 ? 0 : (typeMod - 4) & 0xFFFF;
+            case TIME:
+            case TIMETZ:
+            case TIMESTAMP:
+            case TIMESTAMPTZ:
+                return typeMod == -1 ? 6 : typeMod;
+            case INTERVAL:
+                return typeMod == -1 ? 6 : typeMod & 0xFFFF;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return the length of the longest text form of a value
+     */
+    private static int displaySize(int typeOid, int typeMod) {
+        switch (typeOid) {
+            case INT2:
+                return 6;
+            case INT4:
+                return 11;
+            case OID:
+                return 10;
+            case INT8:
+                return 20;
+            case FLOAT4:
+                return 15;
+            case FLOAT8:
+                return 25;
+            case CHAR:
+            case BOOL:
+                return 1;
+            case DATE:
+                return 13;
+            case TIME:
+            case TIMETZ:
+            case TIMESTAMP:
+            case TIMESTAMPTZ:
+                return dateTimeDisplaySize(typeOid, typeMod);
+            case INTERVAL:
+                return 49;
+            case BPCHAR:
+            case VARCHAR:
+                return typeMod == -1 ? UNKNOWN_LENGTH : typeMod - 4;
+            case NUMERIC:
+                if (typeMod == -1) {
+                    return 131089;
+                }
+                int precision = ((typeMod - 4) >> 16) & 0xFFFF;
+                int scale = (typeMod - 4) & 0xFFFF;
+                return 1 + precision + (scale != 0 ? 1 : 0);
+            case BIT:
+                return typeMod;
+            case VARBIT:
+                return typeMod == -1 ? UNKNOWN_LENGTH : typeMod;
+            default:
+                return UNKNOWN_LENGTH;
+        }
+    }
+
+    /**
+     * Sizes times and timestamps with their fractional seconds, six digits if unspecified.
+     * A precision of 1 counts as 3, as the driver does.
+     */
+    private static int dateTimeDisplaySize(int typeOid, int typeMod) {
+        int secondsSize;
+        switch (typeMod) {
+            case -1:
+                secondsSize = 7;
+                break;
+            case 0:
+                secondsSize = 0;
+                break;
+            case 1:
+                secondsSize = 3;
+                break;
+            default:
+                secondsSize = typeMod + 1;
+                break;
+        }
+        switch (typeOid) {
+            case TIME:
+                return 8 + secondsSize;
+            case TIMETZ:
+                return 8 + secondsSize + 6;
+            case TIMESTAMP:
+                return 22 + secondsSize;
+            default:
+                return 22 + secondsSize + 6;
+        }
+    }
+
+    /**
+     * Derives the type name the PostgreSQL driver reports in {@code getColumns}: integer
+     * columns filled from a sequence as their {@code serial} alias
+     */
+    private static String toTypeName(String typeName, boolean sequence) {
+        if (sequence) {
+            switch (typeName) {
+                case "int2":
+                    return "smallserial";
+                case "int4":
+                    return "serial";
+                case "int8":
+                    return "bigserial";
+                default:
+                    break;
+            }
+        }
+        return typeName;
+    }
+
+    private static int toSqlType(String typeName, String typeType) {
+        if (typeName.startsWith("_")) {
+            return Types.ARRAY;
+        }
+        if ("e".equals(typeType)) {
+            return Types.VARCHAR; // Enum
+        }
+        if ("d".equals(typeType)) {
+            return Types.DISTINCT; // Domain
+        }
+        return SQL_TYPES.getOrDefault(typeName, Types.OTHER);
+    }
+}
@@ -0,0 +1,26 @@
+package com.dbmetagen.app.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL, crawling the connection's current schema, {@code public} unless the URL sets
+ * {@code currentSchema}
+ */
+class PostgreSqlDialect implements CatalogDialect {
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "PostgreSQL".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public CatalogScope scope(Connection connection) throws SQLException {
+        return new CatalogScope(connection.getCatalog(), connection.getSchema());
+    }
+
+    @Override
+    public BulkCatalogReader bulkReader(Connection connection, CatalogScope scope, CrawlMetrics metrics) {
+        return new PgCatalogReader(connection, scope.getSchema(), metrics);
+    }
+}
@@ -0,0 +1,64 @@
+package com.dbmetagen.app.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Global limit on the number of crawls running at the same time across all datasources.
+ *
+ * The limit is read before every crawl, so a configuration reload takes effect for the
+ * next crawl. Lowering it does not interrupt running crawls; new ones wait until enough
+ * of them have finished.
+ */
+final class CrawlLimiter {
+
+    private final IntSupplier limit;
+    private final ResizableSemaphore permits = new ResizableSemaphore();
+    private int appliedLimit;
+
+    CrawlLimiter(IntSupplier limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Runs the crawl once a slot is free
+     */
+    <T> T run(Supplier<T> crawl) {
+        applyLimit(limit.getAsInt());
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a crawl slot", e);
+        }
+        try {
+            return crawl.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private synchronized void applyLimit(int newLimit) {
+        if (newLimit > appliedLimit) {
+            permits.release(newLimit - appliedLimit);
+        } else if (newLimit < appliedLimit) {
+            permits.reducePermits(appliedLimit - newLimit);
+        }
+        appliedLimit = newLimit;
+    }
+
+    /** Exposes {@link Semaphore#reducePermits(int)}, which lets the available permits go negative */
+    private static final class ResizableSemaphore extends Semaphore {
+        private static final long serialVersionUID = 1L;
+
+        private ResizableSemaphore() {
+            super(0, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.dbmetagen.app.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A model generation run submitted through {@link GenerationJobManager}, with its progress
+ * and, once finished, its outcome
+ */
+public class GenerationJob implements GenerationProgress {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final String dataSourceId;
+    private final long submittedAt = System.currentTimeMillis();
+    private final AtomicInteger tablesDone = new AtomicInteger();
+    private final CompletableFuture<GenerationJob> completion = new CompletableFuture<>();
+    private volatile State state = State.QUEUED;
+    private volatile GenerationReport report;
+    private volatile boolean modelsDiscarded;
+    private volatile int tablesTotal = -1;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile boolean cancelRequested;
+    private volatile String error;
+    private volatile Future<?> future;
+
+    GenerationJob(String id, String dataSourceId) {
+        this.id = id;
+        this.dataSourceId = dataSourceId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDataSourceId() {
+        return dataSourceId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getTablesDone() {
+        return tablesDone.get();
+    }
+
+    /**
+     * @return the number of tables to generate, -1 while the metadata is still being crawled
+     */
+    public int getTablesTotal() {
+        return tablesTotal;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    /**
+     * @return when the job started running, 0 while it is queued
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return when the job finished, 0 until then
+     */
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * @return why a failed or cancelled job did not succeed, null otherwise
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @return the report of a job that succeeded, null otherwise. Its models are null once
+     * they have been discarded, see {@link #isModelsDiscarded()}.
+     */
+    public GenerationReport getReport() {
+        return report;
+    }
+
+    /**
+     * @return true if the generated models were dropped from the report because a later job
+     * for the same datasource succeeded
+     */
+    public boolean isModelsDiscarded() {
+        return modelsDiscarded;
+    }
+
+    /**
+     * Completes with this job once it has finished, in whatever state
+     */
+    public CompletableFuture<GenerationJob> getCompletion() {
+        return completion.copy();
+    }
+
+    @Override
+    public void started(int totalTables) {
+        tablesTotal = totalTables;
+    }
+
+    @Override
+    public void tableDone() {
+        tablesDone.incrementAndGet();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * Asks the job to stop. A queued job is cancelled right away, a running one once the
+     * tables being generated are done.
+     * @return false if the job had already finished
+     */
+    synchronized boolean cancel() {
+        if (state.isFinished()) {
+            return false;
+        }
+        cancelRequested = true;
+        if (state == State.QUEUED && future != null && future.cancel(false)) {
+            finish(State.CANCELLED, null, null);
+        }
+        return true;
+    }
+
+    /**
+     * @return false if the job was cancelled before it started
+     */
+    synchronized boolean markRunning() {
+        if (cancelRequested) {
+            finish(State.CANCELLED, null, null);
+            return false;
+        }
+        startedAt = System.currentTimeMillis();
+        state = State.RUNNING;
+        return true;
+    }
+
+    /**
+     * Records the outcome, unless the job already has one
+     * @param failure the cause of a failed job, null otherwise
+     */
+    synchronized void finish(State finalState, GenerationReport report, Throwable failure) {
+        if (state.isFinished()) {
+            return;
+        }
+        finishedAt = System.currentTimeMillis();
+        if (finalState == State.SUCCEEDED) {
+            this.report = report;
+        } else if (finalState == State.CANCELLED) {
+            error = "Cancelled";
+        } else {
+            error = failure.getMessage();
+        }
+        state = finalState;
+        completion.complete(this);
+    }
+
+    /**
+     * Drops the generated sources from the report, keeping the file counts
+     */
+    synchronized void discardModels() {
+        if (report == null || modelsDiscarded) {
+            return;
+        }
+        GenerationReport counts = new GenerationReport();
+        counts.setWritten(report.getWritten());
+        counts.setSkipped(report.getSkipped());
+        counts.setDeleted(report.getDeleted());
+        counts.setDurationMs(report.getDurationMs());
+        report = counts;
+        modelsDiscarded = true;
+    }
+}
@@ -0,0 +1,169 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.config.DatabaseConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs model generation as background jobs on a dedicated executor.
+ *
+ * A submission for a datasource that already has a queued or running job joins that job
+ * instead of starting another one, so two generations never write the same files at once.
+ * Finished jobs are kept for the configured retention time and purged when jobs are next
+ * submitted or looked up. Only the latest job that succeeded for each datasource keeps the
+ * generated models in its report; earlier ones keep just the file counts.
+ */
+@Service
+public class GenerationJobManager {
+
+    private final ModelGeneratorService modelGeneratorService;
+    private final DatabaseConfig databaseConfig;
+    private final Map<String, GenerationJob> jobs = new ConcurrentHashMap<>();
+    /** Queued or running job by datasource id */
+    private final Map<String, GenerationJob> activeJobs = new HashMap<>();
+    /** Latest job that succeeded by datasource id, the only one holding generated models */
+    private final Map<String, GenerationJob> latestReports = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public GenerationJobManager(ModelGeneratorService modelGeneratorService, DatabaseConfig databaseConfig) {
+        this.modelGeneratorService = modelGeneratorService;
+        this.databaseConfig = databaseConfig;
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = databaseConfig.snapshot().getGenerationJobThreads();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "generation-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts generating the datasource's model classes, or returns the job already doing so
+     */
+    public synchronized GenerationJob submit(String dataSourceId) {
+        purgeExpired();
+        GenerationJob active = activeJobs.get(dataSourceId);
+        if (active != null) {
+            return active;
+        }
+
+        resizeExecutor(databaseConfig.snapshot().getGenerationJobThreads());
+        GenerationJob job = new GenerationJob(UUID.randomUUID().toString(), dataSourceId);
+        jobs.put(job.getId(), job);
+        activeJobs.put(dataSourceId, job);
+        job.setFuture(executor.submit(() -> run(job)));
+        return job;
+    }
+
+    /**
+     * @return the job, or null if there is no such job or it has expired
+     */
+    public GenerationJob getJob(String jobId) {
+        purgeExpired();
+        return jobs.get(jobId);
+    }
+
+    /**
+     * @return every job that has not expired, most recently submitted first
+     */
+    public List<GenerationJob> getJobs() {
+        purgeExpired();
+        List<GenerationJob> result = new ArrayList<>(jobs.values());
+        result.sort((a, b) -> Long.compare(b.getSubmittedAt(), a.getSubmittedAt()));
+        return result;
+    }
+
+    /**
+     * Cancels the job, see {@link GenerationJob#cancel()}
+     * @return false if there is no such job or it had already finished
+     */
+    public boolean cancel(String jobId) {
+        GenerationJob job = jobs.get(jobId);
+        if (job == null || !job.cancel()) {
+            return false;
+        }
+        if (job.getState().isFinished()) {
+            release(job);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(GenerationJob job) {
+        if (!job.markRunning()) {
+            release(job);
+            return;
+        }
+        GenerationJob.State outcome;
+        GenerationReport report = null;
+        Throwable failure = null;
+        try {
+            report = modelGeneratorService.generateModelClasses(job.getDataSourceId(), job);
+            outcome = GenerationJob.State.SUCCEEDED;
+        } catch (CancellationException e) {
+            outcome = GenerationJob.State.CANCELLED;
+        } catch (Throwable e) {
+            outcome = GenerationJob.State.FAILED;
+            failure = e;
+        }
+        // Released before the job completes, so a submission made once it has completed starts a new job
+        release(job);
+        if (outcome == GenerationJob.State.SUCCEEDED) {
+            GenerationJob previous = latestReports.put(job.getDataSourceId(), job);
+            if (previous != null) {
+                previous.discardModels();
+            }
+        }
+        job.finish(outcome, report, failure);
+    }
+
+    private synchronized void release(GenerationJob job) {
+        activeJobs.remove(job.getDataSourceId(), job);
+    }
+
+    private void purgeExpired() {
+        long expiredBefore = System.currentTimeMillis()
+                - TimeUnit.SECONDS.toMillis(databaseConfig.snapshot().getGenerationJobRetentionSeconds());
+        Iterator<GenerationJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            GenerationJob job = iterator.next();
+            if (job.getState().isFinished() && job.getFinishedAt() < expiredBefore) {
+                iterator.remove();
+                latestReports.remove(job.getDataSourceId(), job);
+            }
+        }
+    }
+
+    /**
+     * Applies a changed thread count from a configuration reload
+     */
+    private void resizeExecutor(int threads) {
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else if (threads < executor.getMaximumPoolSize()) {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+}
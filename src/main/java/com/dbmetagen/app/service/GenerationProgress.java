@@ -0,0 +1,40 @@
+package com.dbmetagen.app.service;
+
+/**
+ * Receives progress from a model generation run and tells it whether to stop
+ */
+public interface GenerationProgress {
+
+    /** Ignores progress and never cancels */
+    GenerationProgress NONE = new GenerationProgress() {
+        @Override
+        public void started(int totalTables) {
+        }
+
+        @Override
+        public void tableDone() {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /**
+     * Called once the metadata is available, before the first table is generated
+     */
+    void started(int totalTables);
+
+    /**
+     * Called from the generator threads after each table
+     */
+    void tableDone();
+
+    /**
+     * Polled once the metadata is crawled and before each table; once true, no new table is
+     * started and the run fails with a {@link java.util.concurrent.CancellationException}.
+     * A run that had already started every table completes normally.
+     */
+    boolean isCancelled();
+}
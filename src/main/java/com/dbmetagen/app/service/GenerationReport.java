@@ -0,0 +1,21 @@
+package com.dbmetagen.app.service;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Outcome of generating the model classes for every table
+ */
+@Data
+public class GenerationReport {
+    /** Generated source keyed by class name */
+    private Map<String, String> models;
+    /** Files whose content changed and were rewritten */
+    private int written;
+    /** Files that already had the generated content and were left untouched */
+    private int skipped;
+    /** Files of tables that no longer exist */
+    private int deleted;
+    private long durationMs;
+}
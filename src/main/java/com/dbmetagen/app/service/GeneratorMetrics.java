@@ -0,0 +1,81 @@
+package com.dbmetagen.app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metadata cache and model generation meters. Throughput is derived from the counters by
+ * the metrics backend, e.g. as a rate of generated tables or written bytes.
+ */
+class GeneratorMetrics {
+
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter cacheEvictions;
+    private final Timer fullLoads;
+    private final Timer incrementalLoads;
+    private final Counter failedLoads;
+    private final Counter tablesGenerated;
+    private final Counter filesWritten;
+    private final Counter filesSkipped;
+    private final Counter filesDeleted;
+    private final Counter bytesWritten;
+    private final Timer generations;
+
+    GeneratorMetrics(MeterRegistry registry) {
+        this.cacheHits = Counter.builder("dbmetagen.cache.requests").tag("result", "hit")
+                .description("Metadata requests served from a cached snapshot").register(registry);
+        this.cacheMisses = Counter.builder("dbmetagen.cache.requests").tag("result", "miss")
+                .description("Metadata requests that had to wait for a load").register(registry);
+        this.cacheEvictions = Counter.builder("dbmetagen.cache.evictions")
+                .description("Snapshots dropped to stay within the cache memory budget").register(registry);
+        this.fullLoads = Timer.builder("dbmetagen.cache.loads").tag("type", "full")
+                .publishPercentileHistogram().register(registry);
+        this.incrementalLoads = Timer.builder("dbmetagen.cache.loads").tag("type", "incremental")
+                .publishPercentileHistogram().register(registry);
+        this.failedLoads = Counter.builder("dbmetagen.cache.load.failures").register(registry);
+        this.tablesGenerated = Counter.builder("dbmetagen.generation.tables")
+                .description("Model classes rendered").register(registry);
+        this.filesWritten = Counter.builder("dbmetagen.generation.files").tag("result", "written").register(registry);
+        this.filesSkipped = Counter.builder("dbmetagen.generation.files").tag("result", "skipped").register(registry);
+        this.filesDeleted = Counter.builder("dbmetagen.generation.files").tag("result", "deleted").register(registry);
+        this.bytesWritten = Counter.builder("dbmetagen.generation.bytes").baseUnit("bytes")
+                .description("Bytes of model classes written to disk").register(registry);
+        this.generations = Timer.builder("dbmetagen.generation.duration")
+                .description("Time to generate and write every model class of a datasource").register(registry);
+    }
+
+    void cacheRequest(boolean hit) {
+        (hit ? cacheHits : cacheMisses).increment();
+    }
+
+    void cacheEviction() {
+        cacheEvictions.increment();
+    }
+
+    void load(RefreshResult result) {
+        (result.isFullCrawl() ? fullLoads : incrementalLoads).record(result.getDurationMs(), TimeUnit.MILLISECONDS);
+    }
+
+    void loadFailed() {
+        failedLoads.increment();
+    }
+
+    void tableGenerated() {
+        tablesGenerated.increment();
+    }
+
+    void fileWritten(int bytes) {
+        filesWritten.increment();
+        bytesWritten.increment(bytes);
+    }
+
+    void generation(GenerationReport report) {
+        filesSkipped.increment(report.getSkipped());
+        filesDeleted.increment(report.getDeleted());
+        generations.record(report.getDurationMs(), TimeUnit.MILLISECONDS);
+    }
+}
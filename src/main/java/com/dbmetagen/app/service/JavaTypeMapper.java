@@ -0,0 +1,96 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps columns to Java types for generated model fields.
+ *
+ * The type is looked up by the column's {@link Types} code in a precomputed table, so
+ * mapping a column neither parses nor allocates strings. Overrides configured for the
+ * database product are matched against the column's type name first.
+ */
+final class JavaTypeMapper {
+
+    static final JavaTypeMapper DEFAULT = new JavaTypeMapper(Collections.emptyMap());
+
+    private static final String DEFAULT_JAVA_TYPE = "String";
+
+    /** Lowest and highest {@link Types} codes in the table */
+    private static final int MIN_TYPE = Types.LONGNVARCHAR;
+    private static final int MAX_TYPE = Types.TIMESTAMP_WITH_TIMEZONE;
+
+    private static final String[] JAVA_TYPES = new String[MAX_TYPE - MIN_TYPE + 1];
+
+    // The types the generator always produced, except where they cannot hold the column's
+    // values: BIGINT as Long rather than Integer, and the binary types (the BLOB family,
+    // BINARY and spatial columns share their codes) as byte[]
+    static {
+        map("Boolean", Types.BIT, Types.BOOLEAN);
+        map("Integer", Types.TINYINT, Types.SMALLINT, Types.INTEGER);
+        map("Long", Types.BIGINT);
+        map("Double", Types.REAL, Types.FLOAT, Types.DOUBLE, Types.DECIMAL, Types.NUMERIC);
+        map("java.util.Date", Types.DATE);
+        map("java.sql.Time", Types.TIME, Types.TIME_WITH_TIMEZONE);
+        map("java.sql.Timestamp", Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE);
+        map("byte[]", Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB);
+        map("String", Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR,
+                Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB, Types.SQLXML);
+    }
+
+    private final Map<String, String> overrides;
+
+    /**
+     * @param overrides Java types by column type name, looked up ignoring case
+     */
+    JavaTypeMapper(Map<String, String> overrides) {
+        this.overrides = overrides;
+    }
+
+    private static void map(String javaType, int... sqlTypes) {
+        for (int sqlType : sqlTypes) {
+            JAVA_TYPES[sqlType - MIN_TYPE] = javaType;
+        }
+    }
+
+    String getJavaType(ColumnMetadata column) {
+        if (!overrides.isEmpty()) {
+            String override = overrides.get(column.getDataType());
+            if (override != null) {
+                return override;
+            }
+        }
+
+        int sqlType = column.getSqlType();
+        // Types whose range or width changes the Java type
+        if (column.isUnsigned() && sqlType == Types.INTEGER) {
+            return "Long";
+        } else if (column.isUnsigned() && sqlType == Types.BIGINT) {
+            return "java.math.BigInteger";
+        } else if (sqlType == Types.BIT && column.getSize() > 1) {
+            return "byte[]";
+        }
+
+        if (sqlType < MIN_TYPE || sqlType > MAX_TYPE) {
+            return DEFAULT_JAVA_TYPE;
+        }
+        String javaType = JAVA_TYPES[sqlType - MIN_TYPE];
+        return javaType != null ? javaType : DEFAULT_JAVA_TYPE;
+    }
+
+    /**
+     * Stores the Java type of every column in the tables
+     */
+    void resolve(List<TableMetadata> tables) {
+        for (TableMetadata table : tables) {
+            for (ColumnMetadata column : table.getColumns()) {
+                column.setJavaType(getJavaType(column));
+            }
+        }
+    }
+}
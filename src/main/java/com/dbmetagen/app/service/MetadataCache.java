@@ -0,0 +1,181 @@
+package com.dbmetagen.app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache for the crawled metadata snapshot.
+ *
+ * Concurrent callers share a single in-flight load. Snapshots are published through an
+ * atomic reference only once they are fully built. When a snapshot is older than the TTL
+ * it is still returned while one background reload replaces it. An invalidation bumps a
+ * generation counter so a load started before it can never publish its result, and no
+ * caller after it joins such a load. Loads run on an executor shared by all caches.
+ */
+class MetadataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(MetadataCache.class);
+
+    private final UnaryOperator<MetadataSnapshot> loader;
+    private final LongSupplier ttlMillis;
+    private final AtomicReference<MetadataSnapshot> current = new AtomicReference<>();
+    private final AtomicReference<Load> inFlight = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Consumer<MetadataSnapshot> publishListener;
+    private final Executor loaderExecutor;
+
+    /**
+     * @param loader builds a new snapshot from the previous one, which is null for a cold load
+     * @param ttlMillis supplies the time after which a snapshot is revalidated, 0 to never expire
+     * @param publishListener called on the loader thread with every loaded snapshot once it is published
+     * @param loaderExecutor runs the loads
+     */
+    MetadataCache(UnaryOperator<MetadataSnapshot> loader, LongSupplier ttlMillis, Consumer<MetadataSnapshot> publishListener,
+                  Executor loaderExecutor) {
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.publishListener = publishListener;
+        this.loaderExecutor = loaderExecutor;
+    }
+
+    /**
+     * Returns the current snapshot, waiting for a load only if nothing is cached yet
+     */
+    MetadataSnapshot get() {
+        MetadataSnapshot snapshot = current.get();
+        if (snapshot == null) {
+            return await(load());
+        }
+
+        long ttl = ttlMillis.getAsLong();
+        if (ttl > 0 && System.currentTimeMillis() - snapshot.getLoadedAt() > ttl) {
+            // Stale while revalidate
+            load();
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the cached snapshot without loading or revalidating it, null if there is none
+     */
+    MetadataSnapshot peek() {
+        return current.get();
+    }
+
+    /**
+     * Reloads the snapshot and waits for the result. Joins a load that is already running,
+     * unless it was started before the last invalidation.
+     */
+    MetadataSnapshot reload() {
+        return await(load());
+    }
+
+    /**
+     * Starts a reload, or joins the one that is already running as {@link #reload()} does,
+     * without waiting for it
+     */
+    CompletableFuture<MetadataSnapshot> reloadAsync() {
+        return load();
+    }
+
+    /**
+     * Serves a snapshot restored from elsewhere until it has been revalidated in the background.
+     * Ignored if a snapshot is already cached.
+     */
+    void restore(MetadataSnapshot snapshot) {
+        if (current.compareAndSet(null, snapshot)) {
+            load();
+        }
+    }
+
+    /**
+     * Drops the cached snapshot. Loads started before the call are not published.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        current.set(null);
+        inFlight.set(null);
+    }
+
+    private CompletableFuture<MetadataSnapshot> load() {
+        while (true) {
+            long loadGeneration = generation.get();
+            Load running = inFlight.get();
+            if (running != null && running.generation == loadGeneration) {
+                return running.future;
+            }
+
+            // Read after the generation, so an invalidation in between leaves this load unpublished
+            MetadataSnapshot previous = current.get();
+            Load load = new Load(loadGeneration);
+            if (inFlight.compareAndSet(running, load)) {
+                loaderExecutor.execute(() -> runLoad(load, previous));
+                return load.future;
+            }
+        }
+    }
+
+    private void runLoad(Load load, MetadataSnapshot previous) {
+        try {
+            MetadataSnapshot snapshot = loader.apply(previous);
+            boolean published = generation.get() == load.generation;
+            if (published) {
+                current.set(snapshot);
+                // An invalidation between the check and the set must still drop the snapshot
+                if (generation.get() != load.generation) {
+                    current.compareAndSet(snapshot, null);
+                    published = false;
+                }
+            }
+            // Cleared before completing, so a caller woken by this load that reloads starts a new one
+            inFlight.compareAndSet(load, null);
+            load.future.complete(snapshot);
+            if (published) {
+                notifyPublished(snapshot);
+            }
+        } catch (Throwable e) {
+            if (previous != null) {
+                log.warn("Background metadata reload failed, serving the previous snapshot", e);
+            }
+            inFlight.compareAndSet(load, null);
+            load.future.completeExceptionally(e);
+        }
+    }
+
+    private void notifyPublished(MetadataSnapshot snapshot) {
+        try {
+            publishListener.accept(snapshot);
+        } catch (RuntimeException e) {
+            log.warn("Failed to handle a published metadata snapshot", e);
+        }
+    }
+
+    private static MetadataSnapshot await(CompletableFuture<MetadataSnapshot> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Failed to load database metadata", e.getCause());
+        }
+    }
+
+    private static final class Load {
+        private final long generation;
+        private final CompletableFuture<MetadataSnapshot> future = new CompletableFuture<>();
+
+        private Load(long generation) {
+            this.generation = generation;
+        }
+    }
+}
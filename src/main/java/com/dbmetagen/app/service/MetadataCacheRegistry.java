@@ -0,0 +1,266 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.ForeignKeyMetadata;
+import com.dbmetagen.app.model.IndexMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * One {@link MetadataCache} per datasource, with least-recently-used eviction of the cached
+ * snapshots once their estimated size exceeds a memory budget.
+ *
+ * Lookups only bump an access tick, so they never contend with each other. The budget is
+ * enforced whenever a snapshot is published: snapshots of the least recently used other
+ * datasources are dropped until the total fits, and are crawled again on their next use.
+ * A single snapshot larger than the budget is kept.
+ *
+ * A serialized form of a snapshot can be attached to its partition. It counts against the
+ * budget with the snapshot and is dropped together with it.
+ *
+ * The caches load on one executor owned by the registry, whose threads end when idle, so
+ * the number of datasources does not add threads.
+ */
+class MetadataCacheRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(MetadataCacheRegistry.class);
+
+    /** Rough heap cost of the objects behind each element, excluding the strings they reference */
+    private static final long TABLE_BYTES = 160;
+    private static final long COLUMN_BYTES = 112;
+    private static final long FOREIGN_KEY_BYTES = 48;
+    private static final long INDEX_BYTES = 80;
+    private static final long STRING_BYTES = 48;
+
+    private final BiFunction<String, Executor, MetadataCache> cacheFactory;
+    private final LongSupplier budgetBytes;
+    private final Runnable evictionListener;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final ExecutorService loaderExecutor;
+
+    /**
+     * @param cacheFactory creates the cache of a datasource on first use, loading on the given executor
+     * @param budgetBytes supplies the memory budget for all cached snapshots, 0 for no limit
+     * @param evictionListener called for every snapshot evicted to stay within the budget
+     */
+    MetadataCacheRegistry(BiFunction<String, Executor, MetadataCache> cacheFactory, LongSupplier budgetBytes, Runnable evictionListener) {
+        this.cacheFactory = cacheFactory;
+        this.budgetBytes = budgetBytes;
+        this.evictionListener = evictionListener;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.loaderExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "metadata-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the cache of the datasource, created on first use
+     */
+    MetadataCache get(String dataSourceId) {
+        Partition partition = partitions.computeIfAbsent(dataSourceId, id -> new Partition(cacheFactory.apply(id, loaderExecutor)));
+        partition.lastAccess = clock.incrementAndGet();
+        return partition.cache;
+    }
+
+    /**
+     * Records the size of a snapshot the datasource's cache now holds and evicts others if over budget
+     */
+    void published(String dataSourceId, MetadataSnapshot snapshot) {
+        Partition partition = partitions.get(dataSourceId);
+        if (partition == null) {
+            return;
+        }
+        long weight = estimateBytes(snapshot);
+        synchronized (this) {
+            partition.snapshotWeight = weight;
+            // Made from the previous snapshot
+            partition.attachment = null;
+        }
+        evict(dataSourceId);
+    }
+
+    /**
+     * @return the bytes attached to the datasource's cached snapshot of this metadata, null if there are none
+     */
+    byte[] attachment(String dataSourceId, DatabaseMetadata metadata) {
+        Partition partition = partitions.get(dataSourceId);
+        Attachment attachment = partition == null ? null : partition.attachment;
+        return attachment != null && attachment.metadata == metadata ? attachment.bytes : null;
+    }
+
+    /**
+     * Attaches bytes derived from the metadata to the datasource's cached snapshot and evicts
+     * others if that puts the total over budget. Ignored if the metadata is no longer cached.
+     */
+    void attach(String dataSourceId, DatabaseMetadata metadata, byte[] bytes) {
+        Partition partition = partitions.get(dataSourceId);
+        if (partition == null) {
+            return;
+        }
+        synchronized (this) {
+            MetadataSnapshot cached = partition.cache.peek();
+            if (cached == null || cached.getMetadata() != metadata) {
+                return;
+            }
+            partition.attachment = new Attachment(metadata, bytes);
+        }
+        evict(dataSourceId);
+    }
+
+    /**
+     * @return the datasource's cached snapshot without creating its cache or counting an access, null if there is none
+     */
+    MetadataSnapshot peek(String dataSourceId) {
+        Partition partition = partitions.get(dataSourceId);
+        return partition == null ? null : partition.cache.peek();
+    }
+
+    /**
+     * Drops the datasource's cached snapshot, keeping its cache for the next load
+     */
+    void invalidate(String dataSourceId) {
+        Partition partition = partitions.get(dataSourceId);
+        if (partition != null) {
+            partition.cache.invalidate();
+            partition.drop();
+        }
+    }
+
+    /**
+     * Drops the datasource's cached snapshot and forgets the datasource
+     */
+    void remove(String dataSourceId) {
+        Partition partition = partitions.remove(dataSourceId);
+        if (partition != null) {
+            partition.cache.invalidate();
+            partition.drop();
+        }
+    }
+
+    /**
+     * Drops every cached snapshot and forgets all datasources
+     */
+    void invalidateAll() {
+        for (Partition partition : partitions.values()) {
+            partition.cache.invalidate();
+            partition.drop();
+        }
+        partitions.clear();
+    }
+
+    private synchronized void evict(String keepDataSourceId) {
+        long budget = budgetBytes.getAsLong();
+        if (budget <= 0) {
+            return;
+        }
+        long total = 0;
+        List<Map.Entry<String, Partition>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+            long weight = entry.getValue().weight();
+            total += weight;
+            if (weight > 0 && !entry.getKey().equals(keepDataSourceId)) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+
+        for (Map.Entry<String, Partition> entry : candidates) {
+            if (total <= budget) {
+                break;
+            }
+            Partition partition = entry.getValue();
+            total -= partition.weight();
+            partition.drop();
+            partition.cache.invalidate();
+            evictionListener.run();
+            log.info("Evicted cached metadata of datasource {} to stay within the cache memory budget", entry.getKey());
+        }
+    }
+
+    /**
+     * @return the approximate heap size of the snapshot's metadata. Strings interned when the
+     *         snapshot was frozen are counted once.
+     */
+    static long estimateBytes(MetadataSnapshot snapshot) {
+        Set<String> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (TableMetadata table : snapshot.getMetadata().getTables()) {
+            bytes += TABLE_BYTES + stringBytes(table.getTableName(), counted) + stringBytes(table.getPrimaryKey(), counted);
+            for (ColumnMetadata column : table.getColumns()) {
+                bytes += COLUMN_BYTES + stringBytes(column.getColumnName(), counted) + stringBytes(column.getDataType(), counted)
+                        + stringBytes(column.getDefaultValue(), counted);
+            }
+            for (ForeignKeyMetadata fk : table.getForeignKeys()) {
+                bytes += FOREIGN_KEY_BYTES + stringBytes(fk.getConstraintName(), counted) + stringBytes(fk.getColumnName(), counted)
+                        + stringBytes(fk.getReferenceTableName(), counted) + stringBytes(fk.getReferenceColumnName(), counted);
+            }
+            for (IndexMetadata index : table.getIndexes()) {
+                bytes += INDEX_BYTES + stringBytes(index.getIndexName(), counted);
+                for (String columnName : index.getColumnNames()) {
+                    bytes += stringBytes(columnName, counted);
+                }
+            }
+        }
+        // Fingerprint keys are the table name strings, only the values are extra
+        for (String fingerprint : snapshot.getFingerprints().values()) {
+            bytes += stringBytes(fingerprint, counted);
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value, Set<String> counted) {
+        return value == null || !counted.add(value) ? 0 : STRING_BYTES + value.length();
+    }
+
+    private static final class Partition {
+        private final MetadataCache cache;
+        private volatile long lastAccess;
+        private volatile long snapshotWeight;
+        private volatile Attachment attachment;
+
+        private Partition(MetadataCache cache) {
+            this.cache = cache;
+        }
+
+        private long weight() {
+            Attachment current = attachment;
+            return snapshotWeight + (current == null ? 0 : current.bytes.length);
+        }
+
+        private void drop() {
+            snapshotWeight = 0;
+            attachment = null;
+        }
+    }
+
+    private static final class Attachment {
+        private final DatabaseMetadata metadata;
+        private final byte[] bytes;
+
+        private Attachment(DatabaseMetadata metadata, byte[] bytes) {
+            this.metadata = metadata;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.model.DatabaseMetadata;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Immutable unit of publication for the metadata cache
+ */
+@Value
+class MetadataSnapshot {
+    DatabaseMetadata metadata;
+    /** Table fingerprints taken before the crawl, keyed by table name in catalog order */
+    Map<String, String> fingerprints;
+    long loadedAt;
+    /** Whether the tables were read with bulk catalog queries, which a refresh has to use as well */
+    boolean bulkCrawl;
+    /** How this snapshot was derived from the previous one */
+    RefreshResult refreshResult;
+}
@@ -0,0 +1,319 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.ForeignKeyMetadata;
+import com.dbmetagen.app.model.IndexMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding of a metadata snapshot.
+ *
+ * Layout: magic, format version, a table of the distinct strings, then the snapshot with
+ * every string written as a varint reference into that table, and a CRC32 of all the
+ * preceding bytes. Column, type and table names repeat a lot across a schema, so each
+ * is stored once. Resolved Java types are not stored; they depend on the configuration.
+ */
+final class MetadataSnapshotCodec {
+
+    private static final int MAGIC = 0x44424D53; // "DBMS"
+
+    /** Bump when the layout changes; files of other versions are ignored */
+    static final int FORMAT_VERSION = 2;
+
+    private static final int NULLABLE = 1;
+    private static final int PRIMARY_KEY = 1 << 1;
+    private static final int AUTO_INCREMENT = 1 << 2;
+    private static final int UNSIGNED = 1 << 3;
+
+    private MetadataSnapshotCodec() {
+    }
+
+    static byte[] encode(MetadataSnapshot snapshot, String url) {
+        Encoder body = new Encoder();
+        DatabaseMetadata metadata = snapshot.getMetadata();
+        body.writeString(url);
+        body.writeString(metadata.getDatabaseName());
+        body.writeString(metadata.getDatabaseProductName());
+        body.writeLong(snapshot.getLoadedAt());
+        body.write(snapshot.isBulkCrawl() ? 1 : 0);
+
+        body.writeVarInt(snapshot.getFingerprints().size());
+        for (Map.Entry<String, String> entry : snapshot.getFingerprints().entrySet()) {
+            body.writeString(entry.getKey());
+            body.writeString(entry.getValue());
+        }
+
+        body.writeVarInt(metadata.getTables().size());
+        for (TableMetadata table : metadata.getTables()) {
+            body.writeString(table.getTableName());
+            body.writeString(table.getPrimaryKey());
+
+            body.writeVarInt(table.getColumns().size());
+            for (ColumnMetadata column : table.getColumns()) {
+                body.writeString(column.getColumnName());
+                body.writeString(column.getDataType());
+                body.writeSignedVarInt(column.getSqlType());
+                body.writeSignedVarInt(column.getSize());
+                body.writeSignedVarInt(column.getDecimalDigits());
+                body.write((column.isNullable() ? NULLABLE : 0)
+                        | (column.isPrimaryKey() ? PRIMARY_KEY : 0)
+                        | (column.isAutoIncrement() ? AUTO_INCREMENT : 0)
+                        | (column.isUnsigned() ? UNSIGNED : 0));
+                body.writeString(column.getDefaultValue());
+            }
+
+            body.writeVarInt(table.getForeignKeys().size());
+            for (ForeignKeyMetadata fk : table.getForeignKeys()) {
+                body.writeString(fk.getConstraintName());
+                body.writeString(fk.getColumnName());
+                body.writeString(fk.getReferenceTableName());
+                body.writeString(fk.getReferenceColumnName());
+            }
+
+            body.writeVarInt(table.getIndexes().size());
+            for (IndexMetadata index : table.getIndexes()) {
+                body.writeString(index.getIndexName());
+                body.write(index.isUnique() ? 1 : 0);
+                body.writeVarInt(index.getColumnNames().size());
+                for (String columnName : index.getColumnNames()) {
+                    body.writeString(columnName);
+                }
+            }
+        }
+
+        Encoder file = new Encoder();
+        file.writeInt(MAGIC);
+        file.writeVarInt(FORMAT_VERSION);
+        file.writeVarInt(body.strings.size());
+        for (String string : body.strings.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            file.writeVarInt(bytes.length);
+            file.write(bytes, 0, bytes.length);
+        }
+        file.write(body.bytes, 0, body.length);
+
+        CRC32 crc = new CRC32();
+        crc.update(file.bytes, 0, file.length);
+        file.writeInt((int) crc.getValue());
+        return Arrays.copyOf(file.bytes, file.length);
+    }
+
+    /**
+     * @param expectedUrl the URL the snapshot must have been crawled from
+     * @return the snapshot, or null if it was written for another URL
+     * @throws IOException if the data is corrupt or of another format version
+     */
+    static MetadataSnapshot decode(ByteBuffer buffer, String expectedUrl) throws IOException {
+        if (buffer.remaining() < 8) {
+            throw new IOException("Snapshot file is truncated");
+        }
+        ByteBuffer checked = buffer.duplicate();
+        checked.limit(checked.limit() - 4);
+        CRC32 crc = new CRC32();
+        crc.update(checked);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        try {
+            Decoder in = new Decoder(buffer);
+            if (in.buffer.getInt() != MAGIC) {
+                throw new IOException("Not a metadata snapshot");
+            }
+            int version = in.readVarInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format version " + version);
+            }
+            int stringCount = in.readVarInt();
+            in.strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                byte[] bytes = new byte[in.readVarInt()];
+                in.buffer.get(bytes);
+                in.strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            if (!expectedUrl.equals(in.readString())) {
+                return null;
+            }
+            DatabaseMetadata metadata = new DatabaseMetadata();
+            metadata.setDatabaseName(in.readString());
+            metadata.setDatabaseProductName(in.readString());
+            long loadedAt = in.buffer.getLong();
+            boolean bulkCrawl = in.buffer.get() != 0;
+
+            int fingerprintCount = in.readVarInt();
+            Map<String, String> fingerprints = new LinkedHashMap<>();
+            for (int i = 0; i < fingerprintCount; i++) {
+                fingerprints.put(in.readString(), in.readString());
+            }
+
+            int tableCount = in.readVarInt();
+            List<TableMetadata> tables = new ArrayList<>(tableCount);
+            for (int t = 0; t < tableCount; t++) {
+                TableMetadata table = new TableMetadata();
+                table.setTableName(in.readString());
+                table.setPrimaryKey(in.readString());
+
+                int columnCount = in.readVarInt();
+                List<ColumnMetadata> columns = new ArrayList<>(columnCount);
+                for (int c = 0; c < columnCount; c++) {
+                    ColumnMetadata column = new ColumnMetadata();
+                    column.setColumnName(in.readString());
+                    column.setDataType(in.readString());
+                    column.setSqlType(in.readSignedVarInt());
+                    column.setSize(in.readSignedVarInt());
+                    column.setDecimalDigits(in.readSignedVarInt());
+                    int flags = in.buffer.get();
+                    column.setNullable((flags & NULLABLE) != 0);
+                    column.setPrimaryKey((flags & PRIMARY_KEY) != 0);
+                    column.setAutoIncrement((flags & AUTO_INCREMENT) != 0);
+                    column.setUnsigned((flags & UNSIGNED) != 0);
+                    column.setDefaultValue(in.readString());
+                    columns.add(column);
+                }
+                table.setColumns(columns);
+
+                int fkCount = in.readVarInt();
+                List<ForeignKeyMetadata> foreignKeys = new ArrayList<>(fkCount);
+                for (int f = 0; f < fkCount; f++) {
+                    ForeignKeyMetadata fk = new ForeignKeyMetadata();
+                    fk.setConstraintName(in.readString());
+                    fk.setColumnName(in.readString());
+                    fk.setReferenceTableName(in.readString());
+                    fk.setReferenceColumnName(in.readString());
+                    foreignKeys.add(fk);
+                }
+                table.setForeignKeys(foreignKeys);
+
+                int indexCount = in.readVarInt();
+                List<IndexMetadata> indexes = new ArrayList<>(indexCount);
+                for (int x = 0; x < indexCount; x++) {
+                    IndexMetadata index = new IndexMetadata();
+                    index.setIndexName(in.readString());
+                    index.setUnique(in.buffer.get() != 0);
+                    int indexColumnCount = in.readVarInt();
+                    List<String> columnNames = new ArrayList<>(indexColumnCount);
+                    for (int c = 0; c < indexColumnCount; c++) {
+                        columnNames.add(in.readString());
+                    }
+                    index.setColumnNames(columnNames);
+                    indexes.add(index);
+                }
+                table.setIndexes(indexes);
+
+                tables.add(table);
+            }
+            metadata.setTables(tables);
+
+            RefreshResult result = new RefreshResult();
+            result.setUnchangedTables(tables.size());
+            return new MetadataSnapshot(metadata, fingerprints, loadedAt, bulkCrawl, result);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Snapshot file is corrupt", e);
+        }
+    }
+
+    private static final class Encoder {
+        private byte[] bytes = new byte[64 * 1024];
+        private int length;
+        /** Distinct strings in order of first use, with their reference number */
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        /** Null is reference 0, table entries start at 1 */
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer reference = strings.get(value);
+            if (reference == null) {
+                reference = strings.size() + 1;
+                strings.put(value, reference);
+            }
+            writeVarInt(reference);
+        }
+
+        private void write(int b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        private void write(byte[] source, int offset, int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(source, offset, bytes, length, count);
+            length += count;
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        /** Zig-zag encoded, so small negative values stay short */
+        private void writeSignedVarInt(int value) {
+            writeVarInt((value << 1) ^ (value >> 31));
+        }
+
+        private void writeInt(int value) {
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        private void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private String[] strings;
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private String readString() {
+            int reference = readVarInt();
+            return reference == 0 ? null : strings[reference - 1];
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IndexOutOfBoundsException("Malformed varint");
+        }
+
+        private int readSignedVarInt() {
+            int value = readVarInt();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
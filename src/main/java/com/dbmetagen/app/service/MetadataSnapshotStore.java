@@ -0,0 +1,65 @@
+package com.dbmetagen.app.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Persists metadata snapshots under the output directory, one file per database URL and
+ * catalog, so a restarted instance can serve the last crawl without crawling again
+ */
+final class MetadataSnapshotStore {
+
+    static final String SNAPSHOT_DIRECTORY = ".snapshots";
+
+    private MetadataSnapshotStore() {
+    }
+
+    /**
+     * @return the snapshot file for a database, named after the catalog and a hash of the URL and catalog
+     */
+    static Path getSnapshotFile(String outputDirectory, String url, String catalog) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((url + '\n' + catalog).getBytes(StandardCharsets.UTF_8));
+            StringBuilder fileName = new StringBuilder();
+            fileName.append(catalog.replaceAll("[^A-Za-z0-9_.-]", "_")).append('-');
+            for (int i = 0; i < 8; i++) {
+                fileName.append(String.format("%02x", hash[i]));
+            }
+            return Paths.get(outputDirectory, SNAPSHOT_DIRECTORY, fileName.append(".snapshot").toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Memory-maps the file and decodes the snapshot from it
+     * @return the snapshot, or null if there is none for this URL
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    static MetadataSnapshot load(Path file, String url) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return MetadataSnapshotCodec.decode(buffer, url);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the snapshot atomically, leaving the file untouched if its content is the same
+     */
+    static void save(Path file, MetadataSnapshot snapshot, String url) throws IOException {
+        Files.createDirectories(file.getParent());
+        ModelFileWriter.writeIfChanged(file, MetadataSnapshotCodec.encode(snapshot, url));
+    }
+}
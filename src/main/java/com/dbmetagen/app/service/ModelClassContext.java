@@ -0,0 +1,54 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.ForeignKeyMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+
+/**
+ * What a model class template is rendered for, and the names the template can use
+ */
+final class ModelClassContext {
+
+    /**
+     * Names available to model class templates. Lists are {@code columns} and
+     * {@code foreignKeys}; see the default template for the values in each.
+     */
+    static final ModelTemplate.Scope<ModelClassContext> SCOPE = new ModelTemplate.Scope<ModelClassContext>()
+            .value("package", context -> context.modelPackage)
+            .value("tableName", context -> context.table.getTableName())
+            .value("className", context -> NameConverter.toClassName(context.table.getTableName()))
+            .value("primaryKey", context -> context.table.getPrimaryKey())
+            .list("columns", context -> context.table.getColumns(), new ModelTemplate.Scope<ColumnMetadata>()
+                    .value("columnName", ColumnMetadata::getColumnName)
+                    .value("dataType", ColumnMetadata::getDataType)
+                    .value("size", ColumnMetadata::getSize)
+                    .value("defaultValue", ColumnMetadata::getDefaultValue)
+                    .value("javaType", ModelClassContext::getJavaType)
+                    .value("fieldName", column -> NameConverter.toCamelCase(column.getColumnName()))
+                    .condition("primaryKey", ColumnMetadata::isPrimaryKey)
+                    .condition("autoIncrement", ColumnMetadata::isAutoIncrement)
+                    .condition("nullable", ColumnMetadata::isNullable))
+            .list("foreignKeys", context -> context.table.getForeignKeys(), new ModelTemplate.Scope<ForeignKeyMetadata>()
+                    .value("constraintName", ForeignKeyMetadata::getConstraintName)
+                    .value("columnName", ForeignKeyMetadata::getColumnName)
+                    .value("referenceTableName", ForeignKeyMetadata::getReferenceTableName)
+                    .value("referenceColumnName", ForeignKeyMetadata::getReferenceColumnName)
+                    .value("referenceClassName", fk -> NameConverter.toClassName(fk.getReferenceTableName()))
+                    .value("referenceFieldName", fk -> NameConverter.toCamelCase(fk.getReferenceTableName())));
+
+    private final String modelPackage;
+    private final TableMetadata table;
+
+    ModelClassContext(String modelPackage, TableMetadata table) {
+        this.modelPackage = modelPackage;
+        this.table = table;
+    }
+
+    /**
+     * The type resolved with the snapshot, or the default mapping for columns that were not
+     */
+    private static String getJavaType(ColumnMetadata column) {
+        String javaType = column.getJavaType();
+        return javaType != null ? javaType : JavaTypeMapper.DEFAULT.getJavaType(column);
+    }
+}
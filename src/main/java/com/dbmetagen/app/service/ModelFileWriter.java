@@ -0,0 +1,89 @@
+package com.dbmetagen.app.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes generated sources so that unchanged files keep their modification time and
+ * readers never observe a partially written file
+ */
+final class ModelFileWriter {
+
+    /** Lists the files the last generation wrote into a package directory, one name per line */
+    static final String MANIFEST_FILE_NAME = ".generated-models";
+
+    private ModelFileWriter() {
+    }
+
+    /**
+     * Writes the content through a temporary file and an atomic move, unless the file
+     * already holds exactly this content.
+     * @return true if the file was written
+     */
+    static boolean writeIfChanged(Path file, byte[] content) throws IOException {
+        // Size first, so only files that could be identical are read back
+        if (Files.isRegularFile(file) && Files.size(file) == content.length
+                && Arrays.equals(Files.readAllBytes(file), content)) {
+            return false;
+        }
+
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    /**
+     * Deletes the files the previous generation wrote into the directory that this one neither
+     * wrote nor retained, and records the others for the next generation. Files the manifest
+     * does not list, such as hand-written classes next to the generated ones, are never deleted.
+     * @param retainedFileNames files this generation did not write but that must not be deleted
+     * @return the number of files deleted
+     */
+    static int deleteStale(Path directory, Set<String> writtenFileNames, Set<String> retainedFileNames) throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE_NAME);
+        List<String> previous = Files.isRegularFile(manifest)
+                ? Files.readAllLines(manifest, StandardCharsets.UTF_8) : Collections.emptyList();
+
+        Set<String> generated = new TreeSet<>(writtenFileNames);
+        int deleted = 0;
+        for (String fileName : previous) {
+            if (fileName.isEmpty() || writtenFileNames.contains(fileName)) {
+                continue;
+            }
+            if (retainedFileNames.contains(fileName)) {
+                generated.add(fileName);
+                continue;
+            }
+            Path file = directory.resolve(fileName);
+            // Only plain names of files in this directory
+            if (directory.equals(file.getParent()) && Files.deleteIfExists(file)) {
+                deleted++;
+            }
+        }
+
+        StringBuilder content = new StringBuilder();
+        for (String fileName : generated) {
+            content.append(fileName).append('\n');
+        }
+        writeIfChanged(manifest, content.toString().getBytes(StandardCharsets.UTF_8));
+        return deleted;
+    }
+}
@@ -3,11 +3,74 @@ package com.dbmetagen.app.service;
 import com.dbmetagen.app.model.DatabaseMetadata;
 import com.dbmetagen.app.model.TableMetadata;
 
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Metadata and model generation for the configured datasources, each identified by its id
+ */
 public interface ModelGeneratorService {
-    DatabaseMetadata getDatabaseMetadata();
+    DatabaseMetadata getDatabaseMetadata(String dataSourceId);
+
+    /**
+     * Drops the cached metadata of every datasource
+     */
     void clearCache();
-    Map<String, String> generateModelClasses();
+
+    /**
+     * @return the serialized form kept with the datasource's cached metadata by
+     * {@link #keepSerializedMetadata}, or null if there is none for this snapshot
+     */
+    byte[] getSerializedMetadata(String dataSourceId, DatabaseMetadata metadata);
+
+    /**
+     * Keeps a serialized form of the datasource's cached metadata with its snapshot. It counts
+     * against the cache memory budget and is dropped with the snapshot. Ignored if the
+     * metadata is no longer the cached snapshot.
+     */
+    void keepSerializedMetadata(String dataSourceId, DatabaseMetadata metadata, byte[] serialized);
+
+    /**
+     * Re-extracts only the tables that were added or changed since the cached snapshot
+     * and drops the ones that no longer exist. Performs a full crawl when nothing is cached.
+     */
+    RefreshResult refreshMetadata(String dataSourceId);
+
+    /**
+     * Starts {@link #refreshMetadata(String)} in the background. Refreshes of different
+     * datasources run concurrently, up to the configured crawl limit.
+     */
+    CompletableFuture<RefreshResult> refreshMetadataAsync(String dataSourceId);
+
+    /**
+     * Compares the metadata of two datasources, crawling them first if they are not cached
+     * @return the changes that turn the source schema into the target schema
+     */
+    SchemaDiff diffMetadata(String sourceDataSourceId, String targetDataSourceId);
+
+    /**
+     * Refreshes the datasource's metadata like {@link #refreshMetadata(String)}
+     * @return the changes between the snapshot cached before and the refreshed one;
+     * every table counts as added when nothing was cached
+     */
+    SchemaDiff refreshMetadataDiff(String dataSourceId);
+    GenerationReport generateModelClasses(String dataSourceId);
+
+    /**
+     * Generates and writes the model classes, reporting progress as tables are done
+     * @throws java.util.concurrent.CancellationException if the progress asked to stop;
+     * classes written until then are kept, but stale classes are not deleted
+     */
+    GenerationReport generateModelClasses(String dataSourceId, GenerationProgress progress);
     String generateModelClass(TableMetadata tableMetadata);
-} 
\ No newline at end of file
+
+    /**
+     * Saves a generated class to the datasource's output directory unless the file already has this content
+     * @return true if the file was written
+     */
+    boolean saveModelClass(String dataSourceId, String className, String modelCode);
+
+    /**
+     * @return the name of the model class generated for the given table
+     */
+    String getModelClassName(String tableName);
+}
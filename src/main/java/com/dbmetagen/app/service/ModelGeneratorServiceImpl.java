@@ -1,223 +1,644 @@
 package com.dbmetagen.app.service;
 
+import com.dbmetagen.app.config.ConfigSnapshot;
+import com.dbmetagen.app.config.DataSourceSettings;
 import com.dbmetagen.app.config.DatabaseConfig;
-import com.dbmetagen.app.model.ColumnMetadata;
 import com.dbmetagen.app.model.DatabaseMetadata;
-import com.dbmetagen.app.model.ForeignKeyMetadata;
 import com.dbmetagen.app.model.TableMetadata;
 import com.dbmetagen.app.repository.DatabaseMetadataRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.io.FileWriter;
+import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ModelGeneratorServiceImpl implements ModelGeneratorService {
 
+    private static final Logger log = LoggerFactory.getLogger(ModelGeneratorServiceImpl.class);
+
     private final DatabaseMetadataRepository repository;
     private final DatabaseConfig databaseConfig;
-    private DatabaseMetadata databaseMetadata;
+    private final MetadataCacheRegistry metadataCaches;
+    private final CrawlLimiter crawlLimiter;
+    private final GeneratorMetrics metrics;
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "partial-crawl-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile LoadedTemplate modelTemplate;
+
+    private static final String DEFAULT_TEMPLATE = "/templates/model-class.template";
+
+    /** Initial buffer size for a class, plus the expected size of each field */
+    private static final int RENDER_BASE_SIZE = 512;
+    private static final int RENDER_SIZE_PER_FIELD = 128;
+    private static final int RENDER_BUFFER_RETAINED_SIZE = 1 << 20;
+    private static final ThreadLocal<StringBuilder> RENDER_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(8192));
 
     @Autowired
-    public ModelGeneratorServiceImpl(DatabaseMetadataRepository repository, DatabaseConfig databaseConfig) {
+    public ModelGeneratorServiceImpl(DatabaseMetadataRepository repository, DatabaseConfig databaseConfig,
+                                     MeterRegistry meterRegistry) {
         this.repository = repository;
         this.databaseConfig = databaseConfig;
+        this.metrics = new GeneratorMetrics(meterRegistry);
+        this.metadataCaches = new MetadataCacheRegistry(this::createCache,
+                () -> databaseConfig.snapshot().getCacheMemoryBudgetMb() * 1024 * 1024, metrics::cacheEviction);
+        this.crawlLimiter = new CrawlLimiter(() -> databaseConfig.snapshot().getMaxConcurrentCrawls());
+        databaseConfig.addChangeListener(this::configurationChanged);
     }
 
-    @Override
-    public DatabaseMetadata getDatabaseMetadata() {
-        if (databaseMetadata == null) {
-            databaseMetadata = repository.extractDatabaseMetadata();
+    private MetadataCache createCache(String dataSourceId, Executor loaderExecutor) {
+        return new MetadataCache(previous -> crawlLimiter.run(() -> timedLoad(dataSourceId, previous)),
+                () -> TimeUnit.SECONDS.toMillis(databaseConfig.snapshot().getCacheTtlSeconds()),
+                snapshot -> onPublished(dataSourceId, snapshot), loaderExecutor);
+    }
+
+    /**
+     * Serves the snapshots persisted by a previous run, if there are any, while they are
+     * revalidated against their databases in the background
+     */
+    @PostConstruct
+    public void restoreSnapshots() {
+        ConfigSnapshot config = databaseConfig.snapshot();
+        if (!config.isPersistSnapshots()) {
+            return;
+        }
+        for (String dataSourceId : config.getDataSources().keySet()) {
+            MetadataSnapshot snapshot = readPersistedSnapshot(config, dataSourceId);
+            if (snapshot != null) {
+                metadataCaches.get(dataSourceId).restore(snapshot);
+                metadataCaches.published(dataSourceId, snapshot);
+                log.info("Restored metadata snapshot of {} tables for datasource {}",
+                        snapshot.getMetadata().getTables().size(), dataSourceId);
+            }
         }
-        return databaseMetadata;
+    }
+
+    /**
+     * @return the datasource's persisted snapshot with Java types resolved, or null if there is no usable one
+     */
+    private MetadataSnapshot readPersistedSnapshot(ConfigSnapshot config, String dataSourceId) {
+        Path file = null;
+        try {
+            file = getSnapshotFile(config, dataSourceId);
+            MetadataSnapshot snapshot = MetadataSnapshotStore.load(file, config.getDataSource(dataSourceId).getUrl());
+            if (snapshot == null) {
+                return null;
+            }
+            DatabaseMetadata metadata = snapshot.getMetadata();
+            getTypeMapper(config, metadata).resolve(metadata.getTables());
+            metadata.freeze();
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring persisted metadata snapshot " + file, e);
+            return null;
+        }
+    }
+
+    private void onPublished(String dataSourceId, MetadataSnapshot snapshot) {
+        metadataCaches.published(dataSourceId, snapshot);
+        persistSnapshot(dataSourceId, snapshot);
+        if (snapshot.getMetadata().isPartial()) {
+            scheduleRetry(dataSourceId, snapshot);
+        }
+    }
+
+    /**
+     * Refreshes a partial snapshot after the configured delay, which extracts its incomplete
+     * tables again. Skipped if the snapshot has been replaced or dropped meanwhile.
+     */
+    private void scheduleRetry(String dataSourceId, MetadataSnapshot snapshot) {
+        long delaySeconds = databaseConfig.snapshot().getPartialRetrySeconds();
+        if (delaySeconds == 0) {
+            return;
+        }
+        log.info("Retrying {} incomplete tables of datasource {} in {} s",
+                snapshot.getMetadata().getIncompleteTables().size(), dataSourceId, delaySeconds);
+        retryScheduler.schedule(() -> {
+            if (databaseConfig.hasDataSource(dataSourceId) && metadataCaches.peek(dataSourceId) == snapshot) {
+                metadataCaches.get(dataSourceId).reloadAsync();
+            }
+        }, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Writes a newly published snapshot to disk, unless it is the same as the previous one.
+     * A partial snapshot is not written, so the last complete one stays on disk.
+     */
+    private void persistSnapshot(String dataSourceId, MetadataSnapshot snapshot) {
+        RefreshResult result = snapshot.getRefreshResult();
+        boolean changed = result.isFullCrawl() || result.getAddedTables() > 0
+                || result.getChangedTables() > 0 || result.getDroppedTables() > 0;
+        ConfigSnapshot config = databaseConfig.snapshot();
+        if (!config.isPersistSnapshots() || !changed || snapshot.getMetadata().isPartial()) {
+            return;
+        }
+        Path file = getSnapshotFile(config, dataSourceId);
+        try {
+            MetadataSnapshotStore.save(file, snapshot, config.getDataSource(dataSourceId).getUrl());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to persist metadata snapshot: " + file, e);
+        }
+    }
+
+    private Path getSnapshotFile(ConfigSnapshot config, String dataSourceId) {
+        DataSourceSettings dataSource = config.getDataSource(dataSourceId);
+        return MetadataSnapshotStore.getSnapshotFile(config.getOutputDirectory(), dataSource.getUrl(), dataSource.getDatabaseName());
+    }
+
+    /**
+     * Drops only the cached snapshots the new configuration makes wrong: those of datasources
+     * that were removed or now connect differently, and those whose Java types came from
+     * overrides that changed. Other settings are read on each use and need no invalidation.
+     */
+    private void configurationChanged(ConfigSnapshot previous, ConfigSnapshot current) {
+        boolean overridesChanged = !previous.getTypeOverrides().equals(current.getTypeOverrides());
+        for (DataSourceSettings dataSource : previous.getDataSources().values()) {
+            String dataSourceId = dataSource.getId();
+            if (!current.hasDataSource(dataSourceId)) {
+                metadataCaches.remove(dataSourceId);
+                log.info("Dropped cached metadata of removed datasource {}", dataSourceId);
+            } else if (!dataSource.equals(current.getDataSource(dataSourceId))) {
+                metadataCaches.invalidate(dataSourceId);
+                log.info("Dropped cached metadata of datasource {} as its connection settings changed", dataSourceId);
+            } else if (overridesChanged) {
+                MetadataSnapshot cached = metadataCaches.peek(dataSourceId);
+                // Without a cached snapshot the product is unknown, and only a load can be dropped
+                String product = cached != null ? cached.getMetadata().getDatabaseProductName() : null;
+                if (cached == null || !previous.getTypeOverrides(product).equals(current.getTypeOverrides(product))) {
+                    metadataCaches.invalidate(dataSourceId);
+                    log.info("Dropped cached metadata of datasource {} as its type overrides changed", dataSourceId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public DatabaseMetadata getDatabaseMetadata(String dataSourceId) {
+        MetadataCache cache = metadataCaches.get(dataSourceId);
+        metrics.cacheRequest(cache.peek() != null);
+        return cache.get().getMetadata();
     }
     
     @Override
     public void clearCache() {
-        databaseMetadata = null;
+        metadataCaches.invalidateAll();
     }
 
     @Override
-    public Map<String, String> generateModelClasses() {
-        DatabaseMetadata metadata = getDatabaseMetadata();
-        Map<String, String> generatedModels = new HashMap<>();
+    public byte[] getSerializedMetadata(String dataSourceId, DatabaseMetadata metadata) {
+        return metadataCaches.attachment(dataSourceId, metadata);
+    }
+
+    @Override
+    public void keepSerializedMetadata(String dataSourceId, DatabaseMetadata metadata, byte[] serialized) {
+        metadataCaches.attach(dataSourceId, metadata, serialized);
+    }
+
+    @Override
+    public RefreshResult refreshMetadata(String dataSourceId) {
+        return metadataCaches.get(dataSourceId).reload().getRefreshResult();
+    }
+
+    @Override
+    public CompletableFuture<RefreshResult> refreshMetadataAsync(String dataSourceId) {
+        return metadataCaches.get(dataSourceId).reloadAsync().thenApply(MetadataSnapshot::getRefreshResult);
+    }
+
+    @Override
+    public SchemaDiff diffMetadata(String sourceDataSourceId, String targetDataSourceId) {
+        return SchemaDiffer.diff(sourceDataSourceId, getDatabaseMetadata(sourceDataSourceId),
+                targetDataSourceId, getDatabaseMetadata(targetDataSourceId));
+    }
+
+    @Override
+    public SchemaDiff refreshMetadataDiff(String dataSourceId) {
+        MetadataCache cache = metadataCaches.get(dataSourceId);
+        MetadataSnapshot before = cache.peek();
+        MetadataSnapshot after = cache.reload();
+        DatabaseMetadata previous = new DatabaseMetadata();
+        previous.setTables(Collections.emptyList());
+        String previousName = dataSourceId;
+        if (before != null) {
+            previous = before.getMetadata();
+            previousName = dataSourceId + "@" + Instant.ofEpochMilli(before.getLoadedAt());
+        }
+        return SchemaDiffer.diff(previousName, previous,
+                dataSourceId + "@" + Instant.ofEpochMilli(after.getLoadedAt()), after.getMetadata());
+    }
+
+    private MetadataSnapshot timedLoad(String dataSourceId, MetadataSnapshot previous) {
+        try {
+            MetadataSnapshot snapshot = loadSnapshot(dataSourceId, previous);
+            metrics.load(snapshot.getRefreshResult());
+            return snapshot;
+        } catch (RuntimeException e) {
+            metrics.loadFailed();
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the next snapshot: a full crawl when nothing is cached, otherwise an incremental
+     * refresh that only re-extracts the tables whose fingerprint changed. A snapshot persisted
+     * by an earlier run only counts as cached through {@link #restoreSnapshots()}, so an
+     * invalidated cache is always crawled again in full.
+     *
+     * Changed tables are re-extracted in the crawl mode the snapshot was built in, so a
+     * snapshot never mixes tables of both modes. A snapshot of the other mode than the
+     * configured one is crawled again in full.
+     *
+     * Tables the crawl could not extract make the snapshot partial. Their fingerprints are
+     * left out, so the next refresh extracts them again.
+     */
+    private MetadataSnapshot loadSnapshot(String dataSourceId, MetadataSnapshot previous) {
+        long start = System.currentTimeMillis();
+        RefreshResult result = new RefreshResult();
         
-        // Get database name for organization
-        String databaseName = metadata.getDatabaseName();
+        // Fingerprint first, so a table altered during the crawl is picked up by the next refresh
+        Map<String, String> latestFingerprints = repository.fingerprintTables(dataSourceId);
         
-        // Ensure base output directory exists
-        File baseOutputDir = new File(databaseConfig.getOutputDirectory());
-        if (!baseOutputDir.exists()) {
-            baseOutputDir.mkdirs();
+        ConfigSnapshot config = databaseConfig.snapshot();
+        if (previous == null || previous.isBulkCrawl() != config.isBulkCrawl()) {
+            DatabaseMetadata metadata = repository.extractDatabaseMetadata(dataSourceId);
+            result.setFullCrawl(true);
+            result.setAddedTables(metadata.getTables().size());
+            result.setIncompleteTables(metadata.getIncompleteTables().size());
+            getTypeMapper(config, metadata).resolve(metadata.getTables());
+            metadata.freeze();
+            result.setDurationMs(System.currentTimeMillis() - start);
+            return new MetadataSnapshot(metadata, withoutIncomplete(latestFingerprints, metadata),
+                    System.currentTimeMillis(), config.isBulkCrawl(), result);
         }
         
-        // Create database-specific output directory
-        File dbOutputDir = new File(baseOutputDir, databaseName);
-        if (!dbOutputDir.exists()) {
-            dbOutputDir.mkdirs();
-        }
+        Map<String, String> previousFingerprints = previous.getFingerprints();
+        DatabaseMetadata metadata = previous.getMetadata();
         
-        // Create package directory structure
-        String packagePath = databaseConfig.getModelPackage().replace('.', '/');
-        File packageDir = new File(dbOutputDir, packagePath);
-        if (!packageDir.exists()) {
-            packageDir.mkdirs();
+        // Added tables have no previous fingerprint, changed ones a different one
+        List<String> staleTables = new ArrayList<>();
+        for (Map.Entry<String, String> entry : latestFingerprints.entrySet()) {
+            String fingerprint = previousFingerprints.get(entry.getKey());
+            if (fingerprint == null) {
+                result.setAddedTables(result.getAddedTables() + 1);
+                staleTables.add(entry.getKey());
+            } else if (!fingerprint.equals(entry.getValue())) {
+                result.setChangedTables(result.getChangedTables() + 1);
+                staleTables.add(entry.getKey());
+            }
+        }
+        for (String tableName : previousFingerprints.keySet()) {
+            if (!latestFingerprints.containsKey(tableName)) {
+                result.setDroppedTables(result.getDroppedTables() + 1);
+            }
         }
+        result.setUnchangedTables(latestFingerprints.size() - staleTables.size());
         
-        // Generate model classes for each table
-        for (TableMetadata table : metadata.getTables()) {
-            String modelCode = generateModelClass(table);
-            String className = toClassName(table.getTableName());
-            generatedModels.put(className, modelCode);
+        // A partial snapshot is rebuilt even then, in case its incomplete tables were dropped
+        if (!staleTables.isEmpty() || result.getDroppedTables() > 0 || metadata.isPartial()) {
+            Map<String, TableMetadata> tablesByName = new HashMap<>();
+            for (TableMetadata table : metadata.getTables()) {
+                tablesByName.put(table.getTableName(), table);
+            }
+            List<TableMetadata> extracted = staleTables.isEmpty()
+                    ? Collections.emptyList() : repository.extractTables(dataSourceId, staleTables, previous.isBulkCrawl());
+            getTypeMapper(config, metadata).resolve(extracted);
+            Set<String> incomplete = new LinkedHashSet<>(staleTables);
+            for (TableMetadata table : extracted) {
+                tablesByName.put(table.getTableName(), table);
+                incomplete.remove(table.getTableName());
+            }
             
-            // Write to file
-            try {
-                File modelFile = new File(packageDir, className + ".java");
-                FileWriter writer = new FileWriter(modelFile);
-                writer.write(modelCode);
-                writer.close();
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to write model class: " + className, e);
+            // Patch into a new snapshot in catalog order, dropped tables are left out. A changed
+            // table that could not be extracted keeps its previous definition.
+            List<TableMetadata> tables = new ArrayList<>(latestFingerprints.size());
+            for (String tableName : latestFingerprints.keySet()) {
+                TableMetadata table = tablesByName.get(tableName);
+                if (table != null) {
+                    tables.add(table);
+                }
             }
+            
+            DatabaseMetadata refreshed = new DatabaseMetadata();
+            refreshed.setDatabaseName(metadata.getDatabaseName());
+            refreshed.setDatabaseProductName(metadata.getDatabaseProductName());
+            refreshed.setTables(tables);
+            refreshed.setIncompleteTables(new ArrayList<>(incomplete));
+            result.setIncompleteTables(incomplete.size());
+            // Unchanged tables are already frozen and keep their column indexes
+            refreshed.freeze();
+            metadata = refreshed;
         }
         
-        return generatedModels;
+        result.setDurationMs(System.currentTimeMillis() - start);
+        return new MetadataSnapshot(metadata, withoutIncomplete(latestFingerprints, metadata),
+                System.currentTimeMillis(), previous.isBulkCrawl(), result);
+    }
+
+    /**
+     * Drops the fingerprints of the snapshot's incomplete tables, so the next refresh takes
+     * them for added tables and extracts them again
+     */
+    private static Map<String, String> withoutIncomplete(Map<String, String> fingerprints, DatabaseMetadata metadata) {
+        if (!metadata.isPartial()) {
+            return fingerprints;
+        }
+        Map<String, String> complete = new LinkedHashMap<>(fingerprints);
+        complete.keySet().removeAll(metadata.getIncompleteTables());
+        return complete;
+    }
+
+    private static JavaTypeMapper getTypeMapper(ConfigSnapshot config, DatabaseMetadata metadata) {
+        return new JavaTypeMapper(config.getTypeOverrides(metadata.getDatabaseProductName()));
     }
 
     @Override
-    public String generateModelClass(TableMetadata tableMetadata) {
-        StringBuilder modelBuilder = new StringBuilder();
-        
-        String className = toClassName(tableMetadata.getTableName());
-        
-        // Package declaration
-        modelBuilder.append("package ").append(databaseConfig.getModelPackage()).append(";\n\n");
+    public GenerationReport generateModelClasses(String dataSourceId) {
+        return generateModelClasses(dataSourceId, GenerationProgress.NONE);
+    }
+
+    @Override
+    public GenerationReport generateModelClasses(String dataSourceId, GenerationProgress progress) {
+        long start = System.currentTimeMillis();
+        ConfigSnapshot config = databaseConfig.snapshot();
+        DatabaseMetadata metadata = getDatabaseMetadata(dataSourceId);
+        // The crawl may have taken a while; stop before generating anything if nobody waits any more
+        if (progress.isCancelled()) {
+            throw new CancellationException("Model generation was cancelled");
+        }
+        Path packageDir = getPackageDirectory(config, dataSourceId);
         
-        // Import statements
-        modelBuilder.append("import java.util.*;\n");
-        modelBuilder.append("import java.sql.*;\n");
-        modelBuilder.append("import lombok.Data;\n\n");
+        List<TableMetadata> tables = metadata.getTables();
+        progress.started(tables.size());
+        String[] classNames = new String[tables.size()];
+        String[] sources = new String[tables.size()];
         
-        // Class declaration with Lombok @Data
-        modelBuilder.append("/**\n");
-        modelBuilder.append(" * Auto-generated model class for table: ").append(tableMetadata.getTableName()).append("\n");
-        modelBuilder.append(" */\n");
-        modelBuilder.append("@Data\n");
-        modelBuilder.append("public class ").append(className).append(" {\n\n");
+        // Tables mapping to the same class name: the last one wins, as with sequential writes
+        Map<String, Integer> owners = new HashMap<>();
+        for (int i = 0; i < tables.size(); i++) {
+            classNames[i] = NameConverter.toClassName(tables.get(i).getTableName());
+            owners.put(classNames[i], i);
+        }
         
-        // Fields
-        for (ColumnMetadata column : tableMetadata.getColumns()) {
-            // Field comment
-            modelBuilder.append("    /**\n");
-            modelBuilder.append("     * ").append(column.getColumnName()).append(" - ");
-            modelBuilder.append(column.getDataType());
-            
-            if (column.isPrimaryKey()) {
-                modelBuilder.append(" (Primary Key)");
-            }
-            if (column.isAutoIncrement()) {
-                modelBuilder.append(" (Auto Increment)");
+        ModelTemplate<ModelClassContext> template = getModelTemplate(config);
+        AtomicInteger nextTable = new AtomicInteger();
+        AtomicInteger written = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        runInParallel(Math.min(config.getGenerationThreads(), tables.size()), () -> {
+            int index;
+            while ((index = nextTable.getAndIncrement()) < tables.size()) {
+                if (progress.isCancelled()) {
+                    cancelled.set(true);
+                    nextTable.set(tables.size());
+                    break;
+                }
+                if (owners.get(classNames[index]) != index) {
+                    progress.tableDone();
+                    continue;
+                }
+                sources[index] = generateModelClass(config, template, tables.get(index));
+                metrics.tableGenerated();
+                try {
+                    Path modelFile = packageDir.resolve(classNames[index] + ".java");
+                    byte[] content = sources[index].getBytes(StandardCharsets.UTF_8);
+                    if (ModelFileWriter.writeIfChanged(modelFile, content)) {
+                        written.incrementAndGet();
+                        metrics.fileWritten(content.length);
+                    }
+                } catch (IOException e) {
+                    // Stop the other workers from picking up new tables
+                    nextTable.set(tables.size());
+                    throw new RuntimeException("Failed to write model class: " + classNames[index], e);
+                }
+                progress.tableDone();
             }
-            
-            modelBuilder.append("\n");
-            modelBuilder.append("     */\n");
-            
-            // Field declaration
-            modelBuilder.append("    private ").append(getJavaType(column.getDataType()));
-            modelBuilder.append(" ").append(toCamelCase(column.getColumnName())).append(";\n\n");
+        });
+        // A cancellation that came after the last table was started has nothing left to stop
+        if (cancelled.get()) {
+            throw new CancellationException("Model generation was cancelled");
         }
         
-        // Add relationship fields
-        for (ForeignKeyMetadata fk : tableMetadata.getForeignKeys()) {
-            String refTableClassName = toClassName(fk.getReferenceTableName());
-            String fieldName = toCamelCase(fk.getReferenceTableName());
-            
-            modelBuilder.append("    /**\n");
-            modelBuilder.append("     * Relationship: ").append(fk.getConstraintName()).append("\n");
-            modelBuilder.append("     * Referenced table: ").append(fk.getReferenceTableName()).append("\n");
-            modelBuilder.append("     */\n");
-            modelBuilder.append("    private ").append(refTableClassName).append(" ").append(fieldName).append(";\n\n");
+        Map<String, String> generatedModels = new LinkedHashMap<>();
+        for (int i = 0; i < tables.size(); i++) {
+            if (sources[i] != null) {
+                generatedModels.put(classNames[i], sources[i]);
+            }
         }
         
-        // Close class
-        modelBuilder.append("}\n");
+        // Remove classes the last run generated for tables that were dropped since. Tables a
+        // partial snapshot lacks were not extracted, not dropped, so their classes stay.
+        Set<String> fileNames = new HashSet<>();
+        for (String className : generatedModels.keySet()) {
+            fileNames.add(className + ".java");
+        }
+        Set<String> retainedFileNames = new HashSet<>();
+        for (String tableName : metadata.getIncompleteTables()) {
+            retainedFileNames.add(NameConverter.toClassName(tableName) + ".java");
+        }
+        int deleted;
+        try {
+            deleted = ModelFileWriter.deleteStale(packageDir, fileNames, retainedFileNames);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to clean up model classes in " + packageDir, e);
+        }
         
-        return modelBuilder.toString();
+        GenerationReport report = new GenerationReport();
+        report.setModels(generatedModels);
+        report.setWritten(written.get());
+        report.setSkipped(generatedModels.size() - written.get());
+        report.setDeleted(deleted);
+        report.setDurationMs(System.currentTimeMillis() - start);
+        metrics.generation(report);
+        return report;
     }
-    
-    // Helper method to convert table name to class name (PascalCase)
-    private String toClassName(String tableName) {
-        StringBuilder result = new StringBuilder();
-        
-        // Split by underscore and capitalize each part
-        String[] parts = tableName.split("_");
-        for (String part : parts) {
-            if (!part.isEmpty()) {
-                result.append(Character.toUpperCase(part.charAt(0)));
-                
-                if (part.length() > 1) {
-                    result.append(part.substring(1).toLowerCase());
-                }
+
+    @Override
+    public boolean saveModelClass(String dataSourceId, String className, String modelCode) {
+        Path packageDir = getPackageDirectory(databaseConfig.snapshot(), dataSourceId);
+        try {
+            byte[] content = modelCode.getBytes(StandardCharsets.UTF_8);
+            boolean written = ModelFileWriter.writeIfChanged(packageDir.resolve(className + ".java"), content);
+            if (written) {
+                metrics.fileWritten(content.length);
             }
+            return written;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write model class: " + className, e);
+        }
+    }
+
+    /**
+     * Creates and returns the package directory under the datasource's own output directory.
+     * Keyed by datasource id, as datasources such as shards can share a database name.
+     */
+    private static Path getPackageDirectory(ConfigSnapshot config, String dataSourceId) {
+        Path packageDir = config.getPackageDirectory(dataSourceId);
+        try {
+            Files.createDirectories(packageDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create output directory: " + packageDir, e);
+        }
+        return packageDir;
+    }
+
+    /**
+     * Runs the task on the given number of threads and waits for all of them
+     */
+    private static void runInParallel(int threads, Runnable task) {
+        if (threads <= 1) {
+            task.run();
+            return;
         }
         
-        return result.toString();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "model-generator-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating model classes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Failed to generate model classes", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
     }
-    
-    // Helper method to convert column name to field name (camelCase)
-    private String toCamelCase(String columnName) {
-        StringBuilder result = new StringBuilder();
+
+    @Override
+    public String generateModelClass(TableMetadata tableMetadata) {
+        ConfigSnapshot config = databaseConfig.snapshot();
+        return generateModelClass(config, getModelTemplate(config), tableMetadata);
+    }
+
+    /**
+     * Renders with the package and template of the given configuration, so every class of one
+     * generation run uses the same ones even if the configuration is reloaded meanwhile
+     */
+    private String generateModelClass(ConfigSnapshot config, ModelTemplate<ModelClassContext> template,
+                                      TableMetadata tableMetadata) {
+        StringBuilder buffer = RENDER_BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(RENDER_BASE_SIZE + RENDER_SIZE_PER_FIELD
+                * (tableMetadata.getColumns().size() + tableMetadata.getForeignKeys().size()));
         
-        // Split by underscore
-        String[] parts = columnName.split("_");
+        template.render(new ModelClassContext(config.getModelPackage(), tableMetadata), buffer);
+        String modelCode = buffer.toString();
         
-        // First part is lowercase
-        if (parts.length > 0 && !parts[0].isEmpty()) {
-            result.append(parts[0].toLowerCase());
+        // Don't let one huge table pin a huge buffer to the thread
+        if (buffer.capacity() > RENDER_BUFFER_RETAINED_SIZE) {
+            RENDER_BUFFER.remove();
         }
-        
-        // Rest are capitalized
-        for (int i = 1; i < parts.length; i++) {
-            if (!parts[i].isEmpty()) {
-                result.append(Character.toUpperCase(parts[i].charAt(0)));
-                
-                if (parts[i].length() > 1) {
-                    result.append(parts[i].substring(1).toLowerCase());
+        return modelCode;
+    }
+
+    @Override
+    public String getModelClassName(String tableName) {
+        return NameConverter.toClassName(tableName);
+    }
+
+    /**
+     * Returns the parsed model class template. It is parsed again after a configuration reload,
+     * and, for a template file, whenever the file's modification time or size changes.
+     */
+    private ModelTemplate<ModelClassContext> getModelTemplate(ConfigSnapshot config) {
+        String path = config.getModelTemplate();
+        FileTime modified = null;
+        long size = -1;
+        if (path != null) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+                modified = attributes.lastModifiedTime();
+                size = attributes.size();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read model template: " + path, e);
+            }
+        }
+        LoadedTemplate loaded = modelTemplate;
+        if (loaded == null || loaded.config != config || !Objects.equals(loaded.modified, modified)
+                || loaded.size != size) {
+            loaded = new LoadedTemplate(config, modified, size,
+                    ModelTemplate.parse(readTemplate(path), ModelClassContext.SCOPE));
+            modelTemplate = loaded;
+        }
+        return loaded.template;
+    }
+
+    private static String readTemplate(String path) {
+        try {
+            if (path == null) {
+                try (InputStream in = ModelGeneratorServiceImpl.class.getResourceAsStream(DEFAULT_TEMPLATE)) {
+                    if (in == null) {
+                        throw new RuntimeException("Default model template not found: " + DEFAULT_TEMPLATE);
+                    }
+                    return new String(in.readAllBytes(), StandardCharsets.UTF_8);
                 }
             }
+            return Files.readString(Paths.get(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read model template: " + (path == null ? DEFAULT_TEMPLATE : path), e);
         }
-        
-        return result.toString();
     }
-    
-    // Helper method to map SQL data types to Java types
-    private String getJavaType(String sqlType) {
-        sqlType = sqlType.toUpperCase();
-        
-        if (sqlType.contains("INT")) {
-            return "Integer";
-        } else if (sqlType.contains("FLOAT") || sqlType.contains("DOUBLE") || sqlType.contains("DECIMAL")) {
-            return "Double";
-        } else if (sqlType.contains("BOOLEAN") || sqlType.contains("BIT")) {
-            return "Boolean";
-        } else if (sqlType.contains("DATE")) {
-            return "java.util.Date";
-        } else if (sqlType.contains("TIME")) {
-            if (sqlType.contains("TIMESTAMP")) {
-                return "java.sql.Timestamp";
-            }
-            return "java.sql.Time";
-        } else if (sqlType.contains("BLOB")) {
-            return "byte[]";
-        } else {
-            return "String";
-        }
-    }
-} 
\ No newline at end of file
+
+    private static final class LoadedTemplate {
+        /** The configuration the template was loaded for */
+        private final ConfigSnapshot config;
+        /** Modification time and size of the template file, null and -1 for the default template */
+        private final FileTime modified;
+        private final long size;
+        private final ModelTemplate<ModelClassContext> template;
+
+        private LoadedTemplate(ConfigSnapshot config, FileTime modified, long size,
+                               ModelTemplate<ModelClassContext> template) {
+            this.config = config;
+            this.modified = modified;
+            this.size = size;
+            this.template = template;
+        }
+    }
+}
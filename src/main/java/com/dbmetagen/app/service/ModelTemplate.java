@@ -0,0 +1,201 @@
+package com.dbmetagen.app.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A small logic-less template, parsed once into a list of instructions.
+ *
+ * Supported tags are {@code {{name}}} for a value, {@code {{#name}}...{{/name}}} for a list
+ * (the body is rendered once per element) or a condition (rendered when true), and
+ * {@code {{^name}}...{{/name}}} for a negated condition. A section tag alone on its line
+ * removes that line from the output. Names are bound to accessors of a {@link Scope} at
+ * parse time, so rendering only appends to the target buffer.
+ *
+ * @param <T> the type of the object the template is rendered for
+ */
+public final class ModelTemplate<T> {
+
+    private final List<Instruction<T>> instructions;
+
+    private ModelTemplate(List<Instruction<T>> instructions) {
+        this.instructions = instructions;
+    }
+
+    /**
+     * Parses the template text against the names available in the scope
+     * @throws IllegalArgumentException if the template is malformed or uses an unknown name
+     */
+    public static <T> ModelTemplate<T> parse(String text, Scope<T> scope) {
+        Parser parser = new Parser(stripStandaloneTags(text));
+        List<Instruction<T>> instructions = parser.parseBlock(scope, null);
+        return new ModelTemplate<>(instructions);
+    }
+
+    public void render(T context, StringBuilder out) {
+        for (Instruction<T> instruction : instructions) {
+            instruction.render(context, out);
+        }
+    }
+
+    /**
+     * The names a template can refer to for one type of object
+     */
+    public static final class Scope<T> {
+        private final Map<String, Function<T, ?>> values = new HashMap<>();
+        private final Map<String, Predicate<T>> conditions = new HashMap<>();
+        private final Map<String, ListBinding<T, ?>> lists = new HashMap<>();
+
+        public Scope<T> value(String name, Function<T, ?> accessor) {
+            values.put(name, accessor);
+            return this;
+        }
+
+        public Scope<T> condition(String name, Predicate<T> predicate) {
+            conditions.put(name, predicate);
+            return this;
+        }
+
+        public <C> Scope<T> list(String name, Function<T, List<C>> accessor, Scope<C> elementScope) {
+            lists.put(name, new ListBinding<>(accessor, elementScope));
+            return this;
+        }
+    }
+
+    private interface Instruction<T> {
+        void render(T context, StringBuilder out);
+    }
+
+    private static final class ListBinding<T, C> {
+        private final Function<T, List<C>> accessor;
+        private final Scope<C> elementScope;
+
+        private ListBinding(Function<T, List<C>> accessor, Scope<C> elementScope) {
+            this.accessor = accessor;
+            this.elementScope = elementScope;
+        }
+
+        private Instruction<T> parseSection(Parser parser, String name) {
+            List<Instruction<C>> body = parser.parseBlock(elementScope, name);
+            return (context, out) -> {
+                List<C> elements = accessor.apply(context);
+                if (elements == null) {
+                    return;
+                }
+                for (C element : elements) {
+                    for (Instruction<C> instruction : body) {
+                        instruction.render(element, out);
+                    }
+                }
+            };
+        }
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int position;
+
+        private Parser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Parses until the closing tag of the given section, or the end of the text when it is null
+         */
+        private <T> List<Instruction<T>> parseBlock(Scope<T> scope, String section) {
+            List<Instruction<T>> instructions = new ArrayList<>();
+
+            while (position < text.length()) {
+                int open = text.indexOf("{{", position);
+                if (open < 0) {
+                    open = text.length();
+                }
+                if (open > position) {
+                    String literal = text.substring(position, open);
+                    instructions.add((context, out) -> out.append(literal));
+                }
+                if (open == text.length()) {
+                    position = open;
+                    break;
+                }
+
+                int close = text.indexOf("}}", open);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unterminated tag at offset " + open);
+                }
+                String tag = text.substring(open + 2, close).trim();
+                position = close + 2;
+
+                if (tag.startsWith("/")) {
+                    String name = tag.substring(1).trim();
+                    if (!name.equals(section)) {
+                        throw new IllegalArgumentException("Unexpected closing tag {{/" + name + "}}");
+                    }
+                    return instructions;
+                } else if (tag.startsWith("#")) {
+                    instructions.add(parseSection(scope, tag.substring(1).trim(), false));
+                } else if (tag.startsWith("^")) {
+                    instructions.add(parseSection(scope, tag.substring(1).trim(), true));
+                } else {
+                    Function<T, ?> accessor = scope.values.get(tag);
+                    if (accessor == null) {
+                        throw new IllegalArgumentException("Unknown template value: " + tag);
+                    }
+                    instructions.add((context, out) -> out.append(accessor.apply(context)));
+                }
+            }
+
+            if (section != null) {
+                throw new IllegalArgumentException("Unclosed section {{#" + section + "}}");
+            }
+            return instructions;
+        }
+
+        private <T> Instruction<T> parseSection(Scope<T> scope, String name, boolean inverted) {
+            Predicate<T> condition = scope.conditions.get(name);
+            if (condition != null) {
+                List<Instruction<T>> body = parseBlock(scope, name);
+                return (context, out) -> {
+                    if (condition.test(context) != inverted) {
+                        for (Instruction<T> instruction : body) {
+                            instruction.render(context, out);
+                        }
+                    }
+                };
+            }
+
+            ListBinding<T, ?> list = scope.lists.get(name);
+            if (list != null && !inverted) {
+                return list.parseSection(this, name);
+            }
+            throw new IllegalArgumentException("Unknown template section: " + name);
+        }
+    }
+
+    /**
+     * Removes the indentation and line break around section tags that stand alone on a line
+     */
+    private static String stripStandaloneTags(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        int start = 0;
+
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            end = end < 0 ? text.length() : end + 1;
+            String line = text.substring(start, end);
+            String trimmed = line.trim();
+
+            boolean sectionTag = trimmed.startsWith("{{") && trimmed.endsWith("}}")
+                    && trimmed.indexOf("{{", 2) < 0
+                    && trimmed.length() > 4 && "#^/".indexOf(trimmed.charAt(2)) >= 0;
+            result.append(sectionTag ? trimmed : line);
+            start = end;
+        }
+
+        return result.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.dbmetagen.app.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts snake_case database names to Java class and field names.
+ *
+ * Names are converted in a single pass over the characters, without splitting, and the
+ * results are memoized because the same table and column names are converted over and over
+ * during a generation run.
+ */
+public final class NameConverter {
+
+    /** Upper bound on memoized names, so a long-running instance crawling many schemas stays bounded */
+    private static final int MAX_CACHED_NAMES = 262144;
+
+    private static final Map<String, String> CLASS_NAMES = new ConcurrentHashMap<>();
+    private static final Map<String, String> FIELD_NAMES = new ConcurrentHashMap<>();
+
+    private NameConverter() {
+    }
+
+    /**
+     * Converts a table name to a class name (PascalCase): every underscore-separated part is
+     * capitalized and the rest of it lower-cased
+     */
+    public static String toClassName(String tableName) {
+        String className = CLASS_NAMES.get(tableName);
+        if (className == null) {
+            className = convert(tableName, false);
+            remember(CLASS_NAMES, tableName, className);
+        }
+        return className;
+    }
+
+    /**
+     * Converts a column name to a field name (camelCase): like {@link #toClassName} except that
+     * the part before the first underscore is entirely lower-cased
+     */
+    public static String toCamelCase(String columnName) {
+        String fieldName = FIELD_NAMES.get(columnName);
+        if (fieldName == null) {
+            fieldName = convert(columnName, true);
+            remember(FIELD_NAMES, columnName, fieldName);
+        }
+        return fieldName;
+    }
+
+    private static String convert(String name, boolean lowerFirstPart) {
+        StringBuilder result = new StringBuilder(name.length());
+        boolean firstPart = true;
+        boolean startOfPart = true;
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '_') {
+                firstPart = false;
+                startOfPart = true;
+            } else if (startOfPart && !(firstPart && lowerFirstPart)) {
+                result.append(Character.toUpperCase(c));
+                startOfPart = false;
+            } else {
+                result.append(Character.toLowerCase(c));
+                startOfPart = false;
+            }
+        }
+
+        return result.toString();
+    }
+
+    private static void remember(Map<String, String> cache, String name, String converted) {
+        if (cache.size() >= MAX_CACHED_NAMES) {
+            cache.clear();
+        }
+        cache.put(name, converted);
+    }
+}
@@ -0,0 +1,18 @@
+package com.dbmetagen.app.service;
+
+import lombok.Data;
+
+/**
+ * Outcome of an incremental metadata refresh
+ */
+@Data
+public class RefreshResult {
+    private boolean fullCrawl;
+    private int addedTables;
+    private int changedTables;
+    private int droppedTables;
+    private int unchangedTables;
+    /** Tables that failed or ran out of the crawl time budget, see {@code DatabaseMetadata#getIncompleteTables()} */
+    private int incompleteTables;
+    private long durationMs;
+}
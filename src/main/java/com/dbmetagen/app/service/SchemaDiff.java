@@ -0,0 +1,52 @@
+package com.dbmetagen.app.service;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Structural differences between a source and a target schema, as changes that turn the
+ * source into the target
+ */
+@Data
+public class SchemaDiff {
+    private String source;
+    private String target;
+    private int addedTables;
+    private int droppedTables;
+    private int alteredTables;
+    private int unchangedTables;
+    private List<Change> changes = new ArrayList<>();
+    private long durationMs;
+
+    public enum ObjectType {
+        TABLE, COLUMN, INDEX, FOREIGN_KEY
+    }
+
+    public enum ChangeKind {
+        ADDED, DROPPED, ALTERED
+    }
+
+    /**
+     * One added, dropped or altered table, column, index or foreign key
+     */
+    @Data
+    public static class Change {
+        private ObjectType objectType;
+        private ChangeKind kind;
+        private String table;
+        /** Name of the column, index or foreign key constraint; null for table changes */
+        private String name;
+        /** Attributes that differ, by attribute name; empty unless altered */
+        private Map<String, AttributeChange> attributes = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class AttributeChange {
+        private final Object before;
+        private final Object after;
+    }
+}
@@ -0,0 +1,201 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.ForeignKeyMetadata;
+import com.dbmetagen.app.model.IndexMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.service.SchemaDiff.ChangeKind;
+import com.dbmetagen.app.service.SchemaDiff.ObjectType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Computes a {@link SchemaDiff} between two metadata snapshots.
+ *
+ * Tables, columns, indexes and foreign keys are matched by name through hash maps, so the
+ * diff is linear in the size of both schemas. Tables shared by reference between two
+ * snapshots, as incremental refreshes do for unchanged tables, are skipped without
+ * comparing them. Names match exactly, since they may be case sensitive in the database.
+ * Composite foreign keys are compared as one constraint.
+ */
+final class SchemaDiffer {
+
+    private SchemaDiffer() {
+    }
+
+    static SchemaDiff diff(String sourceName, DatabaseMetadata source, String targetName, DatabaseMetadata target) {
+        long start = System.currentTimeMillis();
+        SchemaDiff diff = new SchemaDiff();
+        diff.setSource(sourceName);
+        diff.setTarget(targetName);
+
+        Map<String, TableMetadata> sourceTables = byName(source.getTables(), TableMetadata::getTableName);
+        Map<String, TableMetadata> targetTables = byName(target.getTables(), TableMetadata::getTableName);
+
+        for (TableMetadata table : source.getTables()) {
+            if (!targetTables.containsKey(table.getTableName())) {
+                diff.getChanges().add(change(ObjectType.TABLE, ChangeKind.DROPPED, table.getTableName(), null));
+                diff.setDroppedTables(diff.getDroppedTables() + 1);
+            }
+        }
+        for (TableMetadata table : target.getTables()) {
+            TableMetadata before = sourceTables.get(table.getTableName());
+            if (before == null) {
+                diff.getChanges().add(change(ObjectType.TABLE, ChangeKind.ADDED, table.getTableName(), null));
+                diff.setAddedTables(diff.getAddedTables() + 1);
+            } else if (before == table || !diffTable(before, table, diff.getChanges())) {
+                diff.setUnchangedTables(diff.getUnchangedTables() + 1);
+            } else {
+                diff.setAlteredTables(diff.getAlteredTables() + 1);
+            }
+        }
+
+        diff.setDurationMs(System.currentTimeMillis() - start);
+        return diff;
+    }
+
+    /**
+     * Adds the changes between two versions of a table
+     * @return true if there were any
+     */
+    private static boolean diffTable(TableMetadata before, TableMetadata after, List<SchemaDiff.Change> changes) {
+        int changeCount = changes.size();
+        String tableName = after.getTableName();
+
+        SchemaDiff.Change tableChange = change(ObjectType.TABLE, ChangeKind.ALTERED, tableName, null);
+        compare(tableChange, "primaryKey", before.getPrimaryKey(), after.getPrimaryKey());
+        if (!tableChange.getAttributes().isEmpty()) {
+            changes.add(tableChange);
+        }
+
+        Map<String, ColumnMetadata> beforeColumns = byName(before.getColumns(), ColumnMetadata::getColumnName);
+        Map<String, ColumnMetadata> afterColumns = byName(after.getColumns(), ColumnMetadata::getColumnName);
+        for (ColumnMetadata column : before.getColumns()) {
+            if (!afterColumns.containsKey(column.getColumnName())) {
+                changes.add(change(ObjectType.COLUMN, ChangeKind.DROPPED, tableName, column.getColumnName()));
+            }
+        }
+        for (ColumnMetadata column : after.getColumns()) {
+            ColumnMetadata previous = beforeColumns.get(column.getColumnName());
+            if (previous == null) {
+                changes.add(change(ObjectType.COLUMN, ChangeKind.ADDED, tableName, column.getColumnName()));
+                continue;
+            }
+            SchemaDiff.Change columnChange = change(ObjectType.COLUMN, ChangeKind.ALTERED, tableName, column.getColumnName());
+            compare(columnChange, "dataType", previous.getDataType(), column.getDataType());
+            compare(columnChange, "sqlType", previous.getSqlType(), column.getSqlType());
+            compare(columnChange, "size", previous.getSize(), column.getSize());
+            compare(columnChange, "decimalDigits", previous.getDecimalDigits(), column.getDecimalDigits());
+            compare(columnChange, "unsigned", previous.isUnsigned(), column.isUnsigned());
+            compare(columnChange, "nullable", previous.isNullable(), column.isNullable());
+            compare(columnChange, "primaryKey", previous.isPrimaryKey(), column.isPrimaryKey());
+            compare(columnChange, "autoIncrement", previous.isAutoIncrement(), column.isAutoIncrement());
+            compare(columnChange, "defaultValue", previous.getDefaultValue(), column.getDefaultValue());
+            if (!columnChange.getAttributes().isEmpty()) {
+                changes.add(columnChange);
+            }
+        }
+
+        Map<String, IndexMetadata> beforeIndexes = byName(before.getIndexes(), IndexMetadata::getIndexName);
+        Map<String, IndexMetadata> afterIndexes = byName(after.getIndexes(), IndexMetadata::getIndexName);
+        for (IndexMetadata index : before.getIndexes()) {
+            if (!afterIndexes.containsKey(index.getIndexName())) {
+                changes.add(change(ObjectType.INDEX, ChangeKind.DROPPED, tableName, index.getIndexName()));
+            }
+        }
+        for (IndexMetadata index : after.getIndexes()) {
+            IndexMetadata previous = beforeIndexes.get(index.getIndexName());
+            if (previous == null) {
+                changes.add(change(ObjectType.INDEX, ChangeKind.ADDED, tableName, index.getIndexName()));
+                continue;
+            }
+            SchemaDiff.Change indexChange = change(ObjectType.INDEX, ChangeKind.ALTERED, tableName, index.getIndexName());
+            compare(indexChange, "unique", previous.isUnique(), index.isUnique());
+            compare(indexChange, "columnNames", previous.getColumnNames(), index.getColumnNames());
+            if (!indexChange.getAttributes().isEmpty()) {
+                changes.add(indexChange);
+            }
+        }
+
+        Map<String, ForeignKey> beforeKeys = groupForeignKeys(before.getForeignKeys());
+        Map<String, ForeignKey> afterKeys = groupForeignKeys(after.getForeignKeys());
+        for (String name : beforeKeys.keySet()) {
+            if (!afterKeys.containsKey(name)) {
+                changes.add(change(ObjectType.FOREIGN_KEY, ChangeKind.DROPPED, tableName, name));
+            }
+        }
+        for (Map.Entry<String, ForeignKey> entry : afterKeys.entrySet()) {
+            ForeignKey previous = beforeKeys.get(entry.getKey());
+            ForeignKey foreignKey = entry.getValue();
+            if (previous == null) {
+                changes.add(change(ObjectType.FOREIGN_KEY, ChangeKind.ADDED, tableName, entry.getKey()));
+                continue;
+            }
+            SchemaDiff.Change keyChange = change(ObjectType.FOREIGN_KEY, ChangeKind.ALTERED, tableName, entry.getKey());
+            compare(keyChange, "columnNames", previous.columnNames, foreignKey.columnNames);
+            compare(keyChange, "referenceTableName", previous.referenceTableName, foreignKey.referenceTableName);
+            compare(keyChange, "referenceColumnNames", previous.referenceColumnNames, foreignKey.referenceColumnNames);
+            if (!keyChange.getAttributes().isEmpty()) {
+                changes.add(keyChange);
+            }
+        }
+
+        return changes.size() > changeCount;
+    }
+
+    /**
+     * Groups foreign key rows into constraints. Rows without a constraint name stand on their own,
+     * keyed by their column.
+     */
+    private static Map<String, ForeignKey> groupForeignKeys(List<ForeignKeyMetadata> rows) {
+        Map<String, ForeignKey> keys = new LinkedHashMap<>();
+        for (ForeignKeyMetadata row : rows) {
+            String name = row.getConstraintName() != null ? row.getConstraintName() : row.getColumnName();
+            ForeignKey key = keys.computeIfAbsent(name, unused -> new ForeignKey(row.getReferenceTableName()));
+            key.columnNames.add(row.getColumnName());
+            key.referenceColumnNames.add(row.getReferenceColumnName());
+        }
+        return keys;
+    }
+
+    private static <T> Map<String, T> byName(List<T> elements, Function<T, String> nameOf) {
+        Map<String, T> map = new HashMap<>(Math.max(16, elements.size() * 4 / 3 + 1));
+        for (T element : elements) {
+            // First one wins, like the name indexes
+            map.putIfAbsent(nameOf.apply(element), element);
+        }
+        return map;
+    }
+
+    private static void compare(SchemaDiff.Change change, String attribute, Object before, Object after) {
+        if (!Objects.equals(before, after)) {
+            change.getAttributes().put(attribute, new SchemaDiff.AttributeChange(before, after));
+        }
+    }
+
+    private static SchemaDiff.Change change(ObjectType objectType, ChangeKind kind, String table, String name) {
+        SchemaDiff.Change change = new SchemaDiff.Change();
+        change.setObjectType(objectType);
+        change.setKind(kind);
+        change.setTable(table);
+        change.setName(name);
+        return change;
+    }
+
+    private static final class ForeignKey {
+        private final String referenceTableName;
+        private final List<String> columnNames = new ArrayList<>();
+        private final List<String> referenceColumnNames = new ArrayList<>();
+
+        private ForeignKey(String referenceTableName) {
+            this.referenceTableName = referenceTableName;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.dbmetagen.app;
+
+import com.dbmetagen.app.config.DatabaseConfig;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An in-memory H2 database with a small shop schema, and the {@link DatabaseConfig} of a
+ * temporary configuration file pointing at it
+ */
+public final class TestDatabase implements AutoCloseable {
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    /** Customers with a unique email, their orders and the lines of each order */
+    private static final String[] SHOP_SCHEMA = {
+            "CREATE TABLE customers (id INT AUTO_INCREMENT PRIMARY KEY, email VARCHAR(120) NOT NULL, " +
+                    "name VARCHAR(80), vip BOOLEAN DEFAULT FALSE, created_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP)",
+            "CREATE UNIQUE INDEX customers_email ON customers(email)",
+            "CREATE TABLE orders (id BIGINT PRIMARY KEY, customer_id INT NOT NULL, total DECIMAL(12,2), " +
+                    "placed_on DATE, note CLOB, " +
+                    "CONSTRAINT orders_customer FOREIGN KEY (customer_id) REFERENCES customers(id))",
+            "CREATE INDEX orders_placed ON orders(placed_on)",
+            "CREATE TABLE order_lines (order_id BIGINT NOT NULL, line_no SMALLINT NOT NULL, product VARCHAR(40), " +
+                    "quantity INT, price DOUBLE PRECISION, PRIMARY KEY (order_id, line_no), " +
+                    "CONSTRAINT lines_order FOREIGN KEY (order_id) REFERENCES orders(id))"
+    };
+
+    private final String url;
+    /** Keeps the in-memory database alive between the pooled connections */
+    private final Connection keepAlive;
+    private final Path outputDirectory;
+    private Path configFile;
+    private DatabaseConfig config;
+
+    private TestDatabase(String url) throws SQLException, IOException {
+        this.url = url;
+        this.keepAlive = DriverManager.getConnection(url, "sa", "");
+        this.outputDirectory = Files.createTempDirectory("test-models");
+    }
+
+    /**
+     * @return an empty database
+     */
+    public static TestDatabase empty() throws SQLException, IOException {
+        return new TestDatabase("jdbc:h2:mem:test" + COUNTER.incrementAndGet());
+    }
+
+    /**
+     * @return a database with the shop schema
+     */
+    public static TestDatabase shop() throws SQLException, IOException {
+        TestDatabase database = empty();
+        database.execute(SHOP_SCHEMA);
+        return database;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void execute(String... statements) throws SQLException {
+        try (Statement statement = keepAlive.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Loads a configuration for this database, closed together with it or when the next one is loaded
+     * @param settings optional settings added to the configuration, e.g. {@code crawlMode}
+     */
+    public DatabaseConfig config(Map<String, Object> settings) throws IOException {
+        if (config != null) {
+            config.closeConnectionPool();
+        }
+        config = new DatabaseConfig(configFile(settings));
+        return config;
+    }
+
+    /**
+     * Writes a configuration file for this database, for an application context to load
+     * @param settings optional settings added to the configuration, e.g. {@code crawlMode}
+     */
+    public Path configFile(Map<String, Object> settings) throws IOException {
+        configFile = Files.createTempFile(outputDirectory, "db-config", ".json");
+        writeConfig(settings);
+        return configFile;
+    }
+
+    /**
+     * Rewrites the file of the configuration loaded by {@link #config(Map)} with other settings
+     * and reloads it, like an edit of the file would
+     */
+    public void reconfigure(Map<String, Object> settings) throws IOException {
+        writeConfig(settings);
+        config.reloadConfiguration();
+    }
+
+    private void writeConfig(Map<String, Object> settings) throws IOException {
+        JSONObject json = new JSONObject();
+        json.put("url", url);
+        json.put("username", "sa");
+        json.put("password", "");
+        json.put("modelPackage", "com.example.model");
+        json.put("outputDirectory", outputDirectory.toString());
+        json.put("persistSnapshots", false);
+        json.put("watchConfigFile", false);
+        settings.forEach(json::put);
+        Files.write(configFile, json.toString(2).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (config != null) {
+            config.closeConnectionPool();
+        }
+        execute("DROP ALL OBJECTS");
+        keepAlive.close();
+    }
+}
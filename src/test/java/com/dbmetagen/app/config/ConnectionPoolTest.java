@@ -0,0 +1,94 @@
+package com.dbmetagen.app.config;
+
+import com.dbmetagen.app.TestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+
+    private TestDatabase database;
+    private DatabaseConfig config;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+        config = database.config(poolSettings(1));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void leasedSnapshotKeepsItsPoolAcrossReloads() throws Exception {
+        try (ConfigLease lease = config.leaseSnapshot()) {
+            database.reconfigure(poolSettings(2));
+            database.reconfigure(poolSettings(3));
+            assertNotSame(lease.getConfig(), config.snapshot());
+
+            // No connection was borrowed before the reloads, the lease alone keeps the pool open
+            try (Connection connection = config.getConnection(lease.getConfig(), DatabaseConfig.DEFAULT_DATASOURCE)) {
+                assertTrue(connection.isValid(1));
+                // The old pool has a single connection, so this one comes from the new pool
+                try (Connection current = config.getConnection(DatabaseConfig.DEFAULT_DATASOURCE)) {
+                    assertTrue(current.isValid(1));
+                }
+            }
+        }
+    }
+
+    @Test
+    void releasedSnapshotCannotBorrowAnyMore() throws Exception {
+        ConfigSnapshot previous;
+        try (ConfigLease lease = config.leaseSnapshot()) {
+            previous = lease.getConfig();
+            database.reconfigure(poolSettings(2));
+        }
+
+        assertThrows(SQLException.class, () -> config.getConnection(previous, DatabaseConfig.DEFAULT_DATASOURCE));
+    }
+
+    @Test
+    void connectionBorrowedUnderALeaseOutlivesIt() throws Exception {
+        ConfigLease lease = config.leaseSnapshot();
+        try (Connection connection = config.getConnection(lease.getConfig(), DatabaseConfig.DEFAULT_DATASOURCE)) {
+            database.reconfigure(poolSettings(2));
+            lease.close();
+            lease.close();
+
+            assertTrue(connection.createStatement().executeQuery("SELECT COUNT(*) FROM customers").next());
+        }
+    }
+
+    @Test
+    void currentSnapshotIsLeasedUntilTheNextReload() throws Exception {
+        ConfigSnapshot current = config.snapshot();
+        try (ConfigLease lease = config.leaseSnapshot()) {
+            assertSame(current, lease.getConfig());
+        }
+
+        try (Connection connection = config.getConnection(current, DatabaseConfig.DEFAULT_DATASOURCE)) {
+            assertTrue(connection.isValid(1));
+        }
+    }
+
+    private static Map<String, Object> poolSettings(int maxSize) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("poolMaxSize", maxSize);
+        settings.put("poolMinIdle", 0);
+        settings.put("poolConnectionTimeoutMs", 250);
+        return settings;
+    }
+}
@@ -0,0 +1,178 @@
+package com.dbmetagen.app.controller;
+
+import com.dbmetagen.app.TestDatabase;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MetadataEndpointsTest {
+
+    private static TestDatabase database;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void configure(DynamicPropertyRegistry registry) throws Exception {
+        database = TestDatabase.shop();
+        String configPath = database.configFile(Collections.emptyMap()).toString();
+        registry.add("dbmetagen.config-path", () -> configPath);
+    }
+
+    @AfterAll
+    static void closeDatabase() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void pagesThroughTablesWithTheNextLink() throws Exception {
+        ResponseEntity<String> first = restTemplate.getForEntity("/api/metadata/tables?fields=tableName&limit=2", String.class);
+
+        assertEquals(200, first.getStatusCodeValue());
+        assertEquals(Arrays.asList("CUSTOMERS", "ORDER_LINES"), tableNames(first.getBody()));
+        String link = first.getHeaders().getFirst(HttpHeaders.LINK);
+        assertNotNull(link);
+        assertTrue(link.endsWith(">; rel=\"next\""), link);
+
+        ResponseEntity<String> second = restTemplate.getForEntity(URI.create(link.substring(1, link.indexOf('>'))), String.class);
+
+        assertEquals(Collections.singletonList("ORDERS"), tableNames(second.getBody()));
+        assertNull(second.getHeaders().getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    void filtersTablesByPrefixAndProjectsFields() throws Exception {
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/metadata/tables?fields=tableName&prefix=order", String.class);
+
+        assertEquals(Arrays.asList("ORDER_LINES", "ORDERS"), tableNames(response.getBody()));
+        JsonNode table = objectMapper.readTree(response.getBody()).get(0);
+        assertEquals(Collections.singletonList("tableName"), fieldNames(table));
+    }
+
+    @Test
+    void streamParameterSelectsTheSameDocuments() {
+        assertEquals(restTemplate.getForEntity("/api/metadata/tables", String.class).getBody(),
+                restTemplate.getForEntity("/api/metadata/tables?stream=true", String.class).getBody());
+
+        ResponseEntity<String> cached = restTemplate.getForEntity("/api/metadata", String.class);
+        ResponseEntity<String> streamed = restTemplate.getForEntity("/api/metadata?stream=true", String.class);
+        assertEquals(cached.getBody(), streamed.getBody());
+        assertEquals(cached.getHeaders().getETag(), streamed.getHeaders().getETag());
+    }
+
+    @Test
+    void rejectsInvalidPaging() {
+        assertEquals(400, restTemplate.getForEntity("/api/metadata/tables?limit=0", String.class).getStatusCodeValue());
+        assertEquals(400, restTemplate.getForEntity("/api/metadata/tables?cursor=%25%25", String.class).getStatusCodeValue());
+        assertEquals(400, restTemplate.getForEntity("/api/metadata/tables?fields=bogus", String.class).getStatusCodeValue());
+    }
+
+    @Test
+    void answersNotModifiedToAMatchingETag() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/metadata", String.class);
+        String eTag = response.getHeaders().getETag();
+        assertNotNull(eTag);
+        assertTrue(eTag.startsWith("W/\""), eTag);
+
+        assertEquals(304, get("/api/metadata", eTag, null).getStatusCodeValue());
+        assertEquals(304, get("/api/metadata/tables?limit=1", eTag, null).getStatusCodeValue());
+        assertEquals(200, get("/api/metadata", "W/\"other\"", null).getStatusCodeValue());
+    }
+
+    @Test
+    void tableETagOutlivesChangesToOtherTables() throws Exception {
+        String schemaTag = restTemplate.getForEntity("/api/metadata", String.class).getHeaders().getETag();
+        String tableTag = restTemplate.getForEntity("/api/metadata/tables/CUSTOMERS", String.class).getHeaders().getETag();
+
+        database.execute("ALTER TABLE orders ADD COLUMN shipped_on DATE");
+        try {
+            restTemplate.postForEntity("/api/metadata/refresh", null, String.class);
+
+            assertEquals(304, get("/api/metadata/tables/CUSTOMERS", tableTag, null).getStatusCodeValue());
+            ResponseEntity<byte[]> schema = get("/api/metadata", schemaTag, null);
+            assertEquals(200, schema.getStatusCodeValue());
+            assertNotEquals(schemaTag, schema.getHeaders().getETag());
+        } finally {
+            database.execute("ALTER TABLE orders DROP COLUMN shipped_on");
+            restTemplate.postForEntity("/api/metadata/refresh", null, String.class);
+        }
+    }
+
+    @Test
+    void compressesTheDocumentForClientsThatAcceptGzip() throws Exception {
+        ResponseEntity<byte[]> identity = get("/api/metadata", null, null);
+        ResponseEntity<byte[]> gzip = get("/api/metadata", null, "gzip");
+
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(identity.getHeaders().getETag(), gzip.getHeaders().getETag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertArrayEquals(identity.getBody(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void generatesAllModelsWithinTheRequest() throws Exception {
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/metadata/models", String.class);
+
+        assertEquals(200, response.getStatusCodeValue());
+        JsonNode body = objectMapper.readTree(response.getBody());
+        assertEquals("success", body.get("status").asText());
+        assertEquals(3, body.get("count").asInt());
+        assertTrue(body.get("models").has("OrderLines"));
+        assertEquals(404, restTemplate.getForEntity("/api/metadata/models?datasource=missing", String.class).getStatusCodeValue());
+    }
+
+    private ResponseEntity<byte[]> get(String path, String ifNoneMatch, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
+    private List<String> tableNames(String body) throws Exception {
+        List<String> names = new ArrayList<>();
+        for (JsonNode table : objectMapper.readTree(body)) {
+            names.add(table.get("tableName").asText());
+        }
+        return names;
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
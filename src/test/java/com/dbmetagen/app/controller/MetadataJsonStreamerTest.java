@@ -0,0 +1,70 @@
+package com.dbmetagen.app.controller;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataJsonStreamerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MetadataJsonStreamer streamer = new MetadataJsonStreamer(objectMapper);
+    private TestDatabase database;
+    private DatabaseMetadata metadata;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+        DatabaseConfig config = database.config(Collections.emptyMap());
+        metadata = new JdbcDatabaseMetadataRepository(config, new SimpleMeterRegistry())
+                .extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void streamsTheBeanDocumentOfACompleteSnapshot() throws Exception {
+        metadata.freeze();
+
+        assertEquals(objectMapper.writeValueAsString(metadata), streamed(metadata));
+    }
+
+    @Test
+    void streamsTheBeanDocumentOfAPartialSnapshot() throws Exception {
+        List<TableMetadata> tables = new ArrayList<>(metadata.getTables());
+        tables.remove(metadata.findTable("ORDERS"));
+        metadata.setTables(tables);
+        metadata.setIncompleteTables(Collections.singletonList("ORDERS"));
+        metadata.freeze();
+
+        String body = streamed(metadata);
+
+        assertEquals(objectMapper.writeValueAsString(metadata), body);
+        assertTrue(objectMapper.readTree(body).get("partial").asBoolean());
+        assertEquals("ORDERS", objectMapper.readTree(body).get("incompleteTables").get(0).asText());
+    }
+
+    private String streamed(DatabaseMetadata metadata) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.streamDatabaseMetadata(metadata).getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
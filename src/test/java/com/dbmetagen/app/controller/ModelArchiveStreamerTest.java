@@ -0,0 +1,148 @@
+package com.dbmetagen.app.controller;
+
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.service.ModelGeneratorService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ModelArchiveStreamerTest {
+
+    private final ModelGeneratorService generator = mock(ModelGeneratorService.class);
+    private final ModelArchiveStreamer streamer = new ModelArchiveStreamer(generator);
+    private final DatabaseMetadata metadata = metadata("CUSTOMERS", "ORDERS", "ORDER_LINES");
+
+    ModelArchiveStreamerTest() {
+        when(generator.getModelClassName(anyString())).thenAnswer(invocation -> className(invocation.getArgument(0)));
+        when(generator.generateModelClass(any())).thenAnswer(invocation ->
+                "class " + className(((TableMetadata) invocation.getArgument(0)).getTableName()) + " {}\n");
+    }
+
+    @Test
+    void deflatesEachEntryWithoutGzip() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = streamer.streamArchive(metadata, "com.example.model", "deflate");
+
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("attachment; filename=\"SHOP-models.zip\"", response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        Map<String, String> entries = readEntries(new ByteArrayInputStream(write(response)), ZipEntry.DEFLATED);
+        assertEquals(expectedEntries(), entries);
+    }
+
+    @Test
+    void storesEntriesInAGzipEncodedArchive() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = streamer.streamArchive(metadata, "com.example.model", "br, gzip;q=0.5");
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        Map<String, String> entries = readEntries(new GZIPInputStream(new ByteArrayInputStream(write(response))), ZipEntry.STORED);
+        assertEquals(expectedEntries(), entries);
+    }
+
+    @Test
+    void failureMidStreamLeavesTheArchiveUnfinished() throws Exception {
+        when(generator.generateModelClass(metadata.findTable("ORDERS"))).thenThrow(new IllegalStateException("Template failed"));
+        ResponseEntity<StreamingResponseBody> response = streamer.streamArchive(metadata, "com.example.model", null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> response.getBody().writeTo(out));
+
+        assertEquals("Template failed", e.getMessage());
+        // The servlet container aborts the response, so the client never sees a complete archive
+        assertFalse(containsEndOfCentralDirectory(out.toByteArray()));
+    }
+
+    @Test
+    void honoursTheQualityOfGzip() {
+        assertFalse(ModelArchiveStreamer.acceptsGzip(null));
+        assertFalse(ModelArchiveStreamer.acceptsGzip("deflate, br"));
+        assertFalse(ModelArchiveStreamer.acceptsGzip("gzip;q=0"));
+        assertFalse(ModelArchiveStreamer.acceptsGzip("gzip;q=x"));
+        assertTrue(ModelArchiveStreamer.acceptsGzip("deflate, GZIP"));
+        assertTrue(ModelArchiveStreamer.acceptsGzip("gzip; q=0.1"));
+    }
+
+    private static Map<String, String> expectedEntries() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (String className : Arrays.asList("Customers", "Orders", "OrderLines")) {
+            entries.put("SHOP/com/example/model/" + className + ".java", "class " + className + " {}\n");
+        }
+        return entries;
+    }
+
+    private static byte[] write(ResponseEntity<StreamingResponseBody> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the content of every entry by name, in archive order, checking each was written with the method
+     */
+    private static Map<String, String> readEntries(InputStream in, int method) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(in, StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                assertEquals(method, entry.getMethod(), entry.getName());
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static boolean containsEndOfCentralDirectory(byte[] bytes) {
+        for (int i = 0; i + 4 <= bytes.length; i++) {
+            if (bytes[i] == 'P' && bytes[i + 1] == 'K' && bytes[i + 2] == 5 && bytes[i + 3] == 6) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String className(String tableName) {
+        StringBuilder result = new StringBuilder();
+        for (String part : tableName.split("_")) {
+            result.append(part.charAt(0)).append(part.substring(1).toLowerCase());
+        }
+        return result.toString();
+    }
+
+    private static DatabaseMetadata metadata(String... tableNames) {
+        List<TableMetadata> tables = new ArrayList<>();
+        for (String tableName : tableNames) {
+            TableMetadata table = new TableMetadata();
+            table.setTableName(tableName);
+            tables.add(table);
+        }
+        DatabaseMetadata metadata = new DatabaseMetadata();
+        metadata.setDatabaseName("SHOP");
+        metadata.setTables(tables);
+        return metadata;
+    }
+}
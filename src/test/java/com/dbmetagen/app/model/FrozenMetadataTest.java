@@ -0,0 +1,110 @@
+package com.dbmetagen.app.model;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FrozenMetadataTest {
+
+    private TestDatabase database;
+    private JdbcDatabaseMetadataRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+        repository = new JdbcDatabaseMetadataRepository(database.config(Collections.emptyMap()), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void freezingKeepsTheContent() {
+        DatabaseMetadata crawled = crawl();
+        crawled.buildIndexes();
+        DatabaseMetadata frozen = crawl();
+        frozen.freeze();
+
+        assertEquals(crawled.getTables(), frozen.getTables());
+        assertEquals(crawled.contentTag(), frozen.contentTag());
+    }
+
+    @Test
+    void frozenListsCannotBeModified() {
+        DatabaseMetadata metadata = crawl();
+        metadata.freeze();
+        TableMetadata orders = metadata.findTable("ORDERS");
+
+        assertThrows(UnsupportedOperationException.class, () -> metadata.getTables().remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> orders.getColumns().clear());
+        assertThrows(UnsupportedOperationException.class, () -> orders.getForeignKeys().clear());
+        assertThrows(UnsupportedOperationException.class, () -> orders.getIndexes().clear());
+    }
+
+    @Test
+    void frozenMetadataCannotBeSet() {
+        DatabaseMetadata metadata = crawl();
+        metadata.freeze();
+        TableMetadata orders = metadata.findTable("ORDERS");
+
+        assertThrows(IllegalStateException.class, () -> metadata.setTables(new ArrayList<>()));
+        assertThrows(IllegalStateException.class, () -> metadata.setIncompleteTables(Collections.singletonList("ORDERS")));
+        assertThrows(IllegalStateException.class, () -> metadata.setDatabaseName("OTHER"));
+        assertThrows(IllegalStateException.class, () -> orders.setTableName("OTHER"));
+        assertThrows(IllegalStateException.class, () -> orders.setColumns(new ArrayList<>()));
+        assertThrows(IllegalStateException.class, () -> orders.setPrimaryKey("OTHER"));
+        assertThrows(IllegalStateException.class, () -> orders.findColumn("TOTAL").setJavaType("java.math.BigDecimal"));
+        assertThrows(IllegalStateException.class, () -> orders.findColumn("TOTAL").setNullable(false));
+        assertThrows(IllegalStateException.class, () -> orders.getForeignKeys().get(0).setReferenceTableName("OTHER"));
+        assertThrows(IllegalStateException.class, () -> orders.getIndexes().get(0).setUnique(true));
+        assertEquals("ORDERS", orders.getTableName());
+        assertEquals(crawl().contentTag(), metadata.contentTag());
+    }
+
+    @Test
+    void repeatedStringsAreHeldOnce() {
+        DatabaseMetadata metadata = crawl();
+        metadata.freeze();
+
+        ColumnMetadata orderId = metadata.findTable("ORDERS").findColumn("ID");
+        ColumnMetadata lineOrderId = metadata.findTable("ORDER_LINES").findColumn("ORDER_ID");
+        assertSame(orderId.getDataType(), lineOrderId.getDataType());
+        ForeignKeyMetadata lineOrder = metadata.findTable("ORDER_LINES").getForeignKeys().get(0);
+        assertSame(metadata.findTable("ORDERS").getTableName(), lineOrder.getReferenceTableName());
+    }
+
+    @Test
+    void tablesFrozenBeforeAreKeptAsTheyAre() {
+        DatabaseMetadata previous = crawl();
+        previous.freeze();
+        TableMetadata customers = previous.findTable("CUSTOMERS");
+
+        DatabaseMetadata next = new DatabaseMetadata();
+        List<TableMetadata> tables = new ArrayList<>(previous.getTables());
+        next.setTables(tables);
+        next.freeze();
+
+        assertSame(customers, next.findTable("CUSTOMERS"));
+        assertSame(customers.getColumns(), next.findTable("CUSTOMERS").getColumns());
+        assertNotSame(tables, next.getTables());
+    }
+
+    private DatabaseMetadata crawl() {
+        return repository.extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+    }
+}
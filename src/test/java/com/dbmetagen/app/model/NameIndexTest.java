@@ -0,0 +1,76 @@
+package com.dbmetagen.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class NameIndexTest {
+
+    @Test
+    void emptyIndexFindsNothing() {
+        NameIndex<String> index = index(Collections.emptyList());
+
+        assertNull(index.get("ORDERS"));
+        assertNull(index.get(""));
+        assertNull(index.get(null));
+    }
+
+    @Test
+    void findsNamesIgnoringCase() {
+        NameIndex<String> index = index(Arrays.asList("ORDERS", "order_lines", "Ärger"));
+
+        assertEquals("ORDERS", index.get("orders"));
+        assertEquals("ORDERS", index.get("oRdErS"));
+        assertEquals("order_lines", index.get("ORDER_LINES"));
+        assertEquals("Ärger", index.get("äRGER"));
+        assertNull(index.get("ORDER"));
+        assertNull(index.get("ORDERS "));
+    }
+
+    @Test
+    void namesWithTheSameHashAreKeptApart() {
+        // 31 * 'a' + 'z' == 31 * 'b' + '[' == 31 * 'c' + '<', also once case-folded
+        NameIndex<String> index = index(Arrays.asList("AZ", "b[", "c<"));
+
+        assertEquals("AZ", index.get("az"));
+        assertEquals("b[", index.get("B["));
+        assertEquals("c<", index.get("C<"));
+        assertNull(index.get("bz"));
+    }
+
+    @Test
+    void findsEveryNameOfALargeIndex() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            names.add("TABLE_" + i);
+        }
+        NameIndex<String> index = index(names);
+
+        for (String name : names) {
+            assertSame(name, index.get(name.toLowerCase()));
+        }
+        assertNull(index.get("TABLE_5000"));
+    }
+
+    @Test
+    void firstElementOfADuplicateNameWins() {
+        String[][] elements = {{"ORDERS", "first"}, {"orders", "second"}, {null, "unnamed"}};
+        NameIndex<String[]> index = new NameIndex<>(Arrays.asList(elements), element -> element[0]);
+
+        assertSame(elements[0], index.get("Orders"));
+        assertNull(index.get("unnamed"));
+        assertNull(index.get(null));
+    }
+
+    private static NameIndex<String> index(List<String> names) {
+        return new NameIndex<>(names, Function.identity());
+    }
+}
@@ -0,0 +1,99 @@
+package com.dbmetagen.app.model;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.RelationshipGraph.Direction;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelationshipGraphTest {
+
+    /** A table referencing itself and two tables referencing each other, next to the shop */
+    private static final String[] CYCLIC_SCHEMA = {
+            "CREATE TABLE employees (id INT PRIMARY KEY, manager_id INT, " +
+                    "CONSTRAINT employees_manager FOREIGN KEY (manager_id) REFERENCES employees(id))",
+            "CREATE TABLE teams (id INT PRIMARY KEY, captain_id INT)",
+            "CREATE TABLE players (id INT PRIMARY KEY, team_id INT, " +
+                    "CONSTRAINT players_team FOREIGN KEY (team_id) REFERENCES teams(id))",
+            "ALTER TABLE teams ADD CONSTRAINT teams_captain FOREIGN KEY (captain_id) REFERENCES players(id)"
+    };
+
+    private TestDatabase database;
+    private RelationshipGraph graph;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+        database.execute(CYCLIC_SCHEMA);
+        DatabaseConfig config = database.config(Collections.emptyMap());
+        DatabaseMetadata metadata = new JdbcDatabaseMetadataRepository(config, new SimpleMeterRegistry())
+                .extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+        metadata.freeze();
+        graph = metadata.relationships();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void listsDependenciesAndDependents() {
+        assertEquals(Collections.singletonList("CUSTOMERS"), graph.dependencies("ORDERS"));
+        assertEquals(Collections.singletonList("ORDER_LINES"), graph.dependents("orders"));
+        assertEquals(Collections.emptyList(), graph.dependencies("CUSTOMERS"));
+        assertEquals(Collections.singletonList("EMPLOYEES"), graph.dependents("EMPLOYEES"));
+    }
+
+    @Test
+    void unknownTablesHaveNoRelationships() {
+        assertFalse(graph.contains("SUPPLIERS"));
+        assertNull(graph.dependencies("SUPPLIERS"));
+        assertNull(graph.dependents("SUPPLIERS"));
+        assertNull(graph.neighbourhood("SUPPLIERS", 1, Direction.BOTH));
+    }
+
+    @Test
+    void walksTheNeighbourhoodByDistance() {
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("ORDERS", 1);
+        expected.put("CUSTOMERS", 2);
+        assertEquals(expected, graph.neighbourhood("ORDER_LINES", 2, Direction.DEPENDENCIES));
+        assertEquals(Collections.singletonMap("ORDERS", 1), graph.neighbourhood("ORDER_LINES", 1, Direction.DEPENDENCIES));
+        assertEquals(Collections.singletonMap("ORDERS", 1), graph.neighbourhood("CUSTOMERS", 1, Direction.DEPENDENTS));
+        assertTrue(graph.neighbourhood("EMPLOYEES", 3, Direction.BOTH).isEmpty());
+    }
+
+    @Test
+    void ordersReferencedTablesFirst() {
+        List<String> order = graph.loadOrder();
+
+        assertEquals(6, order.size());
+        assertTrue(order.indexOf("CUSTOMERS") < order.indexOf("ORDERS"));
+        assertTrue(order.indexOf("ORDERS") < order.indexOf("ORDER_LINES"));
+        assertEquals(1, Math.abs(order.indexOf("PLAYERS") - order.indexOf("TEAMS")));
+    }
+
+    @Test
+    void findsCyclesAndSelfReferences() {
+        List<List<String>> cycles = graph.cycles();
+
+        assertEquals(2, cycles.size());
+        assertTrue(cycles.contains(Collections.singletonList("EMPLOYEES")));
+        assertTrue(cycles.contains(Arrays.asList("PLAYERS", "TEAMS")));
+    }
+}
@@ -0,0 +1,110 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The bulk catalog queries have to read exactly what the per-table {@code DatabaseMetaData}
+ * calls read, or switching the crawl mode would change the generated models
+ */
+class BulkCrawlEquivalenceTest {
+
+    private static final String DEFAULT = DatabaseConfig.DEFAULT_DATASOURCE;
+
+    /** Types, defaults and keys beyond the shop schema */
+    private static final String[] MIXED_SCHEMA = {
+            "CREATE TABLE currencies (code CHAR(3) PRIMARY KEY, name VARCHAR(60) NOT NULL)",
+            "CREATE TABLE prices (sku VARCHAR(20) NOT NULL, currency CHAR(3) NOT NULL, amount NUMERIC(10), " +
+                    "discount DECIMAL(5,4) DEFAULT 0, valid_from TIME(2), valid_until TIMESTAMP WITH TIME ZONE, " +
+                    "token UUID, payload VARBINARY(64), rate REAL, weight FLOAT(30), active BOOLEAN, " +
+                    "PRIMARY KEY (sku, currency), " +
+                    "CONSTRAINT prices_currency FOREIGN KEY (currency) REFERENCES currencies(code))",
+            "CREATE INDEX prices_valid ON prices(valid_from, valid_until)",
+            "CREATE TABLE audit_log (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                    "logged_at TIMESTAMP(0) WITH TIME ZONE, took INTERVAL SECOND(4,3), message CLOB, data BLOB)"
+    };
+
+    private TestDatabase database;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+        database.execute(MIXED_SCHEMA);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void bulkCrawlReadsWhatTheJdbcCrawlReads() throws Exception {
+        DatabaseMetadata jdbc = crawl(DatabaseConfig.CRAWL_MODE_JDBC);
+        DatabaseMetadata bulk = crawl(DatabaseConfig.CRAWL_MODE_BULK);
+
+        assertEquals(tableNames(jdbc), tableNames(bulk));
+        for (TableMetadata table : jdbc.getTables()) {
+            assertEquals(table, bulk.findTable(table.getTableName()), table.getTableName());
+        }
+        assertTrue(bulk.getIncompleteTables().isEmpty());
+    }
+
+    @Test
+    void bulkReadOfSomeTablesMatchesTheFullRead() throws Exception {
+        DatabaseMetadata full = crawl(DatabaseConfig.CRAWL_MODE_BULK);
+
+        List<TableMetadata> tables = repository(DatabaseConfig.CRAWL_MODE_BULK)
+                .extractTables(DEFAULT, Arrays.asList("ORDERS", "PRICES"), true);
+
+        assertEquals(Arrays.asList("ORDERS", "PRICES"), tableNames(tables));
+        for (TableMetadata table : tables) {
+            assertEquals(full.findTable(table.getTableName()), table);
+        }
+    }
+
+    @Test
+    void fingerprintsMatchTheContentOfTheCrawledTables() throws Exception {
+        DatabaseMetadata metadata = crawl(DatabaseConfig.CRAWL_MODE_JDBC);
+
+        Map<String, String> fingerprints = repository(DatabaseConfig.CRAWL_MODE_JDBC).fingerprintTables(DEFAULT);
+
+        assertEquals(metadata.getTables().size(), fingerprints.size());
+        for (TableMetadata table : metadata.getTables()) {
+            assertEquals(table.contentTag(), fingerprints.get(table.getTableName()), table.getTableName());
+        }
+    }
+
+    private DatabaseMetadata crawl(String crawlMode) throws Exception {
+        DatabaseMetadata metadata = repository(crawlMode).extractDatabaseMetadata(DEFAULT);
+        metadata.buildIndexes();
+        return metadata;
+    }
+
+    private JdbcDatabaseMetadataRepository repository(String crawlMode) throws Exception {
+        DatabaseConfig config = database.config(Collections.singletonMap("crawlMode", crawlMode));
+        return new JdbcDatabaseMetadataRepository(config, new SimpleMeterRegistry());
+    }
+
+    private static List<String> tableNames(DatabaseMetadata metadata) {
+        return tableNames(metadata.getTables());
+    }
+
+    private static List<String> tableNames(List<TableMetadata> tables) {
+        return tables.stream().map(TableMetadata::getTableName).sorted().collect(Collectors.toList());
+    }
+}
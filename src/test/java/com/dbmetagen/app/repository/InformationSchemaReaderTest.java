@@ -0,0 +1,90 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InformationSchemaReaderTest {
+
+    @Test
+    void temporalSizesMatchTheMySqlDriver() {
+        assertEquals(4, InformationSchemaReader.temporalSize("YEAR", 0));
+        assertEquals(10, InformationSchemaReader.temporalSize("DATE", 0));
+        assertEquals(8, InformationSchemaReader.temporalSize("TIME", 0));
+        assertEquals(19, InformationSchemaReader.temporalSize("DATETIME", 0));
+        assertEquals(19, InformationSchemaReader.temporalSize("TIMESTAMP", 0));
+    }
+
+    @Test
+    void temporalSizesIncludeFractionalSeconds() {
+        assertEquals(12, InformationSchemaReader.temporalSize("TIME", 3));
+        assertEquals(23, InformationSchemaReader.temporalSize("DATETIME", 3));
+        assertEquals(26, InformationSchemaReader.temporalSize("TIMESTAMP", 6));
+    }
+
+    @Test
+    void otherTypesHaveNoTemporalSize() {
+        assertNull(InformationSchemaReader.temporalSize("INT", 0));
+        assertNull(InformationSchemaReader.temporalSize("VARCHAR", 0));
+    }
+
+    @Test
+    void readsDatetimeColumnWithItsDriverSize() throws SQLException {
+        ResultSet rs = columnRow("created_at", "datetime", "datetime(3)", Collections.singletonMap("DATETIME_PRECISION", 3L));
+
+        ColumnMetadata column = new InformationSchemaReader(null, "shop", null).readColumn(rs);
+
+        assertEquals("DATETIME", column.getDataType());
+        assertEquals(Types.TIMESTAMP, column.getSqlType());
+        assertEquals(23, column.getSize());
+        assertEquals(0, column.getDecimalDigits());
+    }
+
+    @Test
+    void readsVarcharColumnWithItsCharacterLength() throws SQLException {
+        ResultSet rs = columnRow("name", "varchar", "varchar(40)", Collections.singletonMap("CHARACTER_MAXIMUM_LENGTH", 40L));
+
+        ColumnMetadata column = new InformationSchemaReader(null, "shop", null).readColumn(rs);
+
+        assertEquals("VARCHAR", column.getDataType());
+        assertEquals(40, column.getSize());
+    }
+
+    /**
+     * @return a row of the columns query with the given numbers and every other number column null
+     */
+    private static ResultSet columnRow(String columnName, String dataType, String columnType,
+                                       Map<String, Long> numbers) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        AtomicBoolean wasNull = new AtomicBoolean();
+        when(rs.getString("COLUMN_NAME")).thenReturn(columnName);
+        when(rs.getString("DATA_TYPE")).thenReturn(dataType);
+        when(rs.getString("COLUMN_TYPE")).thenReturn(columnType);
+        when(rs.getString("IS_NULLABLE")).thenReturn("YES");
+        when(rs.getString("EXTRA")).thenReturn("");
+        when(rs.getLong(anyString())).thenAnswer(invocation -> {
+            Long value = numbers.get(invocation.<String>getArgument(0));
+            wasNull.set(value == null);
+            return value != null ? value : 0L;
+        });
+        when(rs.getInt(anyString())).thenAnswer(invocation -> {
+            Long value = numbers.get(invocation.<String>getArgument(0));
+            wasNull.set(value == null);
+            return value != null ? value.intValue() : 0;
+        });
+        when(rs.wasNull()).thenAnswer(invocation -> wasNull.get());
+        return rs;
+    }
+}
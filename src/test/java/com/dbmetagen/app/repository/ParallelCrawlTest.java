@@ -0,0 +1,170 @@
+package com.dbmetagen.app.repository;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.ConfigSnapshot;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Crawls a schema of many tables with several workers, through connections that take a
+ * different time for each table so the workers finish their tables out of order
+ */
+class ParallelCrawlTest {
+
+    private static final String DEFAULT = DatabaseConfig.DEFAULT_DATASOURCE;
+    private static final int TABLES = 30;
+    private static final int WORKERS = 4;
+
+    private final Set<String> failingTables = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final AtomicInteger maxOpenConnections = new AtomicInteger();
+    private final List<DatabaseConfig> configs = new ArrayList<>();
+    private TestDatabase database;
+    private List<String> tableNames;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.empty();
+        tableNames = new ArrayList<>();
+        for (int i = TABLES - 1; i >= 0; i--) {
+            String tableName = String.format("T_%02d", i);
+            database.execute("CREATE TABLE " + tableName + " (id INT PRIMARY KEY, value_" + i + " VARCHAR(20))");
+            tableNames.add(0, tableName);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (DatabaseConfig config : configs) {
+            config.closeConnectionPool();
+        }
+        database.close();
+    }
+
+    @Test
+    void keepsTheOrderOfTheSequentialCrawl() throws Exception {
+        DatabaseMetadata sequential = crawl(1);
+        DatabaseMetadata parallel = crawl(WORKERS);
+
+        assertEquals(tableNames, names(parallel.getTables()));
+        assertEquals(sequential.getTables(), parallel.getTables());
+        assertTrue(maxOpenConnections.get() > 1, "Tables were crawled on one connection at a time");
+        assertTrue(maxOpenConnections.get() <= WORKERS, "Workers used " + maxOpenConnections.get() + " connections");
+    }
+
+    @Test
+    void leavesOutFailingTablesAndKeepsTheOthersInOrder() throws Exception {
+        List<String> expected = new ArrayList<>();
+        List<String> failing = new ArrayList<>();
+        for (int i = 0; i < TABLES; i++) {
+            (i % 3 == 1 ? failing : expected).add(tableNames.get(i));
+        }
+        failingTables.addAll(failing);
+
+        DatabaseMetadata metadata = crawl(WORKERS);
+
+        assertEquals(expected, names(metadata.getTables()));
+        assertEquals(failing, metadata.getIncompleteTables());
+        assertEquals(0, openConnections.get());
+    }
+
+    private DatabaseMetadata crawl(int workers) throws Exception {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("crawlConcurrency", workers);
+        settings.put("poolMaxSize", WORKERS + 1);
+        DatabaseConfig config = new DatabaseConfig(database.configFile(settings)) {
+            @Override
+            public Connection getConnection(ConfigSnapshot snapshot, String dataSourceId) throws SQLException {
+                return tracked(super.getConnection(snapshot, dataSourceId));
+            }
+        };
+        configs.add(config);
+        return new JdbcDatabaseMetadataRepository(config, new SimpleMeterRegistry()).extractDatabaseMetadata(DEFAULT);
+    }
+
+    /**
+     * Counts the open connections, fails the tables to fail and delays each table by a few
+     * milliseconds that depend on its name
+     */
+    private Connection tracked(Connection connection) {
+        maxOpenConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+        AtomicBoolean closed = new AtomicBoolean();
+        return proxy(Connection.class, connection, (method, args) -> {
+            if (method.equals("close") && closed.compareAndSet(false, true)) {
+                openConnections.decrementAndGet();
+            }
+            if (method.equals("getMetaData")) {
+                return proxy(DatabaseMetaData.class, connection.getMetaData(), (metaDataMethod, metaDataArgs) -> {
+                    if (metaDataMethod.equals("getColumns")) {
+                        String tableName = (String) metaDataArgs[2];
+                        sleep(Math.floorMod(tableName.hashCode() * 7, 5));
+                        if (failingTables.contains(tableName)) {
+                            throw new SQLTransientConnectionException("Columns of " + tableName + " timed out");
+                        }
+                    }
+                    return null;
+                });
+            }
+            return null;
+        });
+    }
+
+    private static List<String> names(List<TableMetadata> tables) {
+        return tables.stream().map(TableMetadata::getTableName).collect(Collectors.toList());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param override answers a call by method name and arguments, or returns null to pass it on
+     */
+    private static <T> T proxy(Class<T> type, T target, CallOverride override) {
+        return type.cast(Proxy.newProxyInstance(ParallelCrawlTest.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object result = override.invoke(method.getName(), args);
+                    if (result != null) {
+                        return result;
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }));
+    }
+
+    @FunctionalInterface
+    private interface CallOverride {
+        Object invoke(String method, Object[] args) throws SQLException;
+    }
+}
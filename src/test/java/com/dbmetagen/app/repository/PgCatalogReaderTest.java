@@ -0,0 +1,85 @@
+package com.dbmetagen.app.repository;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.jdbc.TypeInfoCache;
+
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PgCatalogReaderTest {
+
+    private static final int TEXT = 25;
+    private static final int VARCHAR = 1043;
+    private static final int NUMERIC = 1700;
+    private static final int TIMESTAMP = 1114;
+
+    /** Type modifier of {@code numeric(precision, scale)} */
+    private static int numeric(int precision, int scale) {
+        return (precision << 16 | scale) + 4;
+    }
+
+    @Test
+    void sizesNumbersLikeTheDriver() {
+        assertEquals(5, size(Types.SMALLINT, 21, -1));
+        assertEquals(10, size(Types.INTEGER, 23, -1));
+        assertEquals(19, size(Types.BIGINT, 20, -1));
+        assertEquals(8, size(Types.REAL, 700, -1));
+        assertEquals(17, size(Types.DOUBLE, 701, -1));
+        assertEquals(12, size(Types.NUMERIC, NUMERIC, numeric(12, 2)));
+        assertEquals(2, PgCatalogReader.decimalDigits(Types.NUMERIC, NUMERIC, numeric(12, 2), 0, -1));
+        assertEquals(0, size(Types.NUMERIC, NUMERIC, -1));
+    }
+
+    @Test
+    void sizesUnboundedStringsWithTheUnknownLength() {
+        assertEquals(Integer.MAX_VALUE, size(Types.VARCHAR, TEXT, -1));
+        assertEquals(Integer.MAX_VALUE, size(Types.VARCHAR, VARCHAR, -1));
+        assertEquals(40, size(Types.VARCHAR, VARCHAR, 40 + 4));
+    }
+
+    @Test
+    void sizesTimestampsByTheirTextForm() {
+        assertEquals(29, size(Types.TIMESTAMP, TIMESTAMP, -1));
+        assertEquals(6, PgCatalogReader.decimalDigits(Types.TIMESTAMP, TIMESTAMP, -1, 0, -1));
+        assertEquals(22, size(Types.TIMESTAMP, TIMESTAMP, 0));
+        assertEquals(13, size(Types.DATE, 1082, -1));
+    }
+
+    @Test
+    void sizesDomainsByTheirBaseType() {
+        // CREATE DOMAIN code AS varchar(12), which the driver sizes by the raw modifier
+        assertEquals(12 + 4, PgCatalogReader.columnSize(Types.DISTINCT, 0, -1, VARCHAR, 12 + 4));
+        // CREATE DOMAIN amount AS numeric(10, 3)
+        assertEquals(10, PgCatalogReader.columnSize(Types.DISTINCT, 0, -1, NUMERIC, numeric(10, 3)));
+        assertEquals(3, PgCatalogReader.decimalDigits(Types.DISTINCT, 0, -1, NUMERIC, numeric(10, 3)));
+        // CREATE DOMAIN counter AS int4
+        assertEquals(10, PgCatalogReader.columnSize(Types.DISTINCT, 0, -1, 23, -1));
+    }
+
+    @Test
+    void matchesTheDriversTypeInfo() {
+        TypeInfoCache driver = new TypeInfoCache(null, Integer.MAX_VALUE);
+        int[] typeOids = {16, 18, 20, 21, 23, 25, 26, 700, 701, 1042, 1043, 1082, 1083, 1114, 1184, 1186, 1266,
+                1560, 1562, NUMERIC, 17, 114, 2950};
+        int[] typeMods = {-1, 0, 1, 3, 5, 6, 14, numeric(10, 0), numeric(12, 4)};
+
+        for (int typeOid : typeOids) {
+            int sqlType = typeOid == NUMERIC ? Types.NUMERIC : Types.OTHER;
+            for (int typeMod : typeMods) {
+                int expectedSize = driver.getPrecision(typeOid, typeMod);
+                if (expectedSize == 0 && sqlType != Types.NUMERIC) {
+                    expectedSize = driver.getDisplaySize(typeOid, typeMod);
+                }
+                String type = "type " + typeOid + " with modifier " + typeMod;
+                assertEquals(expectedSize, size(sqlType, typeOid, typeMod), type);
+                assertEquals(driver.getScale(typeOid, typeMod),
+                        PgCatalogReader.decimalDigits(sqlType, typeOid, typeMod, 0, -1), type);
+            }
+        }
+    }
+
+    private static int size(int sqlType, int typeOid, int typeMod) {
+        return PgCatalogReader.columnSize(sqlType, typeOid, typeMod, 0, -1);
+    }
+}
@@ -0,0 +1,116 @@
+package com.dbmetagen.app.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlLimiterTest {
+
+    private final ExecutorService crawlers = Executors.newCachedThreadPool();
+    private final AtomicInteger limit = new AtomicInteger();
+    private final CrawlLimiter limiter = new CrawlLimiter(limit::get);
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        crawlers.shutdownNow();
+    }
+
+    @Test
+    void runsAtMostTheLimit() throws Exception {
+        limit.set(2);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> crawls = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            crawls.add(start(release));
+        }
+        awaitTrue(() -> running.get() == 2);
+        Thread.sleep(50);
+        assertEquals(2, running.get());
+
+        release.countDown();
+        for (Future<Integer> crawl : crawls) {
+            crawl.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    void raisedLimitStartsWaitingCrawls() throws Exception {
+        limit.set(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(release);
+        awaitTrue(() -> running.get() == 1);
+        start(release);
+        Thread.sleep(50);
+        assertEquals(1, running.get());
+
+        // Applied by the next crawl, which lets the waiting one start too
+        limit.set(3);
+        start(release);
+
+        awaitTrue(() -> running.get() == 3);
+        release.countDown();
+    }
+
+    @Test
+    void loweredLimitLetsRunningCrawlsFinish() throws Exception {
+        limit.set(2);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch releaseSecond = new CountDownLatch(1);
+        Future<Integer> first = start(releaseFirst);
+        Future<Integer> second = start(releaseSecond);
+        awaitTrue(() -> running.get() == 2);
+
+        limit.set(1);
+        Future<Integer> third = start(new CountDownLatch(0));
+        releaseFirst.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        Thread.sleep(50);
+        // Still one crawl running, which is the new limit
+        assertEquals(1, running.get());
+        assertFalse(third.isDone());
+
+        releaseSecond.countDown();
+        second.get(5, TimeUnit.SECONDS);
+        third.get(5, TimeUnit.SECONDS);
+        assertEquals(2, maxRunning.get());
+    }
+
+    private Future<Integer> start(CountDownLatch release) {
+        return crawlers.submit(() -> limiter.run(() -> {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return now;
+        }));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,187 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GenerationJobManagerTest {
+
+    private static final String DEFAULT = DatabaseConfig.DEFAULT_DATASOURCE;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TestDatabase database;
+    private ModelGeneratorService generator;
+    private GenerationJobManager manager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+        generator = mock(ModelGeneratorService.class);
+        manager = new GenerationJobManager(generator, database.config(Collections.emptyMap()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        manager.shutdown();
+        database.close();
+    }
+
+    @Test
+    void concurrentSubmissionsShareOneJob() throws Exception {
+        when(generator.generateModelClasses(eq(DEFAULT), any())).thenAnswer(invocation -> {
+            release.await();
+            return report("Customers");
+        });
+
+        GenerationJob first = manager.submit(DEFAULT);
+        GenerationJob second = manager.submit(DEFAULT);
+        release.countDown();
+        first.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertSame(first, second);
+        assertEquals(GenerationJob.State.SUCCEEDED, first.getState());
+        verify(generator, times(1)).generateModelClasses(eq(DEFAULT), any());
+        assertNotSame(first, manager.submit(DEFAULT));
+    }
+
+    @Test
+    void reportsProgressWhileRunning() throws Exception {
+        when(generator.generateModelClasses(eq(DEFAULT), any())).thenAnswer(invocation -> {
+            GenerationProgress progress = invocation.getArgument(1);
+            progress.started(3);
+            progress.tableDone();
+            progress.tableDone();
+            release.await();
+            progress.tableDone();
+            return report("Customers", "Orders", "OrderLines");
+        });
+
+        GenerationJob job = manager.submit(DEFAULT);
+        awaitTrue(() -> job.getTablesDone() == 2);
+
+        assertEquals(GenerationJob.State.RUNNING, job.getState());
+        assertEquals(3, job.getTablesTotal());
+        assertNull(job.getReport());
+        release.countDown();
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+        assertEquals(3, job.getTablesDone());
+        assertEquals(3, job.getReport().getModels().size());
+    }
+
+    @Test
+    void cancelsARunningJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(generator.generateModelClasses(eq(DEFAULT), any())).thenAnswer(invocation -> {
+            GenerationProgress progress = invocation.getArgument(1);
+            started.countDown();
+            while (!progress.isCancelled()) {
+                Thread.sleep(10);
+            }
+            throw new CancellationException("Model generation was cancelled");
+        });
+
+        GenerationJob job = manager.submit(DEFAULT);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(manager.cancel(job.getId()));
+        job.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(GenerationJob.State.CANCELLED, job.getState());
+        assertNull(job.getReport());
+        assertFalse(manager.cancel(job.getId()));
+    }
+
+    @Test
+    void cancelsAQueuedJobWithoutRunningIt() throws Exception {
+        database.reconfigure(Collections.singletonMap("generationJobThreads", 1));
+        when(generator.generateModelClasses(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return report("Customers");
+        });
+
+        GenerationJob running = manager.submit(DEFAULT);
+        GenerationJob queued = manager.submit("other");
+        assertTrue(manager.cancel(queued.getId()));
+        release.countDown();
+        running.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(GenerationJob.State.CANCELLED, queued.getState());
+        verify(generator, times(0)).generateModelClasses(eq("other"), any());
+    }
+
+    @Test
+    void onlyTheLatestSuccessKeepsItsModels() throws Exception {
+        when(generator.generateModelClasses(eq(DEFAULT), any())).thenAnswer(invocation -> report("Customers"));
+
+        GenerationJob first = manager.submit(DEFAULT);
+        first.getCompletion().get(5, TimeUnit.SECONDS);
+        GenerationJob second = manager.submit(DEFAULT);
+        second.getCompletion().get(5, TimeUnit.SECONDS);
+
+        assertTrue(first.isModelsDiscarded());
+        assertNull(first.getReport().getModels());
+        assertEquals(1, first.getReport().getWritten());
+        assertFalse(second.isModelsDiscarded());
+        assertEquals(Collections.singleton("Customers"), second.getReport().getModels().keySet());
+    }
+
+    @Test
+    void generationStopsAfterTheCrawlOnceCancelled() throws Exception {
+        DatabaseConfig config = database.config(Collections.emptyMap());
+        ModelGeneratorServiceImpl service = new ModelGeneratorServiceImpl(
+                new JdbcDatabaseMetadataRepository(config, new SimpleMeterRegistry()), config, new SimpleMeterRegistry());
+        GenerationJob job = new GenerationJob("job", DEFAULT);
+        job.cancel();
+
+        assertThrows(CancellationException.class, () -> service.generateModelClasses(DEFAULT, job));
+
+        assertEquals(-1, job.getTablesTotal());
+        assertFalse(Files.exists(config.snapshot().getPackageDirectory(DEFAULT)));
+    }
+
+    private static GenerationReport report(String... classNames) {
+        GenerationReport report = new GenerationReport();
+        Map<String, String> models = new LinkedHashMap<>();
+        for (String className : classNames) {
+            models.put(className, "class " + className + " {}");
+        }
+        report.setModels(models);
+        report.setWritten(classNames.length);
+        return report;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,139 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalRefreshTest {
+
+    private static final String DEFAULT = DatabaseConfig.DEFAULT_DATASOURCE;
+
+    private TestDatabase database;
+    private SimpleMeterRegistry registry;
+    private ModelGeneratorServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    private void start(String crawlMode) throws Exception {
+        DatabaseConfig config = database.config(Collections.singletonMap("crawlMode", crawlMode));
+        registry = new SimpleMeterRegistry();
+        service = new ModelGeneratorServiceImpl(new JdbcDatabaseMetadataRepository(config, registry), config, registry);
+    }
+
+    @Test
+    void refreshReExtractsOnlyTheChangedTable() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC);
+        DatabaseMetadata before = service.getDatabaseMetadata(DEFAULT);
+
+        database.execute("ALTER TABLE orders ADD COLUMN shipped_on DATE");
+        RefreshResult result = service.refreshMetadata(DEFAULT);
+
+        assertFalse(result.isFullCrawl());
+        assertEquals(1, result.getChangedTables());
+        assertEquals(2, result.getUnchangedTables());
+        DatabaseMetadata after = service.getDatabaseMetadata(DEFAULT);
+        assertNotNull(after.findTable("ORDERS").findColumn("SHIPPED_ON"));
+        assertSame(before.findTable("CUSTOMERS"), after.findTable("CUSTOMERS"));
+        assertSame(before.findTable("ORDER_LINES"), after.findTable("ORDER_LINES"));
+    }
+
+    @Test
+    void refreshDetectsChangedIndexesAndKeys() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC);
+        service.getDatabaseMetadata(DEFAULT);
+
+        database.execute("CREATE INDEX customers_name ON customers(name)");
+        assertEquals(1, service.refreshMetadata(DEFAULT).getChangedTables());
+
+        database.execute("ALTER TABLE order_lines DROP CONSTRAINT lines_order");
+        assertEquals(1, service.refreshMetadata(DEFAULT).getChangedTables());
+        assertTrue(service.getDatabaseMetadata(DEFAULT).findTable("ORDER_LINES").getForeignKeys().isEmpty());
+    }
+
+    @Test
+    void unchangedSchemaKeepsTheSnapshot() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC);
+        DatabaseMetadata before = service.getDatabaseMetadata(DEFAULT);
+
+        RefreshResult result = service.refreshMetadata(DEFAULT);
+
+        assertEquals(0, result.getChangedTables());
+        assertEquals(3, result.getUnchangedTables());
+        assertSame(before, service.getDatabaseMetadata(DEFAULT));
+    }
+
+    @Test
+    void addedAndDroppedTablesArePatchedIn() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC);
+        service.getDatabaseMetadata(DEFAULT);
+
+        database.execute("DROP TABLE order_lines", "CREATE TABLE coupons (code VARCHAR(16) PRIMARY KEY)");
+        RefreshResult result = service.refreshMetadata(DEFAULT);
+
+        assertEquals(1, result.getAddedTables());
+        assertEquals(1, result.getDroppedTables());
+        DatabaseMetadata after = service.getDatabaseMetadata(DEFAULT);
+        assertNotNull(after.findTable("COUPONS"));
+        assertNull(after.findTable("ORDER_LINES"));
+    }
+
+    @Test
+    void bulkSnapshotIsRefreshedWithBulkQueries() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_BULK);
+        service.getDatabaseMetadata(DEFAULT);
+
+        database.execute("ALTER TABLE orders ADD COLUMN shipped_on DATE");
+        RefreshResult result = service.refreshMetadata(DEFAULT);
+
+        assertFalse(result.isFullCrawl());
+        assertEquals(1, result.getChangedTables());
+        // Fingerprints are always read in bulk, so each load reads the columns twice
+        assertEquals(0, queries("jdbc", "columns"));
+        assertEquals(4, queries("bulk", "columns"));
+        assertNotNull(service.getDatabaseMetadata(DEFAULT).findTable("ORDERS").findColumn("SHIPPED_ON"));
+    }
+
+    @Test
+    void switchingTheCrawlModeCrawlsAgainInFull() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC);
+        service.getDatabaseMetadata(DEFAULT);
+        long jdbcQueries = queries("jdbc", "columns");
+        long bulkQueries = queries("bulk", "columns");
+
+        database.reconfigure(Collections.singletonMap("crawlMode", DatabaseConfig.CRAWL_MODE_BULK));
+        RefreshResult result = service.refreshMetadata(DEFAULT);
+
+        assertTrue(result.isFullCrawl());
+        assertEquals(3, result.getAddedTables());
+        assertEquals(jdbcQueries, queries("jdbc", "columns"));
+        // The fingerprints and the crawl
+        assertEquals(bulkQueries + 2, queries("bulk", "columns"));
+    }
+
+    private long queries(String mode, String phase) {
+        return registry.get("dbmetagen.crawl.query").tag("mode", mode).tag("phase", phase).timer().count();
+    }
+}
@@ -0,0 +1,117 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.ConfigSnapshot;
+import com.dbmetagen.app.model.ColumnMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Types;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JavaTypeMapperTest {
+
+    private final JavaTypeMapper mapper = JavaTypeMapper.DEFAULT;
+
+    @Test
+    void mapsTypeCodesToTheTypesTheGeneratorAlwaysUsed() {
+        assertEquals("Integer", javaType("TINYINT", Types.TINYINT));
+        assertEquals("Integer", javaType("SMALLINT", Types.SMALLINT));
+        assertEquals("Integer", javaType("MEDIUMINT", Types.INTEGER));
+        assertEquals("Integer", javaType("INT", Types.INTEGER));
+        assertEquals("Double", javaType("FLOAT", Types.REAL));
+        assertEquals("Double", javaType("DOUBLE", Types.DOUBLE));
+        assertEquals("Double", javaType("DECIMAL", Types.DECIMAL));
+        assertEquals("Double", javaType("NUMERIC", Types.NUMERIC));
+        assertEquals("Boolean", javaType("BOOLEAN", Types.BOOLEAN));
+        assertEquals("Boolean", javaType("BIT", Types.BIT));
+        assertEquals("java.util.Date", javaType("DATE", Types.DATE));
+        assertEquals("java.sql.Time", javaType("TIME", Types.TIME));
+        assertEquals("java.sql.Timestamp", javaType("TIMESTAMP", Types.TIMESTAMP));
+        assertEquals("byte[]", javaType("BLOB", Types.LONGVARBINARY));
+        assertEquals("String", javaType("VARCHAR", Types.VARCHAR));
+        assertEquals("String", javaType("JSON", Types.LONGVARCHAR));
+    }
+
+    @Test
+    void mapsBigintToLong() {
+        assertEquals("Long", javaType("BIGINT", Types.BIGINT));
+    }
+
+    @Test
+    void mapsUnknownAndVendorTypeCodesToString() {
+        assertEquals("String", javaType("INTERVAL", Types.OTHER));
+        assertEquals("String", javaType("ROW", Types.STRUCT));
+        assertEquals("String", javaType("NULL", Types.NULL));
+        assertEquals("String", javaType("CURSOR", -10));
+    }
+
+    @Test
+    void mapsPointByItsCodeRatherThanItsName() {
+        // Matched as a name, POINT contains "INT"
+        assertEquals("byte[]", javaType("POINT", Types.BINARY));
+        assertEquals("byte[]", javaType("GEOMETRY", Types.BINARY));
+    }
+
+    @Test
+    void mapsDatetimeLikeTimestamp() {
+        // Matched as a name, DATETIME contains "DATE"
+        assertEquals("java.sql.Timestamp", javaType("DATETIME", Types.TIMESTAMP));
+    }
+
+    @Test
+    void widensUnsignedIntegers() {
+        ColumnMetadata unsignedInt = column("INT", Types.INTEGER);
+        unsignedInt.setUnsigned(true);
+        ColumnMetadata unsignedBigint = column("BIGINT", Types.BIGINT);
+        unsignedBigint.setUnsigned(true);
+        ColumnMetadata unsignedSmallint = column("SMALLINT", Types.SMALLINT);
+        unsignedSmallint.setUnsigned(true);
+
+        assertEquals("Long", mapper.getJavaType(unsignedInt));
+        assertEquals("java.math.BigInteger", mapper.getJavaType(unsignedBigint));
+        assertEquals("Integer", mapper.getJavaType(unsignedSmallint));
+    }
+
+    @Test
+    void mapsWideBitColumnsToBytes() {
+        ColumnMetadata flag = column("BIT", Types.BIT);
+        flag.setSize(1);
+        ColumnMetadata mask = column("BIT", Types.BIT);
+        mask.setSize(8);
+
+        assertEquals("Boolean", mapper.getJavaType(flag));
+        assertEquals("byte[]", mapper.getJavaType(mask));
+    }
+
+    @Test
+    void configuredOverridesWinByTypeNameIgnoringCase() throws Exception {
+        Map<String, Object> overrides = Collections.singletonMap("MySQL",
+                Collections.singletonMap("tinyint", "Byte"));
+        ConfigSnapshot config;
+        try (TestDatabase database = TestDatabase.empty()) {
+            config = database.config(Collections.singletonMap("typeOverrides", overrides)).snapshot();
+        }
+        JavaTypeMapper mySql = new JavaTypeMapper(config.getTypeOverrides("MYSQL"));
+
+        assertEquals("Byte", mySql.getJavaType(column("TINYINT", Types.TINYINT)));
+        assertEquals("Integer", mySql.getJavaType(column("SMALLINT", Types.SMALLINT)));
+        assertEquals("Integer", new JavaTypeMapper(config.getTypeOverrides("PostgreSQL"))
+                .getJavaType(column("TINYINT", Types.TINYINT)));
+    }
+
+    private String javaType(String dataType, int sqlType) {
+        return mapper.getJavaType(column(dataType, sqlType));
+    }
+
+    private static ColumnMetadata column(String dataType, int sqlType) {
+        ColumnMetadata column = new ColumnMetadata();
+        column.setColumnName("VALUE");
+        column.setDataType(dataType);
+        column.setSqlType(sqlType);
+        column.setSize(1);
+        return column;
+    }
+}
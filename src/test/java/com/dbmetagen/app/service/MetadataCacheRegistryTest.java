@@ -0,0 +1,160 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The caches publish into the registry from their loader threads. These tests report the
+ * published snapshots themselves, so eviction happens on the test thread.
+ */
+class MetadataCacheRegistryTest {
+
+    private static final long SNAPSHOT_BYTES = MetadataCacheRegistry.estimateBytes(snapshot("ANY"));
+
+    private final Map<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+    private final AtomicLong budget = new AtomicLong();
+    private final AtomicInteger evictions = new AtomicInteger();
+    private final MetadataCacheRegistry registry = new MetadataCacheRegistry(
+            (dataSourceId, executor) -> new MetadataCache(previous -> {
+                loads.computeIfAbsent(dataSourceId, id -> new AtomicInteger()).incrementAndGet();
+                return snapshot(dataSourceId);
+            }, () -> 0, snapshot -> { }, executor),
+            budget::get, evictions::incrementAndGet);
+
+    @Test
+    void evictsTheLeastRecentlyUsedSnapshotsOverTheBudget() {
+        budget.set(SNAPSHOT_BYTES * 5 / 2);
+        load("a");
+        load("b");
+        // Used after b, so b is the least recently used one
+        registry.get("a");
+
+        load("c");
+
+        assertNotNull(registry.peek("a"));
+        assertNull(registry.peek("b"));
+        assertNotNull(registry.peek("c"));
+        assertEquals(1, evictions.get());
+
+        // Crawled again on its next use
+        load("b");
+        assertEquals(2, loads.get("b").get());
+        assertNull(registry.peek("a"));
+    }
+
+    @Test
+    void keepsASingleSnapshotLargerThanTheBudget() {
+        budget.set(SNAPSHOT_BYTES / 2);
+        load("a");
+        load("b");
+
+        assertNull(registry.peek("a"));
+        assertNotNull(registry.peek("b"));
+        assertEquals(1, evictions.get());
+    }
+
+    @Test
+    void noBudgetKeepsEverySnapshot() {
+        for (int i = 0; i < 10; i++) {
+            load("source" + i);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(registry.peek("source" + i));
+        }
+        assertEquals(0, evictions.get());
+    }
+
+    @Test
+    void attachmentsCountAgainstTheBudget() {
+        budget.set(SNAPSHOT_BYTES * 5 / 2);
+        load("a");
+        load("b");
+        DatabaseMetadata metadata = registry.peek("b").getMetadata();
+
+        registry.attach("b", metadata, new byte[(int) SNAPSHOT_BYTES]);
+
+        assertNull(registry.peek("a"));
+        assertNotNull(registry.attachment("b", metadata));
+        // Made from the previous snapshot, so dropped when the next one is published
+        registry.published("b", registry.get("b").reload());
+        assertNull(registry.attachment("b", metadata));
+    }
+
+    @Test
+    void datasourcesHaveTheirOwnPartitions() {
+        MetadataCache a = registry.get("a");
+        assertSame(a, registry.get("a"));
+        assertNotSame(a, registry.get("b"));
+        assertEquals("a", load("a").getMetadata().getDatabaseName());
+        assertEquals("b", load("b").getMetadata().getDatabaseName());
+
+        registry.invalidate("a");
+        assertNull(registry.peek("a"));
+        assertNotNull(registry.peek("b"));
+        assertSame(a, registry.get("a"));
+
+        registry.remove("b");
+        assertNull(registry.peek("b"));
+        assertNotSame(a, registry.get("b"));
+        assertEquals(0, evictions.get());
+    }
+
+    @Test
+    void estimateCountsInternedStringsOnce() {
+        MetadataSnapshot crawled = snapshot("a");
+        MetadataSnapshot frozen = snapshot("a");
+        frozen.getMetadata().freeze();
+
+        assertTrue(MetadataCacheRegistry.estimateBytes(frozen) < MetadataCacheRegistry.estimateBytes(crawled));
+    }
+
+    private MetadataSnapshot load(String dataSourceId) {
+        MetadataSnapshot snapshot = registry.get(dataSourceId).get();
+        registry.published(dataSourceId, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * @return a snapshot of ten tables with the same columns, named after the datasource
+     */
+    private static MetadataSnapshot snapshot(String dataSourceId) {
+        List<TableMetadata> tables = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            TableMetadata table = new TableMetadata();
+            table.setTableName("TABLE_" + i);
+            List<ColumnMetadata> columns = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                ColumnMetadata column = new ColumnMetadata();
+                column.setColumnName(new String("COLUMN_" + j));
+                column.setDataType(new String("VARCHAR"));
+                columns.add(column);
+            }
+            table.setColumns(columns);
+            table.setForeignKeys(Collections.emptyList());
+            table.setIndexes(Collections.emptyList());
+            tables.add(table);
+        }
+        DatabaseMetadata metadata = new DatabaseMetadata();
+        metadata.setDatabaseName(dataSourceId);
+        metadata.setTables(tables);
+        return new MetadataSnapshot(metadata, Collections.emptyMap(), System.currentTimeMillis(), false, null);
+    }
+}
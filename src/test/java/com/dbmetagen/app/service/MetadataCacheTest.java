@@ -0,0 +1,141 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.model.DatabaseMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataCacheTest {
+
+    private final ExecutorService loaderExecutor = Executors.newCachedThreadPool();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<MetadataSnapshot> published = Collections.synchronizedList(new ArrayList<>());
+    /** Released by the test to let the loads it holds back finish */
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private final CountDownLatch loading = new CountDownLatch(1);
+
+    private final MetadataCache cache = new MetadataCache(previous -> {
+        loads.incrementAndGet();
+        loading.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return snapshot();
+    }, () -> 0, published::add, loaderExecutor);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        loaderExecutor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        release = new CountDownLatch(1);
+        int callers = 16;
+        ExecutorService callerThreads = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MetadataSnapshot>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                results.add(callerThreads.submit(() -> {
+                    start.await();
+                    return cache.get();
+                }));
+            }
+            start.countDown();
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // Let every caller reach the cache before the load completes
+            Thread.sleep(100);
+            release.countDown();
+
+            MetadataSnapshot first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<MetadataSnapshot> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callerThreads.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        awaitTrue(() -> !published.isEmpty());
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    void loadStartedBeforeAnInvalidationIsNotPublished() throws Exception {
+        release = new CountDownLatch(1);
+        CompletableFuture<MetadataSnapshot> load = cache.reloadAsync();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        cache.invalidate();
+        release.countDown();
+        load.get(5, TimeUnit.SECONDS);
+
+        assertNull(cache.peek());
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void reloadAfterAnInvalidationDoesNotJoinTheOlderLoad() throws Exception {
+        release = new CountDownLatch(1);
+        CompletableFuture<MetadataSnapshot> older = cache.reloadAsync();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        cache.invalidate();
+
+        CompletableFuture<MetadataSnapshot> newer = cache.reloadAsync();
+        assertNotSame(older, newer);
+        assertSame(newer, cache.reloadAsync());
+        release.countDown();
+
+        MetadataSnapshot snapshot = newer.get(5, TimeUnit.SECONDS);
+        older.get(5, TimeUnit.SECONDS);
+        assertSame(snapshot, cache.peek());
+        assertEquals(2, loads.get());
+        // The listener runs on the loader thread after the load completed
+        awaitTrue(() -> !published.isEmpty());
+        assertEquals(Collections.singletonList(snapshot), published);
+    }
+
+    @Test
+    void reloadAfterALoadCompletedStartsANewOne() {
+        MetadataSnapshot first = cache.get();
+        MetadataSnapshot second = cache.reload();
+
+        assertNotSame(first, second);
+        assertSame(second, cache.get());
+        assertEquals(2, loads.get());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static MetadataSnapshot snapshot() {
+        DatabaseMetadata metadata = new DatabaseMetadata();
+        metadata.setTables(Collections.emptyList());
+        return new MetadataSnapshot(metadata, Collections.emptyMap(), System.currentTimeMillis(), false, null);
+    }
+}
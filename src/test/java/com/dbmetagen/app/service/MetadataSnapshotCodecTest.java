@@ -0,0 +1,181 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.ColumnMetadata;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetadataSnapshotCodecTest {
+
+    private static final String URL = "jdbc:h2:mem:shop";
+
+    private TestDatabase database;
+    private MetadataSnapshot crawled;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+        JdbcDatabaseMetadataRepository repository = new JdbcDatabaseMetadataRepository(
+                database.config(Collections.emptyMap()), new SimpleMeterRegistry());
+        Map<String, String> fingerprints = repository.fingerprintTables(DatabaseConfig.DEFAULT_DATASOURCE);
+        DatabaseMetadata metadata = repository.extractDatabaseMetadata(DatabaseConfig.DEFAULT_DATASOURCE);
+        metadata.freeze();
+        crawled = new MetadataSnapshot(metadata, fingerprints, 1_700_000_000_123L, true, null);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void roundTripsACrawledSnapshot() throws Exception {
+        MetadataSnapshot decoded = decode(MetadataSnapshotCodec.encode(crawled, URL), URL);
+
+        assertSameContent(crawled, decoded);
+        assertEquals(3, decoded.getRefreshResult().getUnchangedTables());
+    }
+
+    @Test
+    void storeRoundTripsThroughTheMappedFile(@TempDir Path directory) throws Exception {
+        Path file = MetadataSnapshotStore.getSnapshotFile(directory.toString(), URL, "SHOP");
+        assertNull(MetadataSnapshotStore.load(file, URL));
+
+        MetadataSnapshotStore.save(file, crawled, URL);
+
+        assertTrue(file.startsWith(directory.resolve(MetadataSnapshotStore.SNAPSHOT_DIRECTORY)));
+        assertSameContent(crawled, MetadataSnapshotStore.load(file, URL));
+        assertNull(MetadataSnapshotStore.load(file, URL + ";other"));
+    }
+
+    @Test
+    void rejectsABadChecksum() {
+        byte[] bytes = MetadataSnapshotCodec.encode(crawled, URL);
+        bytes[bytes.length / 2] ^= 0x55;
+
+        IOException e = assertThrows(IOException.class, () -> decode(bytes, URL));
+        assertEquals("Snapshot checksum mismatch", e.getMessage());
+    }
+
+    @Test
+    void rejectsAnotherFormatVersion() {
+        byte[] bytes = MetadataSnapshotCodec.encode(crawled, URL);
+        // The version follows the four magic bytes as a one-byte varint
+        assertEquals(MetadataSnapshotCodec.FORMAT_VERSION, bytes[4]);
+        bytes[4] = (byte) (MetadataSnapshotCodec.FORMAT_VERSION + 1);
+
+        IOException e = assertThrows(IOException.class, () -> decode(withChecksum(bytes, bytes.length - 4), URL));
+        assertEquals("Unsupported snapshot format version " + (MetadataSnapshotCodec.FORMAT_VERSION + 1), e.getMessage());
+    }
+
+    @Test
+    void ignoresASnapshotOfAnotherUrl() throws Exception {
+        assertNull(decode(MetadataSnapshotCodec.encode(crawled, URL), "jdbc:h2:mem:other"));
+    }
+
+    @Test
+    void rejectsATruncatedFile() {
+        byte[] bytes = MetadataSnapshotCodec.encode(crawled, URL);
+
+        IOException cut = assertThrows(IOException.class, () -> decode(withChecksum(bytes, bytes.length / 2), URL));
+        assertEquals("Snapshot file is corrupt", cut.getMessage());
+        IOException tiny = assertThrows(IOException.class, () -> decode(Arrays.copyOf(bytes, 6), URL));
+        assertEquals("Snapshot file is truncated", tiny.getMessage());
+    }
+
+    @Test
+    void storesRepeatedStringsOnceAndRoundTripsWideVarints() throws Exception {
+        // Over 127 tables and strings, so counts and string references take several varint bytes
+        List<TableMetadata> tables = new ArrayList<>();
+        Map<String, String> fingerprints = new LinkedHashMap<>();
+        for (int i = 0; i < 300; i++) {
+            TableMetadata table = new TableMetadata();
+            table.setTableName("TABLE_" + i);
+            ColumnMetadata column = new ColumnMetadata();
+            column.setColumnName("SHARED_COLUMN");
+            column.setDataType("BIT");
+            column.setSqlType(-7);
+            column.setSize(i % 2 == 0 ? Integer.MAX_VALUE : 1);
+            column.setDecimalDigits(-3);
+            column.setNullable(true);
+            column.setUnsigned(i % 3 == 0);
+            table.setColumns(Collections.singletonList(column));
+            table.setForeignKeys(Collections.emptyList());
+            table.setIndexes(Collections.emptyList());
+            tables.add(table);
+            fingerprints.put(table.getTableName(), "fp" + i);
+        }
+        DatabaseMetadata metadata = new DatabaseMetadata();
+        metadata.setDatabaseName("WIDE");
+        metadata.setTables(tables);
+        MetadataSnapshot snapshot = new MetadataSnapshot(metadata, fingerprints, -1L, false, null);
+
+        byte[] bytes = MetadataSnapshotCodec.encode(snapshot, URL);
+
+        assertEquals(1, occurrences(bytes, "SHARED_COLUMN"));
+        assertEquals(1, occurrences(bytes, "TABLE_299"));
+        assertSameContent(snapshot, decode(bytes, URL));
+    }
+
+    private static void assertSameContent(MetadataSnapshot expected, MetadataSnapshot actual) {
+        DatabaseMetadata expectedMetadata = expected.getMetadata();
+        DatabaseMetadata actualMetadata = actual.getMetadata();
+        assertEquals(expectedMetadata.getDatabaseName(), actualMetadata.getDatabaseName());
+        assertEquals(expectedMetadata.getDatabaseProductName(), actualMetadata.getDatabaseProductName());
+        assertEquals(expectedMetadata.getTables(), actualMetadata.getTables());
+        assertEquals(expected.getFingerprints(), actual.getFingerprints());
+        assertEquals(new ArrayList<>(expected.getFingerprints().keySet()), new ArrayList<>(actual.getFingerprints().keySet()));
+        assertEquals(expected.getLoadedAt(), actual.getLoadedAt());
+        assertEquals(expected.isBulkCrawl(), actual.isBulkCrawl());
+    }
+
+    private static MetadataSnapshot decode(byte[] bytes, String url) throws IOException {
+        return MetadataSnapshotCodec.decode(ByteBuffer.wrap(bytes), url);
+    }
+
+    /**
+     * @return the first bytes of the body, followed by a valid checksum of them
+     */
+    private static byte[] withChecksum(byte[] bytes, int bodyLength) {
+        byte[] result = Arrays.copyOf(bytes, bodyLength + 4);
+        CRC32 crc = new CRC32();
+        crc.update(result, 0, bodyLength);
+        ByteBuffer.wrap(result).putInt(bodyLength, (int) crc.getValue());
+        return result;
+    }
+
+    private static int occurrences(byte[] bytes, String value) {
+        byte[] pattern = value.getBytes(StandardCharsets.UTF_8);
+        int count = 0;
+        for (int i = 0; i + pattern.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,124 @@
+package com.dbmetagen.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModelFileWriterTest {
+
+    private static final FileTime LAST_YEAR = FileTime.fromMillis(System.currentTimeMillis() - 365L * 24 * 3600 * 1000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void unchangedFileKeepsItsModificationTime() throws Exception {
+        Path file = directory.resolve("Customers.java");
+        assertTrue(ModelFileWriter.writeIfChanged(file, bytes("class Customers {}")));
+        Files.setLastModifiedTime(file, LAST_YEAR);
+
+        assertFalse(ModelFileWriter.writeIfChanged(file, bytes("class Customers {}")));
+        assertEquals(LAST_YEAR, Files.getLastModifiedTime(file));
+
+        // Same size, other content
+        assertTrue(ModelFileWriter.writeIfChanged(file, bytes("class Customerz {}")));
+        assertEquals("class Customerz {}", Files.readString(file));
+        assertEquals(Collections.singletonList("Customers.java"), fileNames());
+    }
+
+    @Test
+    void filesOfDroppedTablesAreDeleted() throws Exception {
+        generate("Customers.java", "Orders.java");
+
+        assertEquals(1, deleteStale(names("Customers.java"), names()));
+
+        assertEquals(Arrays.asList(ModelFileWriter.MANIFEST_FILE_NAME, "Customers.java"), fileNames());
+        assertEquals(Collections.singletonList("Customers.java"), manifest());
+    }
+
+    @Test
+    void foreignFilesSurvive() throws Exception {
+        Files.writeString(directory.resolve("CustomerView.java"), "class CustomerView {}");
+        generate("Customers.java");
+
+        assertEquals(1, deleteStale(names(), names()));
+
+        assertEquals(Arrays.asList(ModelFileWriter.MANIFEST_FILE_NAME, "CustomerView.java"), fileNames());
+    }
+
+    @Test
+    void manifestCannotDeleteOutsideTheDirectory() throws Exception {
+        Path outside = Files.writeString(directory.resolveSibling(directory.getFileName() + "-Outside.java"), "");
+        try {
+            Files.write(directory.resolve(ModelFileWriter.MANIFEST_FILE_NAME),
+                    bytes("../" + outside.getFileName() + "\n"));
+
+            assertEquals(0, deleteStale(names(), names()));
+
+            assertTrue(Files.exists(outside));
+        } finally {
+            Files.delete(outside);
+        }
+    }
+
+    @Test
+    void filesOfIncompleteTablesAreKept() throws Exception {
+        generate("Customers.java", "Orders.java");
+
+        // ORDERS could not be extracted this time
+        assertEquals(0, deleteStale(names("Customers.java"), names("Orders.java")));
+        assertTrue(Files.exists(directory.resolve("Orders.java")));
+        assertEquals(Arrays.asList("Customers.java", "Orders.java"), manifest());
+
+        // ...and turned out to be dropped on the next run
+        assertEquals(1, deleteStale(names("Customers.java"), names()));
+        assertFalse(Files.exists(directory.resolve("Orders.java")));
+    }
+
+    private void generate(String... fileNames) throws Exception {
+        for (String fileName : fileNames) {
+            ModelFileWriter.writeIfChanged(directory.resolve(fileName), bytes("// " + fileName));
+        }
+        deleteStale(names(fileNames), names());
+    }
+
+    private int deleteStale(Set<String> written, Set<String> retained) throws Exception {
+        return ModelFileWriter.deleteStale(directory, written, retained);
+    }
+
+    private List<String> manifest() throws Exception {
+        return Files.readAllLines(directory.resolve(ModelFileWriter.MANIFEST_FILE_NAME), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the names of the files in the directory, sorted, which also shows no temporary file is left
+     */
+    private List<String> fileNames() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Set<String> names(String... fileNames) {
+        return new HashSet<>(Arrays.asList(fileNames));
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,114 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.TableMetadata;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ModelTemplateOutputTest {
+
+    private static final String DEFAULT = DatabaseConfig.DEFAULT_DATASOURCE;
+
+    private TestDatabase database;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    /**
+     * The golden files are the output of the generator before it used templates, with the field
+     * types of the type-code mapping
+     */
+    @Test
+    void defaultTemplateRendersTheGoldenOutput() throws Exception {
+        DatabaseConfig config = database.config(Collections.emptyMap());
+
+        Map<String, String> models = service(config).generateModelClasses(DEFAULT).getModels();
+
+        assertEquals(new HashSet<>(Arrays.asList("Customers", "Orders", "OrderLines")), models.keySet());
+        Path packageDir = config.snapshot().getPackageDirectory(DEFAULT);
+        for (Map.Entry<String, String> model : models.entrySet()) {
+            byte[] golden = golden(model.getKey());
+            assertEquals(new String(golden, StandardCharsets.UTF_8), model.getValue());
+            assertArrayEquals(golden, Files.readAllBytes(packageDir.resolve(model.getKey() + ".java")));
+        }
+    }
+
+    @Test
+    void changedTemplateFileIsReadAgain() throws Exception {
+        Path template = database.getOutputDirectory().resolve("model.template");
+        Files.writeString(template, "class {{className}}");
+        ModelGeneratorServiceImpl service = service(
+                database.config(Collections.singletonMap("modelTemplate", template.toString())));
+        TableMetadata customers = customers(service);
+        assertEquals("class Customers", service.generateModelClass(customers));
+
+        Files.writeString(template, "record {{className}}");
+        assertEquals("record Customers", service.generateModelClass(customers));
+    }
+
+    @Test
+    void reloadedConfigurationReadsTheTemplateAgain() throws Exception {
+        Path template = database.getOutputDirectory().resolve("model.template");
+        Files.writeString(template, "class {{className}}");
+        FileTime modified = Files.getLastModifiedTime(template);
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("modelTemplate", template.toString());
+        ModelGeneratorServiceImpl service = service(database.config(settings));
+        TableMetadata customers = customers(service);
+        assertEquals("class Customers", service.generateModelClass(customers));
+
+        // Same size and modification time, so only the reload tells the file changed
+        Files.writeString(template, "final {{className}}");
+        Files.setLastModifiedTime(template, modified);
+        settings.put("generationThreads", 2);
+        database.reconfigure(settings);
+
+        assertEquals("final Customers", service.generateModelClass(customers));
+    }
+
+    private static ModelGeneratorServiceImpl service(DatabaseConfig config) {
+        return new ModelGeneratorServiceImpl(
+                new JdbcDatabaseMetadataRepository(config, new SimpleMeterRegistry()), config, new SimpleMeterRegistry());
+    }
+
+    private static TableMetadata customers(ModelGeneratorServiceImpl service) {
+        return service.getDatabaseMetadata(DEFAULT).getTables().stream()
+                .filter(table -> table.getTableName().equals("CUSTOMERS"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static byte[] golden(String className) throws IOException {
+        try (InputStream in = ModelTemplateOutputTest.class.getResourceAsStream("/golden/" + className + ".java")) {
+            assertNotNull(in, "No golden file for " + className);
+            return in.readAllBytes();
+        }
+    }
+}
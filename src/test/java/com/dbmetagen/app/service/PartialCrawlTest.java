@@ -0,0 +1,180 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.ConfigSnapshot;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Crawls through connections whose catalog calls fail for chosen tables, like a table the
+ * query timeout cuts off would
+ */
+class PartialCrawlTest {
+
+    private static final String DEFAULT = DatabaseConfig.DEFAULT_DATASOURCE;
+
+    private final Set<String> failingTables = ConcurrentHashMap.newKeySet();
+    private volatile boolean failingBulkQueries;
+    private TestDatabase database;
+    private DatabaseConfig config;
+    private JdbcDatabaseMetadataRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        config.closeConnectionPool();
+        database.close();
+    }
+
+    private void start(String crawlMode, long partialRetrySeconds) throws Exception {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("crawlMode", crawlMode);
+        settings.put("partialRetrySeconds", partialRetrySeconds);
+        config = new DatabaseConfig(database.configFile(settings)) {
+            @Override
+            public Connection getConnection(ConfigSnapshot snapshot, String dataSourceId) throws SQLException {
+                return failing(super.getConnection(snapshot, dataSourceId));
+            }
+        };
+        repository = new JdbcDatabaseMetadataRepository(config, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void failingTableIsLeftOutAndListed() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC, 0);
+        failingTables.add("ORDERS");
+
+        DatabaseMetadata metadata = repository.extractDatabaseMetadata(DEFAULT);
+
+        assertTrue(metadata.isPartial());
+        assertEquals(Collections.singletonList("ORDERS"), metadata.getIncompleteTables());
+        assertEquals(2, metadata.getTables().size());
+        assertNull(metadata.findTable("ORDERS"));
+        assertNotNull(metadata.findTable("ORDER_LINES"));
+    }
+
+    @Test
+    void crawlFailsIfNoTableCouldBeExtracted() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC, 0);
+        failingTables.addAll(Arrays.asList("CUSTOMERS", "ORDERS", "ORDER_LINES"));
+
+        assertThrows(RuntimeException.class, () -> repository.extractDatabaseMetadata(DEFAULT));
+    }
+
+    @Test
+    void failedBulkReadFallsBackToTheTableCrawl() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_BULK, 0);
+        failingBulkQueries = true;
+
+        DatabaseMetadata metadata = repository.extractDatabaseMetadata(DEFAULT);
+
+        assertFalse(metadata.isPartial());
+        assertEquals(3, metadata.getTables().size());
+    }
+
+    @Test
+    void refreshExtractsTheIncompleteTablesAgain() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC, 0);
+        ModelGeneratorServiceImpl service = new ModelGeneratorServiceImpl(repository, config, new SimpleMeterRegistry());
+        failingTables.add("ORDERS");
+        DatabaseMetadata partial = service.getDatabaseMetadata(DEFAULT);
+        assertEquals(Collections.singletonList("ORDERS"), partial.getIncompleteTables());
+
+        failingTables.clear();
+        RefreshResult result = service.refreshMetadata(DEFAULT);
+
+        assertFalse(result.isFullCrawl());
+        assertEquals(0, result.getIncompleteTables());
+        DatabaseMetadata complete = service.getDatabaseMetadata(DEFAULT);
+        assertFalse(complete.isPartial());
+        assertNotNull(complete.findTable("ORDERS"));
+        assertSame(partial.findTable("CUSTOMERS"), complete.findTable("CUSTOMERS"));
+    }
+
+    @Test
+    void partialSnapshotIsRetriedInTheBackground() throws Exception {
+        start(DatabaseConfig.CRAWL_MODE_JDBC, 1);
+        ModelGeneratorServiceImpl service = new ModelGeneratorServiceImpl(repository, config, new SimpleMeterRegistry());
+        failingTables.add("ORDERS");
+        assertTrue(service.getDatabaseMetadata(DEFAULT).isPartial());
+
+        failingTables.clear();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (service.getDatabaseMetadata(DEFAULT).isPartial() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertNotNull(service.getDatabaseMetadata(DEFAULT).findTable("ORDERS"));
+    }
+
+    private Connection failing(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            if (failingBulkQueries && method.equals("prepareStatement")) {
+                throw new SQLTransientConnectionException("Bulk query failed");
+            }
+            if (method.equals("getMetaData")) {
+                return proxy(DatabaseMetaData.class, connection.getMetaData(), (metaDataMethod, metaDataArgs) -> {
+                    if (metaDataMethod.equals("getColumns") && failingTables.contains((String) metaDataArgs[2])) {
+                        throw new SQLTransientConnectionException("Columns of " + metaDataArgs[2] + " timed out");
+                    }
+                    return null;
+                });
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @param override answers a call by method name and arguments, or returns null to pass it on
+     */
+    private static <T> T proxy(Class<T> type, T target, CallOverride override) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object result = override.invoke(method.getName(), args);
+            if (result != null) {
+                return result;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(PartialCrawlTest.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    @FunctionalInterface
+    private interface CallOverride {
+        Object invoke(String method, Object[] args) throws SQLException;
+    }
+}
@@ -0,0 +1,143 @@
+package com.dbmetagen.app.service;
+
+import com.dbmetagen.app.TestDatabase;
+import com.dbmetagen.app.config.DatabaseConfig;
+import com.dbmetagen.app.model.DatabaseMetadata;
+import com.dbmetagen.app.repository.JdbcDatabaseMetadataRepository;
+import com.dbmetagen.app.service.SchemaDiff.ChangeKind;
+import com.dbmetagen.app.service.SchemaDiff.ObjectType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaDifferTest {
+
+    private static final String DEFAULT = DatabaseConfig.DEFAULT_DATASOURCE;
+
+    private TestDatabase database;
+    private JdbcDatabaseMetadataRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = TestDatabase.shop();
+        repository = new JdbcDatabaseMetadataRepository(database.config(Collections.emptyMap()), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        database.close();
+    }
+
+    @Test
+    void sameSchemaHasNoChanges() {
+        SchemaDiff diff = SchemaDiffer.diff("before", crawl(), "after", crawl());
+
+        assertTrue(diff.getChanges().isEmpty());
+        assertEquals(3, diff.getUnchangedTables());
+    }
+
+    @Test
+    void reportsAddedAndDroppedTables() throws Exception {
+        DatabaseMetadata before = crawl();
+        database.execute("DROP TABLE order_lines", "CREATE TABLE coupons (code VARCHAR(16) PRIMARY KEY)");
+
+        SchemaDiff diff = SchemaDiffer.diff("before", before, "after", crawl());
+
+        assertEquals(1, diff.getAddedTables());
+        assertEquals(1, diff.getDroppedTables());
+        assertEquals(2, diff.getUnchangedTables());
+        assertNotNull(find(diff, ObjectType.TABLE, ChangeKind.ADDED, "COUPONS", null));
+        assertNotNull(find(diff, ObjectType.TABLE, ChangeKind.DROPPED, "ORDER_LINES", null));
+    }
+
+    @Test
+    void reportsColumnChangesWithTheirAttributes() throws Exception {
+        DatabaseMetadata before = crawl();
+        database.execute("ALTER TABLE customers ALTER COLUMN name VARCHAR(200)",
+                "ALTER TABLE customers ALTER COLUMN email SET NULL",
+                "ALTER TABLE customers DROP COLUMN vip",
+                "ALTER TABLE customers ADD COLUMN phone VARCHAR(20)");
+
+        SchemaDiff diff = SchemaDiffer.diff("before", before, "after", crawl());
+
+        assertEquals(1, diff.getAlteredTables());
+        SchemaDiff.Change name = find(diff, ObjectType.COLUMN, ChangeKind.ALTERED, "CUSTOMERS", "NAME");
+        assertEquals(new SchemaDiff.AttributeChange(80, 200), name.getAttributes().get("size"));
+        assertEquals(Collections.singleton("size"), name.getAttributes().keySet());
+        SchemaDiff.Change email = find(diff, ObjectType.COLUMN, ChangeKind.ALTERED, "CUSTOMERS", "EMAIL");
+        assertEquals(new SchemaDiff.AttributeChange(false, true), email.getAttributes().get("nullable"));
+        assertNotNull(find(diff, ObjectType.COLUMN, ChangeKind.DROPPED, "CUSTOMERS", "VIP"));
+        assertNotNull(find(diff, ObjectType.COLUMN, ChangeKind.ADDED, "CUSTOMERS", "PHONE"));
+        // H2 also renames the generated index of the primary key as it rebuilds the table
+        assertEquals(4, diff.getChanges().stream().filter(change -> change.getObjectType() == ObjectType.COLUMN).count());
+    }
+
+    @Test
+    void reportsIndexAndForeignKeyChanges() throws Exception {
+        DatabaseMetadata before = crawl();
+        database.execute("DROP INDEX orders_placed",
+                "CREATE INDEX orders_placed ON orders(placed_on, customer_id)",
+                "ALTER TABLE order_lines DROP CONSTRAINT lines_order",
+                "CREATE TABLE products (name VARCHAR(40) PRIMARY KEY)",
+                "ALTER TABLE order_lines ADD CONSTRAINT lines_product FOREIGN KEY (product) REFERENCES products(name)");
+
+        SchemaDiff diff = SchemaDiffer.diff("before", before, "after", crawl());
+
+        SchemaDiff.Change index = find(diff, ObjectType.INDEX, ChangeKind.ALTERED, "ORDERS", "ORDERS_PLACED");
+        assertEquals(new SchemaDiff.AttributeChange(Collections.singletonList("PLACED_ON"),
+                Arrays.asList("PLACED_ON", "CUSTOMER_ID")), index.getAttributes().get("columnNames"));
+        assertNotNull(find(diff, ObjectType.FOREIGN_KEY, ChangeKind.DROPPED, "ORDER_LINES", "LINES_ORDER"));
+        assertNotNull(find(diff, ObjectType.FOREIGN_KEY, ChangeKind.ADDED, "ORDER_LINES", "LINES_PRODUCT"));
+        assertEquals(1, diff.getAddedTables());
+        assertEquals(2, diff.getAlteredTables());
+    }
+
+    @Test
+    void skipsTablesSharedBetweenSnapshots() {
+        DatabaseMetadata before = crawl();
+        DatabaseMetadata after = new DatabaseMetadata();
+        after.setTables(before.getTables());
+
+        SchemaDiff diff = SchemaDiffer.diff("before", before, "after", after);
+
+        assertEquals(3, diff.getUnchangedTables());
+        assertTrue(diff.getChanges().isEmpty());
+    }
+
+    @Test
+    void refreshDiffComparesWithTheCachedSnapshot() throws Exception {
+        DatabaseConfig config = database.config(Collections.emptyMap());
+        ModelGeneratorServiceImpl service = new ModelGeneratorServiceImpl(
+                new JdbcDatabaseMetadataRepository(config, new SimpleMeterRegistry()), config, new SimpleMeterRegistry());
+        service.getDatabaseMetadata(DEFAULT);
+        database.execute("ALTER TABLE orders ADD COLUMN shipped_on DATE");
+
+        SchemaDiff diff = service.refreshMetadataDiff(DEFAULT);
+
+        assertEquals(1, diff.getAlteredTables());
+        assertEquals(2, diff.getUnchangedTables());
+        assertNotNull(find(diff, ObjectType.COLUMN, ChangeKind.ADDED, "ORDERS", "SHIPPED_ON"));
+        assertTrue(diff.getSource().startsWith(DEFAULT + "@"));
+    }
+
+    private DatabaseMetadata crawl() {
+        return repository.extractDatabaseMetadata(DEFAULT);
+    }
+
+    private static SchemaDiff.Change find(SchemaDiff diff, ObjectType objectType, ChangeKind kind, String table, String name) {
+        return diff.getChanges().stream()
+                .filter(change -> change.getObjectType() == objectType && change.getKind() == kind
+                        && change.getTable().equals(table) && Objects.equals(change.getName(), name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + kind + " " + objectType + " " + table + "." + name + " in " + diff));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.model;
+
+import java.util.*;
+import java.sql.*;
+import lombok.Data;
+
+/**
+ * Auto-generated model class for table: CUSTOMERS
+ */
+@Data
+public class Customers {
+
+    /**
+     * ID - INTEGER (Primary Key) (Auto Increment)
+     */
+    private Integer id;
+
+    /**
+     * EMAIL - CHARACTER VARYING
+     */
+    private String email;
+
+    /**
+     * NAME - CHARACTER VARYING
+     */
+    private String name;
+
+    /**
+     * VIP - BOOLEAN
+     */
+    private Boolean vip;
+
+    /**
+     * CREATED_AT - TIMESTAMP
+     */
+    private java.sql.Timestamp createdAt;
+
+}
@@ -0,0 +1,44 @@
+package com.example.model;
+
+import java.util.*;
+import java.sql.*;
+import lombok.Data;
+
+/**
+ * Auto-generated model class for table: ORDER_LINES
+ */
+@Data
+public class OrderLines {
+
+    /**
+     * ORDER_ID - BIGINT
+     */
+    private Long orderId;
+
+    /**
+     * LINE_NO - SMALLINT (Primary Key)
+     */
+    private Integer lineNo;
+
+    /**
+     * PRODUCT - CHARACTER VARYING
+     */
+    private String product;
+
+    /**
+     * QUANTITY - INTEGER
+     */
+    private Integer quantity;
+
+    /**
+     * PRICE - DOUBLE PRECISION
+     */
+    private Double price;
+
+    /**
+     * Relationship: LINES_ORDER
+     * Referenced table: ORDERS
+     */
+    private Orders orders;
+
+}
@@ -0,0 +1,44 @@
+package com.example.model;
+
+import java.util.*;
+import java.sql.*;
+import lombok.Data;
+
+/**
+ * Auto-generated model class for table: ORDERS
+ */
+@Data
+public class Orders {
+
+    /**
+     * ID - BIGINT (Primary Key)
+     */
+    private Long id;
+
+    /**
+     * CUSTOMER_ID - INTEGER
+     */
+    private Integer customerId;
+
+    /**
+     * TOTAL - DECIMAL
+     */
+    private Double total;
+
+    /**
+     * PLACED_ON - DATE
+     */
+    private java.util.Date placedOn;
+
+    /**
+     * NOTE - CHARACTER LARGE OBJECT
+     */
+    private String note;
+
+    /**
+     * Relationship: ORDERS_CUSTOMER
+     * Referenced table: CUSTOMERS
+     */
+    private Customers customers;
+
+}